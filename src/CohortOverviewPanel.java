@@ -0,0 +1,320 @@
+import data_access.DataAccess;
+import data_access.DataCache;
+import data_access.DataTable;
+import domain.RecoveryPlan;
+import service.CohortData;
+import service.EligibilityRules;
+import service.RecoveryFileManager;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * CohortOverviewPanel lists every student with credits, CGPA, failed courses,
+ * recovery eligibility and the status of their latest recovery plan.
+ *
+ * This panel provides:
+ * - A table of the whole cohort; click a column header to sort, click again to reverse
+ * - A filter on student or program ID and an "Eligible only" switch
+ *
+ * The table reads from a {@link CohortTableModel} over a CohortData snapshot.
+ * Loading, sorting and filtering run in SwingWorkers, so the window stays
+ * responsive with a large cohort; only the finished view is handed to the table.
+ */
+public class CohortOverviewPanel extends JPanel
+{
+    private static final String NO_PLAN = "None";
+
+    private JTextField filterField;
+    private JCheckBox eligibleOnlyBox;
+    private JLabel statusLabel;
+    private JTable table;
+    private CohortTableModel model;
+
+    // Current sort column (-1 for file order) and direction
+    private int sortColumn = -1;
+    private boolean ascending = true;
+
+    // The background load or arrange in progress, if any; a newer one replaces it
+    private SwingWorker<?, Void> worker;
+    private boolean loading;
+    // The sort or filter changed during a load, which still uses the settings it started with
+    private boolean arrangePending;
+
+    // Reloads the cohort when its data changes (registered while the panel is showing)
+    private final DataCache.Listener dataListener = changed ->
+    {
+        if (changed == DataTable.STUDENTS || changed == DataTable.ENROLLMENTS
+                || changed == DataTable.COURSES || changed == DataTable.RECOVERY_PLANS)
+        {
+            SwingUtilities.invokeLater(this::load);
+        }
+    };
+
+    /**
+     * Constructor - Builds the panel and loads the cohort in the background.
+     */
+    public CohortOverviewPanel()
+    {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        add(createFilterPanel(), BorderLayout.NORTH);
+        add(createTablePanel(), BorderLayout.CENTER);
+
+        load();
+    }
+
+    private JPanel createFilterPanel()
+    {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+        panel.add(new JLabel("Filter (Student or Program ID):"));
+        filterField = new JTextField(15);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                arrange();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                arrange();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                arrange();
+            }
+        });
+        panel.add(filterField);
+
+        eligibleOnlyBox = new JCheckBox("Eligible only");
+        eligibleOnlyBox.addActionListener(e -> arrange());
+        panel.add(eligibleOnlyBox);
+
+        JButton reloadButton = new JButton("Reload");
+        reloadButton.addActionListener(e -> load());
+        panel.add(reloadButton);
+
+        statusLabel = new JLabel("Loading...");
+        panel.add(statusLabel);
+        return panel;
+    }
+
+    private JScrollPane createTablePanel()
+    {
+        model = new CohortTableModel();
+        table = new JTable(model);
+        table.setRowHeight(22);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getTableHeader().setReorderingAllowed(false);
+
+        // CGPA with two decimals, like the reports
+        table.setDefaultRenderer(Double.class, new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setHorizontalAlignment(SwingConstants.RIGHT);
+                setText(value == null ? "" : String.format("%.2f", (Double) value));
+            }
+        });
+
+        // Sorting is done by the panel off the EDT, not by a TableRowSorter
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column < 0) {
+                    return;
+                }
+                column = table.convertColumnIndexToModel(column);
+                ascending = column != sortColumn || !ascending;
+                sortColumn = column;
+                updateHeaders();
+                arrange();
+            }
+        });
+
+        return new JScrollPane(table);
+    }
+
+    /**
+     * Loads the cohort, its eligibility and the latest plan status of each
+     * student on a background thread, then shows it with the current sort and filter.
+     */
+    private void load()
+    {
+        int column = sortColumn;
+        boolean asc = ascending;
+        String filter = filterField.getText();
+        boolean eligibleOnly = eligibleOnlyBox.isSelected();
+
+        start(new SwingWorker<Object[], Void>()
+        {
+            @Override
+            protected Object[] doInBackground()
+            {
+                CohortData cohort = CohortData.load(new DataAccess());
+                EligibilityRules.CohortResult eligibility = EligibilityRules.getInstance().evaluate(cohort);
+
+                // Plans are appended, so the last plan of a student is the latest
+                Map<String, String> latestStatus = new HashMap<>();
+                for (RecoveryPlan plan : new RecoveryFileManager().loadPlans())
+                {
+                    latestStatus.put(plan.getStudentId(), plan.getStatus());
+                }
+                String[] planStatus = new String[cohort.size()];
+                for (int row = 0; row < planStatus.length; row++)
+                {
+                    planStatus[row] = latestStatus.getOrDefault(cohort.getStudentId(row), NO_PLAN);
+                }
+
+                CohortTableModel.Snapshot snapshot = new CohortTableModel.Snapshot(cohort, eligibility, planStatus);
+                return new Object[]{snapshot, CohortTableModel.arrange(snapshot, column, asc, filter, eligibleOnly)};
+            }
+
+            @Override
+            protected void done()
+            {
+                showResult(this, "Failed to load the cohort.");
+            }
+        });
+        loading = true;
+        arrangePending = false;
+        statusLabel.setText("Loading...");
+    }
+
+    /**
+     * Sorts and filters the loaded cohort again on a background thread.
+     */
+    private void arrange()
+    {
+        if (loading)
+        {
+            // Applied to the loaded cohort in showResult, so typing does not start a load per key
+            arrangePending = true;
+            return;
+        }
+        CohortTableModel.Snapshot snapshot = model.getSnapshot();
+        if (snapshot == null)
+        {
+            // The last load failed; try again with the new settings
+            load();
+            return;
+        }
+        int column = sortColumn;
+        boolean asc = ascending;
+        String filter = filterField.getText();
+        boolean eligibleOnly = eligibleOnlyBox.isSelected();
+
+        start(new SwingWorker<Object[], Void>()
+        {
+            @Override
+            protected Object[] doInBackground()
+            {
+                return new Object[]{snapshot, CohortTableModel.arrange(snapshot, column, asc, filter, eligibleOnly)};
+            }
+
+            @Override
+            protected void done()
+            {
+                showResult(this, "Failed to sort the cohort.");
+            }
+        });
+    }
+
+    private void start(SwingWorker<?, Void> next)
+    {
+        if (worker != null)
+        {
+            worker.cancel(false);
+        }
+        worker = next;
+        worker.execute();
+    }
+
+    // Shows the result of a load or arrange, unless a newer one has started since
+    private void showResult(SwingWorker<Object[], Void> finished, String errorMessage)
+    {
+        if (finished.isCancelled() || worker != finished)
+        {
+            return;
+        }
+        worker = null;
+        loading = false;
+        try
+        {
+            Object[] result = finished.get();
+            CohortTableModel.Snapshot snapshot = (CohortTableModel.Snapshot) result[0];
+            model.setView(snapshot, (int[]) result[1]);
+            statusLabel.setText("Showing " + model.getRowCount() + " of " + snapshot.size() + " students");
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            statusLabel.setText(errorMessage);
+        }
+        if (arrangePending)
+        {
+            arrangePending = false;
+            arrange();
+        }
+    }
+
+    // Marks the sorted column with an arrow
+    private void updateHeaders()
+    {
+        for (int i = 0; i < table.getColumnCount(); i++)
+        {
+            TableColumn column = table.getColumnModel().getColumn(i);
+            int modelIndex = column.getModelIndex();
+            String name = model.getColumnName(modelIndex);
+            column.setHeaderValue(modelIndex == sortColumn ? name + (ascending ? " \u25B2" : " \u25BC") : name);
+        }
+        table.getTableHeader().repaint();
+    }
+
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        DataCache.getInstance().addListener(dataListener);
+    }
+
+    @Override
+    public void removeNotify()
+    {
+        DataCache.getInstance().removeListener(dataListener);
+        super.removeNotify();
+    }
+
+    /**
+     * Main method to run the panel standalone for testing.
+     */
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                JFrame frame = new JFrame("Cohort Overview");
+                frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                frame.setSize(900, 600);
+                frame.setLocationRelativeTo(null);
+
+                frame.add(new CohortOverviewPanel());
+                frame.setVisible(true);
+            }
+        });
+    }
+}
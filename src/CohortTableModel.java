@@ -0,0 +1,287 @@
+import service.CohortData;
+import service.EligibilityRules;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * CohortTableModel shows every student of a {@link CohortData} with the columns
+ * Student ID, Program, Credits, CGPA, Failed Courses, Eligible and Plan Status.
+ *
+ * Cells are read straight from the cohort's columns; nothing is copied into
+ * row objects. Sorting and filtering produce a new view, an int[] of cohort
+ * rows in display order, which is built by {@link #arrange} on a background
+ * thread and then handed to {@link #setView} on the event dispatch thread.
+ */
+public class CohortTableModel extends AbstractTableModel
+{
+    public static final int STUDENT_ID = 0;
+    public static final int PROGRAM = 1;
+    public static final int CREDITS = 2;
+    public static final int CGPA = 3;
+    public static final int FAILED_COURSES = 4;
+    public static final int ELIGIBLE = 5;
+    public static final int PLAN_STATUS = 6;
+
+    private static final String[] COLUMN_NAMES = {"Student ID", "Program", "Credits", "CGPA", "Failed Courses", "Eligible", "Plan Status"};
+
+    private Snapshot snapshot;
+    private int[] view = new int[0];
+
+    /**
+     * The data shown by the table: a cohort, its eligibility, and the status of
+     * each student's latest recovery plan ("" if there is none). The sort order
+     * of each column is worked out the first time it is needed.
+     */
+    public static final class Snapshot
+    {
+        final CohortData cohort;
+        final EligibilityRules.CohortResult eligibility;
+        final String[] planStatus;
+
+        // Lower-cased student and program IDs for the filter
+        private final String[] searchText;
+        private final int[][] ranks = new int[COLUMN_NAMES.length][];
+
+        public Snapshot(CohortData cohort, EligibilityRules.CohortResult eligibility, String[] planStatus)
+        {
+            this.cohort = cohort;
+            this.eligibility = eligibility;
+            this.planStatus = planStatus;
+            this.searchText = new String[cohort.size()];
+            for (int row = 0; row < searchText.length; row++)
+            {
+                searchText[row] = (cohort.getStudentId(row) + " " + cohort.getProgramId(row)).toLowerCase(Locale.ROOT);
+            }
+        }
+
+        public int size()
+        {
+            return cohort.size();
+        }
+
+        /*
+         * The position of each row's value among the column's distinct values, so
+         * every column sorts the same way: as (rank, row) pairs packed into longs.
+         */
+        private synchronized int[] ranks(int column)
+        {
+            if (ranks[column] == null)
+            {
+                int n = size();
+                switch (column)
+                {
+                    case CREDITS:
+                    case CGPA:
+                    case FAILED_COURSES:
+                        double[] numbers = new double[n];
+                        for (int row = 0; row < n; row++)
+                        {
+                            numbers[row] = column == CREDITS ? cohort.getCredits(row)
+                                    : column == CGPA ? cohort.getCgpa(row) : cohort.getFailedCourses(row);
+                        }
+                        ranks[column] = rank(numbers);
+                        break;
+                    case ELIGIBLE:
+                        int[] eligible = new int[n];
+                        for (int row = 0; row < n; row++)
+                        {
+                            eligible[row] = eligibility.isEligible(row) ? 1 : 0;
+                        }
+                        ranks[column] = eligible;
+                        break;
+                    default:
+                        String[] text = new String[n];
+                        for (int row = 0; row < n; row++)
+                        {
+                            text[row] = column == STUDENT_ID ? cohort.getStudentId(row)
+                                    : column == PROGRAM ? cohort.getProgramId(row) : planStatus[row];
+                        }
+                        ranks[column] = rank(text);
+                        break;
+                }
+            }
+            return ranks[column];
+        }
+
+        private static int[] rank(double[] values)
+        {
+            double[] distinct = values.clone();
+            Arrays.sort(distinct);
+            int unique = dedupe(distinct);
+            int[] ranks = new int[values.length];
+            for (int row = 0; row < values.length; row++)
+            {
+                ranks[row] = Arrays.binarySearch(distinct, 0, unique, values[row]);
+            }
+            return ranks;
+        }
+
+        private static int[] rank(String[] values)
+        {
+            String[] distinct = values.clone();
+            Arrays.sort(distinct);
+            int unique = 0;
+            for (int i = 0; i < distinct.length; i++)
+            {
+                if (unique == 0 || !distinct[i].equals(distinct[unique - 1]))
+                {
+                    distinct[unique++] = distinct[i];
+                }
+            }
+            int[] ranks = new int[values.length];
+            for (int row = 0; row < values.length; row++)
+            {
+                ranks[row] = Arrays.binarySearch(distinct, 0, unique, values[row]);
+            }
+            return ranks;
+        }
+
+        private static int dedupe(double[] sorted)
+        {
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++)
+            {
+                if (unique == 0 || sorted[i] != sorted[unique - 1])
+                {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return unique;
+        }
+    }
+
+    /**
+     * Works out the rows to show, in order. Meant to run off the event dispatch thread.
+     *
+     * @param column       The column to sort by, or -1 for file order
+     * @param filter       Text the student or program ID must contain; empty for all
+     * @param eligibleOnly Whether to show only students eligible for recovery
+     */
+    public static int[] arrange(Snapshot snapshot, int column, boolean ascending, String filter, boolean eligibleOnly)
+    {
+        int n = snapshot.size();
+        int[] order = new int[n];
+        if (column < 0)
+        {
+            for (int row = 0; row < n; row++)
+            {
+                order[row] = row;
+            }
+        }
+        else
+        {
+            // Sorting primitive longs is much cheaper than sorting boxed rows with a comparator
+            int[] ranks = snapshot.ranks(column);
+            long[] keys = new long[n];
+            for (int row = 0; row < n; row++)
+            {
+                long rank = ascending ? ranks[row] : Integer.MAX_VALUE - ranks[row];
+                keys[row] = (rank << 32) | row;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < n; i++)
+            {
+                order[i] = (int) keys[i];
+            }
+        }
+
+        String text = filter == null ? "" : filter.trim().toLowerCase(Locale.ROOT);
+        if (text.isEmpty() && !eligibleOnly)
+        {
+            return order;
+        }
+        int shown = 0;
+        for (int row : order)
+        {
+            if ((!eligibleOnly || snapshot.eligibility.isEligible(row)) && snapshot.searchText[row].contains(text))
+            {
+                order[shown++] = row;
+            }
+        }
+        return Arrays.copyOf(order, shown);
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return view.length;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column)
+    {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column)
+    {
+        switch (column)
+        {
+            case CREDITS:
+            case FAILED_COURSES:
+                return Integer.class;
+            case CGPA:
+                return Double.class;
+            case ELIGIBLE:
+                return Boolean.class;
+            default:
+                return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int column)
+    {
+        int row = view[rowIndex];
+        CohortData cohort = snapshot.cohort;
+        switch (column)
+        {
+            case STUDENT_ID:
+                return cohort.getStudentId(row);
+            case PROGRAM:
+                return cohort.getProgramId(row);
+            case CREDITS:
+                return cohort.getCredits(row);
+            case CGPA:
+                return cohort.getCgpa(row);
+            case FAILED_COURSES:
+                return cohort.getFailedCourses(row);
+            case ELIGIBLE:
+                return snapshot.eligibility.isEligible(row);
+            default:
+                return snapshot.planStatus[row];
+        }
+    }
+
+    /**
+     * Shows a view produced by {@link #arrange} for the given snapshot.
+     */
+    public void setView(Snapshot snapshot, int[] view)
+    {
+        this.snapshot = snapshot;
+        this.view = view;
+        fireTableDataChanged();
+    }
+
+    public Snapshot getSnapshot()
+    {
+        return snapshot;
+    }
+
+    /**
+     * Returns the student ID shown in a table row.
+     */
+    public String getStudentId(int rowIndex)
+    {
+        return snapshot.cohort.getStudentId(view[rowIndex]);
+    }
+}
@@ -0,0 +1,110 @@
+import service.FailedStudent;
+
+import javax.swing.AbstractListModel;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FailedStudentListModel shows one page of the students needing recovery.
+ *
+ * The model keeps a reference to the result list returned by RecoveryService
+ * instead of copying every entry into a DefaultListModel, and the JList only
+ * ever sees the current page. When the result set is replaced or the page changes,
+ * the old and new page are compared with {@link RowDiff} and a single event is
+ * fired for the block that actually changed, so the selection and scroll position
+ * survive a refresh.
+ *
+ * The result list must not be modified after it is handed to the model.
+ */
+public class FailedStudentListModel extends AbstractListModel<FailedStudent>
+{
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final int pageSize;
+    private List<FailedStudent> students = Collections.emptyList();
+    private int page;
+
+    public FailedStudentListModel()
+    {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    public FailedStudentListModel(int pageSize)
+    {
+        if (pageSize <= 0)
+        {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return Math.max(0, Math.min(pageSize, students.size() - page * pageSize));
+    }
+
+    @Override
+    public FailedStudent getElementAt(int index)
+    {
+        return students.get(page * pageSize + index);
+    }
+
+    /**
+     * Replaces the result set. The current page is kept if it still exists.
+     */
+    public void setStudents(List<FailedStudent> students)
+    {
+        List<FailedStudent> oldPage = currentPage();
+        this.students = students == null ? Collections.<FailedStudent>emptyList() : students;
+        this.page = Math.min(page, Math.max(0, getPageCount() - 1));
+        firePageDiff(oldPage);
+    }
+
+    /**
+     * Moves to another page; out-of-range pages are clamped.
+     */
+    public void setPage(int page)
+    {
+        int target = Math.max(0, Math.min(page, getPageCount() - 1));
+        if (target == this.page)
+        {
+            return;
+        }
+        List<FailedStudent> oldPage = currentPage();
+        this.page = target;
+        firePageDiff(oldPage);
+    }
+
+    public int getPage()
+    {
+        return page;
+    }
+
+    public int getPageCount()
+    {
+        return Math.max(1, (students.size() + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Returns the number of entries over all pages.
+     */
+    public int getTotalSize()
+    {
+        return students.size();
+    }
+
+    private List<FailedStudent> currentPage()
+    {
+        int from = page * pageSize;
+        return students.subList(Math.min(from, students.size()), Math.min(from + pageSize, students.size()));
+    }
+
+    private void firePageDiff(List<FailedStudent> oldPage)
+    {
+        RowDiff.between(oldPage, currentPage(), FailedStudent::equals).fire(
+                (first, last) -> fireContentsChanged(this, first, last),
+                (first, last) -> fireIntervalAdded(this, first, last),
+                (first, last) -> fireIntervalRemoved(this, first, last));
+    }
+}
@@ -0,0 +1,133 @@
+import domain.Milestone;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MilestoneTableModel is a table model with the columns Week, Task, Due and
+ * Status, backed directly by the milestones of a recovery plan. Week, Task and
+ * Due are read-only; Status can be edited when a {@link StatusUpdater} is set.
+ *
+ * Unlike a DefaultTableModel, the rows are not copied into Object[] vectors.
+ * When the plan is reloaded, only the block of rows that differs from the
+ * previous version is reported to the table (see {@link RowDiff}).
+ */
+public class MilestoneTableModel extends AbstractTableModel
+{
+    private static final String[] COLUMN_NAMES = {"Week", "Task", "Due", "Status"};
+
+    public static final int STATUS_COLUMN = 3;
+
+    /**
+     * Persists a status edited in the table.
+     */
+    public interface StatusUpdater
+    {
+        /**
+         * @return true if the change was saved and should be shown
+         */
+        boolean update(int row, String status);
+    }
+
+    private List<Milestone> milestones = Collections.emptyList();
+    private StatusUpdater statusUpdater;
+
+    // The values each row had when it was last shown, since Milestone objects are mutable
+    private List<String[]> shown = Collections.emptyList();
+
+    @Override
+    public int getRowCount()
+    {
+        return milestones.size();
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column)
+    {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column)
+    {
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column)
+    {
+        Milestone milestone = milestones.get(row);
+        switch (column)
+        {
+            case 0:
+                return milestone.getWeek();
+            case 1:
+                return milestone.getTask();
+            case 2:
+                return milestone.getDueDate() == null ? "" : milestone.getDueDate().toString();
+            default:
+                return milestone.getStatus();
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column)
+    {
+        return column == STATUS_COLUMN && statusUpdater != null;
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column)
+    {
+        String status = (String) value;
+        if (!isCellEditable(row, column) || status == null || status.equals(milestones.get(row).getStatus()))
+        {
+            return;
+        }
+        if (statusUpdater.update(row, status))
+        {
+            shown.get(row)[STATUS_COLUMN] = milestones.get(row).getStatus();
+            fireTableCellUpdated(row, column);
+        }
+    }
+
+    /**
+     * Makes the Status column editable; null makes the whole table read-only.
+     */
+    public void setStatusUpdater(StatusUpdater statusUpdater)
+    {
+        this.statusUpdater = statusUpdater;
+    }
+
+    public Milestone getMilestone(int row)
+    {
+        return milestones.get(row);
+    }
+
+    /**
+     * Shows a new list of milestones, firing events only for the rows that changed.
+     */
+    public void setMilestones(List<Milestone> milestones)
+    {
+        List<Milestone> rows = milestones == null ? Collections.<Milestone>emptyList() : milestones;
+        List<String[]> values = new ArrayList<>(rows.size());
+        for (Milestone m : rows)
+        {
+            values.add(new String[]{m.getWeek(), m.getTask(), String.valueOf(m.getDueDate()), m.getStatus()});
+        }
+
+        RowDiff diff = RowDiff.between(shown, values, Arrays::equals);
+        this.milestones = rows;
+        this.shown = values;
+        diff.fire(this::fireTableRowsUpdated, this::fireTableRowsInserted, this::fireTableRowsDeleted);
+    }
+}
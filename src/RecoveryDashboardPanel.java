@@ -0,0 +1,258 @@
+import service.RecoveryDashboard;
+
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * RecoveryDashboardPanel gives administrators a live overview of every recovery plan.
+ *
+ * This panel shows:
+ * - Totals: plans, plans by status, milestones in progress and completed,
+ *   and plans whose milestones are all completed
+ * - A table with the progress of each course
+ *
+ * The numbers come from RecoveryDashboard, which keeps running totals, so the
+ * panel polls it once a second without reading any file. Only the course rows
+ * whose numbers changed are repainted.
+ */
+public class RecoveryDashboardPanel extends JPanel
+{
+    // How often the totals are read while the panel is showing
+    private static final int POLL_MILLIS = 1000;
+
+    private JLabel plansLabel;
+    private JLabel plansByStatusLabel;
+    private JLabel milestonesLabel;
+    private JLabel readyLabel;
+    private CourseTableModel courseModel;
+
+    private RecoveryDashboard dashboard;
+    private final Timer pollTimer;
+
+    /**
+     * Constructor - Builds the panel and loads the dashboard in the background.
+     */
+    public RecoveryDashboardPanel()
+    {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        add(createSummaryPanel(), BorderLayout.NORTH);
+        add(createCoursePanel(), BorderLayout.CENTER);
+
+        JButton rebuildButton = new JButton("Rebuild From Files");
+        rebuildButton.addActionListener(e -> load(true));
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(rebuildButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        pollTimer = new Timer(POLL_MILLIS, e -> updateView());
+        load(false);
+    }
+
+    private JPanel createSummaryPanel()
+    {
+        JPanel panel = new JPanel(new GridLayout(4, 1, 0, 5));
+        panel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createEtchedBorder(),
+            "All Recovery Plans",
+            TitledBorder.LEFT,
+            TitledBorder.TOP
+        ));
+
+        plansLabel = new JLabel("Loading...");
+        plansByStatusLabel = new JLabel(" ");
+        milestonesLabel = new JLabel(" ");
+        readyLabel = new JLabel(" ");
+        plansLabel.setFont(new Font("Arial", Font.BOLD, 14));
+
+        panel.add(plansLabel);
+        panel.add(plansByStatusLabel);
+        panel.add(milestonesLabel);
+        panel.add(readyLabel);
+        return panel;
+    }
+
+    private JPanel createCoursePanel()
+    {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createEtchedBorder(),
+            "Progress by Course",
+            TitledBorder.LEFT,
+            TitledBorder.TOP
+        ));
+
+        courseModel = new CourseTableModel();
+        JTable table = new JTable(courseModel);
+        table.setRowHeight(25);
+        table.getTableHeader().setReorderingAllowed(false);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    /**
+     * Loads (or rebuilds) the dashboard on a background thread, since the first
+     * load scans the plans file.
+     */
+    private void load(boolean rebuild)
+    {
+        new SwingWorker<RecoveryDashboard, Void>()
+        {
+            @Override
+            protected RecoveryDashboard doInBackground()
+            {
+                if (rebuild)
+                {
+                    RecoveryDashboard.refresh();
+                }
+                return RecoveryDashboard.getInstance();
+            }
+
+            @Override
+            protected void done()
+            {
+                try
+                {
+                    dashboard = get();
+                    updateView();
+                }
+                catch (InterruptedException | ExecutionException e)
+                {
+                    plansLabel.setText("Failed to load recovery plans.");
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Reads the running totals and updates the labels and the course table.
+     */
+    private void updateView()
+    {
+        if (dashboard == null)
+        {
+            return;
+        }
+
+        plansLabel.setText("Plans: " + dashboard.getPlanCount());
+
+        // Sorted by status so the label doesn't jump around between polls
+        StringBuilder byStatus = new StringBuilder();
+        for (Map.Entry<String, Long> entry : new TreeMap<>(dashboard.getPlansByStatus()).entrySet())
+        {
+            if (byStatus.length() > 0)
+            {
+                byStatus.append(", ");
+            }
+            byStatus.append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        plansByStatusLabel.setText("By status: " + byStatus);
+
+        milestonesLabel.setText(String.format("Milestones: %d of %d completed (%.1f%%), %d in progress",
+            dashboard.getCompletedMilestones(), dashboard.getMilestoneCount(),
+            dashboard.getPercentComplete(), dashboard.getInProgressMilestones()));
+        readyLabel.setText("Ready for evaluation: " + dashboard.getReadyForEvaluation());
+
+        courseModel.setCourses(dashboard.getCourseProgress());
+    }
+
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        pollTimer.start();
+    }
+
+    @Override
+    public void removeNotify()
+    {
+        pollTimer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * One row per course: Course, Plans, Milestones, Completed, % Complete.
+     */
+    private static class CourseTableModel extends AbstractTableModel
+    {
+        private static final String[] COLUMN_NAMES = {"Course", "Plans", "Milestones", "Completed", "% Complete"};
+
+        private List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public int getRowCount()
+        {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount()
+        {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column)
+        {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column)
+        {
+            return rows.get(row)[column];
+        }
+
+        /**
+         * Takes a new reading of the courses and repaints only the rows that changed.
+         */
+        void setCourses(List<RecoveryDashboard.CourseProgress> courses)
+        {
+            List<Object[]> next = new ArrayList<>(courses.size());
+            for (RecoveryDashboard.CourseProgress c : courses)
+            {
+                next.add(new Object[]{
+                    c.getCourseId(),
+                    c.getPlans(),
+                    c.getMilestones(),
+                    c.getCompletedMilestones(),
+                    String.format("%.1f%%", c.getPercentComplete())
+                });
+            }
+
+            RowDiff diff = RowDiff.between(rows, next, Arrays::equals);
+            rows = next;
+            diff.fire(this::fireTableRowsUpdated, this::fireTableRowsInserted, this::fireTableRowsDeleted);
+        }
+    }
+
+    /**
+     * Main method to run the panel standalone for testing.
+     */
+    public static void main(String[] args)
+    {
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                JFrame frame = new JFrame("Recovery Progress Dashboard");
+                frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                frame.setSize(700, 500);
+                frame.setLocationRelativeTo(null);
+
+                frame.add(new RecoveryDashboardPanel());
+                frame.setVisible(true);
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 import domain.Milestone;
 import domain.RecoveryPlan;
 import service.FailedStudent;
+import service.MilestoneScheduler;
 import service.RecoveryFileManager;
 import service.RecoveryService;
 
@@ -11,7 +12,10 @@ import javax.swing.event.ListSelectionListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 
 /**
  * RecoveryManagementPanel is a GUI panel that allows Academic Officers to manage
@@ -30,11 +34,18 @@ public class RecoveryManagementPanel extends JPanel
 {
     // Left side components - Student List
     private JList<FailedStudent> studentList;
-    private DefaultListModel<FailedStudent> studentListModel;
+    private FailedStudentListModel studentListModel;
+    private JButton previousPageButton;
+    private JButton nextPageButton;
+    private JLabel pageLabel;
+    
+    // The background load in progress, if any
+    private SwingWorker<ArrayList<FailedStudent>, Void> loadWorker;
     
     // Right side components - Input Form
     private JTextField studentIdField;
     private JTextField courseIdField;
+    private JTextField startDateField;
     private JTextArea recommendationArea;
     
     // Milestone section components
@@ -78,6 +89,9 @@ public class RecoveryManagementPanel extends JPanel
         
         // Load students into the list
         loadStudents();
+        
+        // Start sending milestone reminders for the saved plans
+        MilestoneScheduler.getInstance();
     }
 
     /**
@@ -98,9 +112,11 @@ public class RecoveryManagementPanel extends JPanel
         panel.setPreferredSize(new Dimension(300, 400));
         
         // Create the list model and JList
-        studentListModel = new DefaultListModel<>();
+        // The model pages over the result set, so the JList never holds more than one page
+        studentListModel = new FailedStudentListModel();
         studentList = new JList<>(studentListModel);
         studentList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        studentList.setPrototypeCellValue(new FailedStudent("S00000", "C00000", "Assignment"));
         
         // Custom cell renderer to display student info in a readable format
         studentList.setCellRenderer(new DefaultListCellRenderer() {
@@ -174,7 +190,34 @@ public class RecoveryManagementPanel extends JPanel
                 loadStudents();
             }
         });
-        panel.add(refreshButton, BorderLayout.SOUTH);
+        
+        // Paging controls
+        previousPageButton = new JButton("<");
+        previousPageButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showPage(studentListModel.getPage() - 1);
+            }
+        });
+        nextPageButton = new JButton(">");
+        nextPageButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showPage(studentListModel.getPage() + 1);
+            }
+        });
+        pageLabel = new JLabel("", SwingConstants.CENTER);
+        
+        JPanel pagingPanel = new JPanel(new BorderLayout());
+        pagingPanel.add(previousPageButton, BorderLayout.WEST);
+        pagingPanel.add(pageLabel, BorderLayout.CENTER);
+        pagingPanel.add(nextPageButton, BorderLayout.EAST);
+        
+        JPanel bottomPanel = new JPanel(new GridLayout(2, 1, 0, 5));
+        bottomPanel.add(pagingPanel);
+        bottomPanel.add(refreshButton);
+        panel.add(bottomPanel, BorderLayout.SOUTH);
+        updatePagingControls();
         
         return panel;
     }
@@ -214,6 +257,13 @@ public class RecoveryManagementPanel extends JPanel
         courseIdPanel.add(courseIdField);
         panel.add(courseIdPanel);
         
+        // Start date - milestone due dates count weeks from this date
+        JPanel startDatePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        startDatePanel.add(new JLabel("Start Date (yyyy-MM-dd):"));
+        startDateField = new JTextField(LocalDate.now().toString(), 10);
+        startDatePanel.add(startDateField);
+        panel.add(startDatePanel);
+        
         // Recommendation text area
         JPanel recommendationPanel = new JPanel(new BorderLayout());
         recommendationPanel.setBorder(BorderFactory.createTitledBorder("Recommendation"));
@@ -353,14 +403,67 @@ public class RecoveryManagementPanel extends JPanel
 
     /**
      * Loads students needing recovery from the RecoveryService and populates the list.
+     * 
+     * The CSV files are read on a SwingWorker thread so the window stays responsive.
+     * When the result arrives, the model is handed the new list and only the
+     * entries of the current page that changed are repainted. A refresh requested
+     * while a load is still running cancels the older load.
      */
     private void loadStudents()
     {
-        studentListModel.clear();
-        ArrayList<FailedStudent> students = recoveryService.getStudentsNeedingRecovery();
-        for (FailedStudent student : students) {
-            studentListModel.addElement(student);
+        if (loadWorker != null) {
+            loadWorker.cancel(false);
         }
+        
+        loadWorker = new SwingWorker<ArrayList<FailedStudent>, Void>() {
+            @Override
+            protected ArrayList<FailedStudent> doInBackground() {
+                return recoveryService.getStudentsNeedingRecovery();
+            }
+            
+            @Override
+            protected void done() {
+                if (isCancelled() || loadWorker != this) {
+                    return;
+                }
+                try {
+                    studentListModel.setStudents(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(RecoveryManagementPanel.this,
+                        "Failed to load students needing recovery.",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+                loadWorker = null;
+                updatePagingControls();
+            }
+        };
+        pageLabel.setText("Loading...");
+        loadWorker.execute();
+    }
+
+    /**
+     * Moves the student list to another page and clears the selection.
+     */
+    private void showPage(int page)
+    {
+        studentList.clearSelection();
+        studentListModel.setPage(page);
+        studentList.ensureIndexIsVisible(0);
+        updatePagingControls();
+    }
+
+    /**
+     * Updates the page label and enables the paging buttons that can be used.
+     */
+    private void updatePagingControls()
+    {
+        int page = studentListModel.getPage();
+        int pageCount = studentListModel.getPageCount();
+        previousPageButton.setEnabled(page > 0);
+        nextPageButton.setEnabled(page < pageCount - 1);
+        pageLabel.setText("Page " + (page + 1) + " of " + pageCount
+            + " (" + studentListModel.getTotalSize() + " entries)");
     }
 
     /**
@@ -428,9 +531,9 @@ public class RecoveryManagementPanel extends JPanel
      * 
      * This method:
      * 1. Validates that a student is selected
-     * 2. Validates that recommendation is provided
+     * 2. Validates that recommendation is provided and that the start date, if any, is valid
      * 3. Creates a new RecoveryPlan object with all the input data
-     * 4. Adds all milestones from the temporary list to the plan
+     * 4. Adds all milestones from the temporary list to the plan and dates them from the start date
      * 5. Calls RecoveryFileManager.savePlan() to write to disk
      * 6. Shows a success or error message using JOptionPane
      */
@@ -458,6 +561,21 @@ public class RecoveryManagementPanel extends JPanel
             return;
         }
         
+        // Get the start date; it may be left empty, in which case no reminders are sent
+        String startDateText = startDateField.getText().trim();
+        LocalDate startDate = null;
+        if (!startDateText.isEmpty()) {
+            try {
+                startDate = LocalDate.parse(startDateText);
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(this,
+                    "Please enter the start date as yyyy-MM-dd, or leave it empty.",
+                    "Validation Error",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+        }
+        
         // Create the RecoveryPlan object with "Active" status
         RecoveryPlan plan = new RecoveryPlan(studentId, courseId, recommendation, "Active");
         
@@ -466,6 +584,9 @@ public class RecoveryManagementPanel extends JPanel
             plan.addMilestone(milestone);
         }
         
+        // Gives every milestone its due date
+        plan.setStartDate(startDate);
+        
         // Save the plan to disk using RecoveryFileManager
         boolean success = recoveryFileManager.savePlan(plan);
         
@@ -0,0 +1,89 @@
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * RowDiff finds the smallest contiguous block of rows that differs between two
+ * versions of a list, so list and table models can fire one event for the block
+ * instead of clearing and re-adding every row.
+ *
+ * The unchanged rows at the start (prefix) and at the end (suffix) are skipped;
+ * everything between them is reported as changed, added or removed.
+ */
+final class RowDiff
+{
+    // Number of leading rows that are equal in both lists
+    final int prefix;
+
+    // Number of rows between the prefix and the common suffix in the old and new list
+    final int oldMiddle;
+    final int newMiddle;
+
+    private RowDiff(int prefix, int oldMiddle, int newMiddle)
+    {
+        this.prefix = prefix;
+        this.oldMiddle = oldMiddle;
+        this.newMiddle = newMiddle;
+    }
+
+    /**
+     * Compares two lists with the given equality test.
+     */
+    static <T> RowDiff between(List<T> oldRows, List<T> newRows, BiPredicate<T, T> same)
+    {
+        int oldSize = oldRows.size();
+        int newSize = newRows.size();
+        int max = Math.min(oldSize, newSize);
+
+        int prefix = 0;
+        while (prefix < max && same.test(oldRows.get(prefix), newRows.get(prefix)))
+        {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < max - prefix && same.test(oldRows.get(oldSize - 1 - suffix), newRows.get(newSize - 1 - suffix)))
+        {
+            suffix++;
+        }
+        return new RowDiff(prefix, oldSize - prefix - suffix, newSize - prefix - suffix);
+    }
+
+    /**
+     * Rows that exist in both versions but changed, starting at {@link #prefix}.
+     */
+    int changed()
+    {
+        return Math.min(oldMiddle, newMiddle);
+    }
+
+    /**
+     * Reports the differing block as model events: the rows that changed, then the
+     * rows added or removed after them. Nothing is reported if the lists are equal.
+     * Each callback gets the first and last row index, inclusive, like the fire
+     * methods of AbstractListModel and AbstractTableModel.
+     */
+    void fire(Range changed, Range added, Range removed)
+    {
+        int changedRows = changed();
+        if (changedRows > 0)
+        {
+            changed.rows(prefix, prefix + changedRows - 1);
+        }
+        if (newMiddle > changedRows)
+        {
+            added.rows(prefix + changedRows, prefix + newMiddle - 1);
+        }
+        else if (oldMiddle > changedRows)
+        {
+            removed.rows(prefix + changedRows, prefix + oldMiddle - 1);
+        }
+    }
+
+    /**
+     * Receives one block of rows from {@link #fire}.
+     */
+    interface Range
+    {
+        void rows(int first, int last);
+    }
+}
@@ -1,13 +1,15 @@
+import data_access.DataCache;
+import data_access.DataTable;
 import domain.Milestone;
 import domain.RecoveryPlan;
+import logging.Log;
 import service.RecoveryFileManager;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * StudentRecoveryViewPanel is a GUI panel that allows a student to view their assigned recovery plan.
@@ -17,13 +19,18 @@ import java.util.List;
  * - Fetches all recovery plans using RecoveryFileManager.loadPlans()
  * - Filters the plans to find the one matching the current studentId
  * - Displays the plan's Recommendation and Course information in Labels
- * - Shows the Milestones in a JTable with columns: Week, Task, Status
+ * - Shows the Milestones in a JTable with columns: Week, Task, Due, Status
+ * - Lets the student update a milestone's Status, which is saved immediately
  * - Shows an empty state message if no plan is found for this student
  * 
  * Layout:
  * - Top section: Labels showing Course and Recommendation (if plan exists)
  * - Center section: JTable displaying milestones
  * - Empty state: Large centered label when no plan is found
+ * 
+ * While the panel is showing, it reloads the plan in the background whenever the
+ * recovery plans or milestone statuses change, and only the milestone rows that
+ * changed are repainted.
  */
 public class StudentRecoveryViewPanel extends JPanel
 {
@@ -40,10 +47,19 @@ public class StudentRecoveryViewPanel extends JPanel
     private JLabel courseLabel;
     private JLabel recommendationLabel;
     private JTable milestonesTable;
-    private DefaultTableModel tableModel;
+    private MilestoneTableModel tableModel;
     
     // Empty state label (shown when no plan is found)
     private JLabel emptyStateLabel;
+    
+    // Reloads the plan when the plans or statuses change (registered while the panel is showing)
+    private final DataCache.Listener plansListener = table ->
+    {
+        if (table == DataTable.RECOVERY_PLANS || table == DataTable.MILESTONE_STATUS)
+        {
+            SwingUtilities.invokeLater(this::refreshPlan);
+        }
+    };
 
     /**
      * Constructor - Initializes the panel for a specific student.
@@ -95,12 +111,21 @@ public class StudentRecoveryViewPanel extends JPanel
      * student, only the first one found will be used.
      */
     private void fetchStudentPlan()
+    {
+        studentPlan = findStudentPlan();
+    }
+
+    /**
+     * Loads the plans file and returns this student's plan, or null if there is none.
+     * Does not touch any Swing component, so it can run on a background thread.
+     */
+    private RecoveryPlan findStudentPlan()
     {
         // Load all recovery plans from the file
         ArrayList<RecoveryPlan> allPlans = recoveryFileManager.loadPlans();
         
-        // Reset studentPlan to null before searching
-        studentPlan = null;
+        // Start with no plan before searching
+        RecoveryPlan studentPlan = null;
         
         /*
          * FILTERING LOGIC:
@@ -130,6 +155,99 @@ public class StudentRecoveryViewPanel extends JPanel
         {
             System.out.println("No recovery plan found for student: " + studentId);
         }
+        return studentPlan;
+    }
+
+    /**
+     * Reloads the student's plan on a background thread and updates the view.
+     * 
+     * If a plan was shown before and still exists, the labels are updated and the
+     * table model is given the new milestones, which repaints only the changed rows.
+     * If the plan appeared or disappeared, the panel is rebuilt.
+     */
+    private void refreshPlan()
+    {
+        new SwingWorker<RecoveryPlan, Void>()
+        {
+            @Override
+            protected RecoveryPlan doInBackground()
+            {
+                return findStudentPlan();
+            }
+
+            @Override
+            protected void done()
+            {
+                RecoveryPlan plan;
+                try
+                {
+                    plan = get();
+                }
+                catch (InterruptedException | ExecutionException e)
+                {
+                    Log.error("StudentRecoveryViewPanel", "Failed to reload the recovery plan for student " + studentId + ": " + e.getMessage());
+                    return;
+                }
+
+                boolean hadPlan = studentPlan != null;
+                studentPlan = plan;
+                if (hadPlan && plan != null)
+                {
+                    courseLabel.setText(plan.getCourseId());
+                    recommendationLabel.setText("<html><body style='width: 400px'>" + 
+                        plan.getRecommendation() + "</body></html>");
+                    tableModel.setMilestones(plan.getMilestones());
+                }
+                else if (hadPlan || plan != null)
+                {
+                    removeAll();
+                    if (plan != null)
+                    {
+                        buildPlanView();
+                    }
+                    else
+                    {
+                        buildEmptyState();
+                    }
+                    revalidate();
+                    repaint();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Saves a status chosen in the milestones table.
+     * 
+     * @param row The milestone's position in the plan
+     * @param status The new status
+     * @return true if the status was saved
+     */
+    private boolean updateMilestoneStatus(int row, String status)
+    {
+        boolean saved = recoveryFileManager.updateMilestoneStatus(studentPlan, row, status);
+        if (!saved)
+        {
+            JOptionPane.showMessageDialog(this,
+                "Failed to update the milestone status. Please try again.",
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+        return saved;
+    }
+
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        DataCache.getInstance().addListener(plansListener);
+    }
+
+    @Override
+    public void removeNotify()
+    {
+        DataCache.getInstance().removeListener(plansListener);
+        super.removeNotify();
     }
 
     /**
@@ -138,7 +256,7 @@ public class StudentRecoveryViewPanel extends JPanel
      * 
      * Layout:
      * - NORTH: Panel with Course and Recommendation labels
-     * - CENTER: JTable with milestones (Week, Task, Status columns)
+     * - CENTER: JTable with milestones (Week, Task, Due, Status columns)
      */
     private void buildPlanView()
     {
@@ -183,29 +301,11 @@ public class StudentRecoveryViewPanel extends JPanel
             TitledBorder.TOP
         ));
         
-        // Set up the table model with three columns: Week, Task, Status
-        String[] columnNames = {"Week", "Task", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0)
-        {
-            // Make the table cells non-editable (read-only view)
-            @Override
-            public boolean isCellEditable(int row, int column)
-            {
-                return false;
-            }
-        };
-        
-        // Populate the table with milestones from the plan
-        List<Milestone> milestones = studentPlan.getMilestones();
-        for (Milestone milestone : milestones)
-        {
-            Object[] rowData = {
-                milestone.getWeek(),
-                milestone.getTask(),
-                milestone.getStatus()
-            };
-            tableModel.addRow(rowData);
-        }
+        // The table model reads the plan's milestones directly (columns: Week, Task, Due, Status)
+        // Only the Status cells are editable; each change is saved as soon as it is made
+        tableModel = new MilestoneTableModel();
+        tableModel.setMilestones(studentPlan.getMilestones());
+        tableModel.setStatusUpdater(this::updateMilestoneStatus);
         
         // Create the JTable and add it to a scroll pane
         milestonesTable = new JTable(tableModel);
@@ -215,7 +315,14 @@ public class StudentRecoveryViewPanel extends JPanel
         // Set column widths
         milestonesTable.getColumnModel().getColumn(0).setPreferredWidth(80);  // Week
         milestonesTable.getColumnModel().getColumn(1).setPreferredWidth(300); // Task
-        milestonesTable.getColumnModel().getColumn(2).setPreferredWidth(100); // Status
+        milestonesTable.getColumnModel().getColumn(2).setPreferredWidth(100); // Due
+        milestonesTable.getColumnModel().getColumn(3).setPreferredWidth(100); // Status
+        
+        // Status is chosen from a drop-down list
+        JComboBox<String> statusBox = new JComboBox<>(new String[]{
+            Milestone.PENDING, Milestone.IN_PROGRESS, Milestone.COMPLETED
+        });
+        milestonesTable.getColumnModel().getColumn(MilestoneTableModel.STATUS_COLUMN).setCellEditor(new DefaultCellEditor(statusBox));
         
         JScrollPane scrollPane = new JScrollPane(milestonesTable);
         scrollPane.setPreferredSize(new Dimension(500, 200));
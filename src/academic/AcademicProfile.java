@@ -1,13 +1,19 @@
 package academic;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import report.Report;
 
 public class AcademicProfile{
     private String studentID;
     private List<CourseResult> courseResults;
     private double CGPA;
+    private int totalCredits;
+    private int failedCourses;
+    private boolean summaryValid;
     private String semester;
 
     public AcademicProfile(String studentID){
@@ -16,20 +22,63 @@ public class AcademicProfile{
     }
 
     public double calculateCGPA(){
+        ensureSummary();
+        return CGPA;
+        }
+
+    public int getTotalFailedCourse(){
+        ensureSummary();
+        return failedCourses;
+    }
+
+    public int getTotalCredits(){
+        ensureSummary();
+        return totalCredits;
+    }
+
+    // Computes CGPA, credits and failed count in one pass and caches them until the next change.
+    // Results for the same course are attempts at it; the retake policy decides which of them count.
+    private void ensureSummary(){
+        if (summaryValid) return;
+
+        RetakePolicy policy = RetakePolicy.configured();
+        Map<String, AttemptHistory> retaken = new HashMap<>();
+        Map<String, Integer> retakenCredits = new HashMap<>();
         double totalGP = 0;
-        int totalCredits = 0;
+        int credits = 0;
+        int failed = 0;
         for (CourseResult result: courseResults) {
-            totalGP += result.calculateGradePoint() * result.getCourse().getCreditHours();
-            totalCredits += result.getCourse().getCreditHours();
+            CourseAttempt attempt = result.getCurrentAttempt();
+            int creditHours = result.getCourse().getCreditHours();
+            if (policy != RetakePolicy.ALL_ATTEMPTS && attempt != null) {
+                String courseID = result.getCourse().getCourseID();
+                retaken.computeIfAbsent(courseID, id -> new AttemptHistory(studentID, id)).addAttempt(attempt);
+                retakenCredits.put(courseID, creditHours);
+                continue;
+            }
+            double gradePoint = result.calculateGradePoint();
+            totalGP += gradePoint * creditHours;
+            credits += creditHours;
+            if (CourseResult.isFailing(gradePoint)) failed++;
         }
-        this.CGPA = totalCredits > 0 ? totalGP / totalCredits : 0.0;
-        return CGPA;
+        for (AttemptHistory history: retaken.values()) {
+            int creditHours = retakenCredits.get(history.getCourseID());
+            totalGP += history.countedGradePoints(policy) * creditHours;
+            credits += history.countedAttempts(policy) * creditHours;
+            failed += history.countedFailures(policy);
         }
+        this.CGPA = credits > 0 ? totalGP / credits : 0.0;
+        this.totalCredits = credits;
+        this.failedCourses = failed;
+        this.summaryValid = true;
+    }
 
-    public int getTotalFailedCourse(){
-        return (int) courseResults.stream()
-                .filter(r -> r.getGrade().equals("F"))
-                .count();
+    /**
+     * Drops the cached CGPA and failed count. Course results added to this profile
+     * call it themselves when their grade or attempts change.
+     */
+    public void invalidate(){
+        this.summaryValid = false;
     }
 
     public Report generateReport() {
@@ -41,14 +90,16 @@ public class AcademicProfile{
     }
 
     public double getCGPA() {
-        return CGPA;
+        return calculateCGPA();
     }
 
     public List<CourseResult> getCourseResults(){
-        return courseResults;
+        return Collections.unmodifiableList(courseResults);
     }
 
     public void addCourseResult(CourseResult result){
         this.courseResults.add(result);
+        result.setOwner(this);
+        invalidate();
     }
-}
\ No newline at end of file
+}
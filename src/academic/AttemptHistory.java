@@ -0,0 +1,113 @@
+package academic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All attempts one student made at one course, in the order they were taken.
+ * The latest and best attempts are tracked as attempts are added, so both
+ * lookups are constant time.
+ */
+public class AttemptHistory {
+    private final String studentID;
+    private final String courseID;
+    private final List<CourseAttempt> attempts;
+    private CourseAttempt latest;
+    private CourseAttempt best;
+    private double totalGradePoints;
+    private int failedAttempts;
+
+    public AttemptHistory(String studentID, String courseID){
+        this.studentID = studentID;
+        this.courseID = courseID;
+        this.attempts = new ArrayList<>(2);
+    }
+
+    /**
+     * Adds an attempt. Attempts are expected in chronological order; an older
+     * attempt added late does not replace the latest one.
+     */
+    public void addAttempt(CourseAttempt attempt){
+        attempts.add(attempt);
+        totalGradePoints += attempt.getGradePoint();
+        if (CourseResult.isFailing(attempt.getGradePoint())) {
+            failedAttempts++;
+        }
+
+        if (latest == null || isLater(attempt, latest)) {
+            latest = attempt;
+        }
+        if (best == null || attempt.getGradePoint() > best.getGradePoint()) {
+            best = attempt;
+        }
+    }
+
+    private static boolean isLater(CourseAttempt a, CourseAttempt b){
+        if (a.getYear() != b.getYear()) return a.getYear() > b.getYear();
+        if (a.getSemester() != b.getSemester()) return a.getSemester() > b.getSemester();
+        return a.getAttemptNumber() >= b.getAttemptNumber();
+    }
+
+    /**
+     * Returns the attempt that counts under the given policy. For ALL_ATTEMPTS
+     * this is the latest attempt; use {@link #countedGradePoints} for totals.
+     */
+    public CourseAttempt getCountedAttempt(RetakePolicy policy){
+        return policy == RetakePolicy.BEST_ATTEMPT ? best : latest;
+    }
+
+    /**
+     * Returns the sum of grade points that count under the policy.
+     */
+    public double countedGradePoints(RetakePolicy policy){
+        switch (policy) {
+            case LATEST_ATTEMPT: return latest == null ? 0 : latest.getGradePoint();
+            case BEST_ATTEMPT: return best == null ? 0 : best.getGradePoint();
+            default: return totalGradePoints;
+        }
+    }
+
+    /**
+     * Returns how many attempts count under the policy (credits are multiplied by this).
+     */
+    public int countedAttempts(RetakePolicy policy){
+        if (attempts.isEmpty()) return 0;
+        return policy == RetakePolicy.ALL_ATTEMPTS ? attempts.size() : 1;
+    }
+
+    /**
+     * Returns how many of the counted attempts are failures.
+     */
+    public int countedFailures(RetakePolicy policy){
+        switch (policy) {
+            case LATEST_ATTEMPT: return latest != null && CourseResult.isFailing(latest.getGradePoint()) ? 1 : 0;
+            case BEST_ATTEMPT: return best != null && CourseResult.isFailing(best.getGradePoint()) ? 1 : 0;
+            default: return failedAttempts;
+        }
+    }
+
+    public String getStudentID() {
+        return studentID;
+    }
+
+    public String getCourseID() {
+        return courseID;
+    }
+
+    public CourseAttempt getLatestAttempt() {
+        return latest;
+    }
+
+    public CourseAttempt getBestAttempt() {
+        return best;
+    }
+
+    public int getAttemptCount() {
+        return attempts.size();
+    }
+
+    public List<CourseAttempt> getAttempts() {
+        return Collections.unmodifiableList(attempts);
+    }
+}
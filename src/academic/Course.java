@@ -1,7 +1,10 @@
 package academic;
 
+import domain.GradingScheme;
 import service.CourseCatalog;
 
+import java.util.Date;
+
 public class Course {
     private String courseID;
     private String courseTitle;
@@ -21,6 +24,28 @@ public class Course {
         return component.equalsIgnoreCase("exam") ? examWeight : assignmentWeight;
     }
 
+    public double calculateFinalScore(double examScore, double assignmentScore){
+        return (examScore * examWeight + assignmentScore * assignmentWeight) / 100.0;
+    }
+
+    /**
+     * Returns the grade of an attempt's scores: the weighted final score mapped
+     * to its band in {@link GradingScheme}.
+     */
+    public GradingScheme gradeFor(double examScore, double assignmentScore){
+        return GradingScheme.forScore(calculateFinalScore(examScore, assignmentScore));
+    }
+
+    /**
+     * Creates an attempt at this course with its final score, grade and grade point recorded.
+     */
+    public CourseAttempt gradeAttempt(int attemptNumber, int year, int semester, double examScore, double assignmentScore, Date dateRecorded){
+        GradingScheme grade = gradeFor(examScore, assignmentScore);
+        CourseAttempt attempt = new CourseAttempt(attemptNumber, year, semester, examScore, assignmentScore, dateRecorded);
+        attempt.recordResult(calculateFinalScore(examScore, assignmentScore), grade.getGrade(), grade.getGpa());
+        return attempt;
+    }
+
     public void loadFromCatalog(){
         CourseCatalog.getInstance().getCourse(courseID);
     }
@@ -9,12 +9,25 @@ public class CourseAttempt{
     private String resultGrade;
     private double examScore;
     private double assignmentScore;
+    private double finalScore;
+    private double gradePoint;
+    private int year;
+    private int semester;
 
     public CourseAttempt(int attemptNumber){
         this.attemptNumber = attemptNumber;
         this.dateRecorded = new Date();
     }
 
+    public CourseAttempt(int attemptNumber, int year, int semester, double examScore, double assignmentScore, Date dateRecorded){
+        this.attemptNumber = attemptNumber;
+        this.year = year;
+        this.semester = semester;
+        this.examScore = examScore;
+        this.assignmentScore = assignmentScore;
+        this.dateRecorded = dateRecorded;
+    }
+
     public List<String> getRequiredComponents(){
         return List.of("Exam", "Assignment");
     }
@@ -23,6 +36,12 @@ public class CourseAttempt{
         this.resultGrade = grade;
     }
 
+    public void recordResult(double finalScore, String grade, double gradePoint){
+        this.finalScore = finalScore;
+        this.resultGrade = grade;
+        this.gradePoint = gradePoint;
+    }
+
     public int getAttemptNumber(){
         return attemptNumber;
     }
@@ -30,4 +49,32 @@ public class CourseAttempt{
     public String  getResultGrade() {
         return resultGrade;
     }
-}
\ No newline at end of file
+
+    public Date getDateRecorded() {
+        return dateRecorded;
+    }
+
+    public double getExamScore() {
+        return examScore;
+    }
+
+    public double getAssignmentScore() {
+        return assignmentScore;
+    }
+
+    public double getFinalScore() {
+        return finalScore;
+    }
+
+    public double getGradePoint() {
+        return gradePoint;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getSemester() {
+        return semester;
+    }
+}
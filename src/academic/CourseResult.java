@@ -1,14 +1,29 @@
 package academic;
 
+import domain.GradingScheme;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class CourseResult {
+    // Grade points below this count as a failed course, matching StudentPerformance
+    public static final double PASSING_GRADE_POINT = 2.0;
+
+    /**
+     * Returns whether a grade point counts as a failed course.
+     */
+    public static boolean isFailing(double gradePoint){
+        return gradePoint < PASSING_GRADE_POINT;
+    }
+
     private String grade;
     private double gradePoint;
     private CourseAttempt currentAttempt;
     private Course course;
     private List<CourseAttempt> attempts;
+    // The profile whose cached summary depends on this result, once it has been added to one
+    private AcademicProfile owner;
 
     public CourseResult(Course course){
         this.course = course;
@@ -16,13 +31,16 @@ public class CourseResult {
     }
 
     public double calculateGradePoint(){
-        this.gradePoint = grade.equals("A") ? 4.0 : (grade.equals("B") ? 3.0 : 0.0);
+        GradingScheme scheme = grade == null ? null : GradingScheme.fromGrade(grade);
+        this.gradePoint = scheme == null ? 0.0 : scheme.getGpa();
         return gradePoint;
     }
 
     public boolean addAttempt(CourseAttempt attempt){
         this.currentAttempt = attempt;
-        return this.attempts.add(attempt);
+        boolean added = this.attempts.add(attempt);
+        changed();
+        return added;
     }
 
     public boolean isProgresAllowed(){
@@ -37,7 +55,24 @@ public class CourseResult {
         return course;
     }
 
+    public CourseAttempt getCurrentAttempt() {
+        return currentAttempt;
+    }
+
+    public List<CourseAttempt> getAttempts() {
+        return Collections.unmodifiableList(attempts);
+    }
+
     public void setGrade(String grade) {
         this.grade = grade;
+        changed();
+    }
+
+    void setOwner(AcademicProfile owner) {
+        this.owner = owner;
+    }
+
+    private void changed() {
+        if (owner != null) owner.invalidate();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package academic;
+
+/**
+ * Decides which attempts of a retaken course count towards CGPA.
+ */
+public enum RetakePolicy {
+    // Every attempt counts, which is how the enrollment CSV has always been read
+    ALL_ATTEMPTS,
+    // Only the most recent attempt counts
+    LATEST_ATTEMPT,
+    // Only the attempt with the highest grade point counts
+    BEST_ATTEMPT;
+
+    /**
+     * Returns the policy CGPA is calculated under, set with -Doodj.grades.retakePolicy
+     * (ALL_ATTEMPTS if not set).
+     */
+    public static RetakePolicy configured() {
+        return valueOf(System.getProperty("oodj.grades.retakePolicy", ALL_ATTEMPTS.name()).trim().toUpperCase());
+    }
+}
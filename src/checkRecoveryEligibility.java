@@ -1,7 +1,11 @@
 import data_access.DataAccess;
+import data_access.DataCache;
+import data_access.DataTable;
 import domain.StudentPerformance;
 import service.EligibilityCheck;
-import service.GenerateReportPDF;
+import service.EligibilityRules;
+import scheduling.ReportJob;
+import scheduling.ReportJobScheduler;
 import org.jdesktop.swingx.autocomplete.AutoCompleteDecorator;
 
 import javax.swing.*;
@@ -68,16 +72,13 @@ public class checkRecoveryEligibility extends JFrame {
         checkEligibilityButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                StudentPerformance performance = new StudentPerformance(idLabel.getText());
-                performance.getPerformance(data);
-                EligibilityCheck check = new EligibilityCheck();
-                boolean[] eligibilityResult = check.isEligible(performance);
+                EligibilityRules.Decision decision = checkEligibility(idLabel.getText());
 
                 if (idCombobox.getSelectedIndex() != 0)
                 {
                     String eligibilityMsg;
 
-                    if (eligibilityResult[0])
+                    if (decision.isEligible())
                     {
                         eligibilityLabel.setForeground(eligibleColour);
                         eligibilityMsg = "ELIGIBLE FOR COURSE RECOVERY PROGRAM<br>(CLICK FOR FURTHER ACTION)<br>";
@@ -95,26 +96,32 @@ public class checkRecoveryEligibility extends JFrame {
         generateReportButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                String dialog;
-                String title;
-                int pane;
                 if (idCombobox.getSelectedIndex() != 0)
                 {
-                    GenerateReportPDF pdf = new GenerateReportPDF();
                     String studentId = idLabel.getText();
-                    dialog = String.format("Academic performance report for student %s%ndownloaded to Downloads folder.", idCombobox.getSelectedItem().toString());
-                    title = "Success!";
-                    pane = JOptionPane.INFORMATION_MESSAGE;
-
-                    pdf.createDocument(studentId);
+                    String selectedStudent = idCombobox.getSelectedItem().toString();
+                    generateReportButton.setEnabled(false);
+
+                    // Interactive jobs are never queued behind batch report runs
+                    ReportJob job = ReportJobScheduler.getInstance().submitStudentReport(studentId, ReportJob.Priority.INTERACTIVE);
+                    job.getResult().whenComplete((path, error) -> SwingUtilities.invokeLater(() -> {
+                        generateReportButton.setEnabled(true);
+                        if (path != null)
+                        {
+                            String dialog = String.format("Academic performance report for student %s%ndownloaded to Downloads folder.", selectedStudent);
+                            JOptionPane.showMessageDialog(null, dialog, "Success!", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                        else
+                        {
+                            String dialog = String.format("Academic performance report for student %s%ncould not be generated.", selectedStudent);
+                            JOptionPane.showMessageDialog(null, dialog, "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }));
                 }
                 else
                 {
-                    dialog = "Please select a student to continue.";
-                    title = "Error";
-                    pane = JOptionPane.ERROR_MESSAGE;
+                    JOptionPane.showMessageDialog(null, "Please select a student to continue.", "Error", JOptionPane.ERROR_MESSAGE);
                 }
-                JOptionPane.showMessageDialog(null, dialog, title, pane);
             }
         });
 
@@ -135,27 +142,12 @@ public class checkRecoveryEligibility extends JFrame {
             public void mouseReleased(MouseEvent e) {
                 if (eligibilityLabel.getForeground() == eligibleHover)
                 {
-                    StudentPerformance performance = new StudentPerformance(idLabel.getText());
-                    performance.getPerformance(data);
-                    EligibilityCheck check = new EligibilityCheck();
-                    boolean[] eligibilityResult = check.isEligible(performance);
-
-                    String[] reasonsForEligibility = {"", ""};
-                    String dialogMsg;
+                    EligibilityRules.Decision decision = checkEligibility(idLabel.getText());
+                    String dialogMsg = "<html>Reason(s) for eligibility:<br>";
 
-                    if (eligibilityResult[1])
-                    {
-                        reasonsForEligibility[0] = String.format("- No. of failed courses > 3 ( %d )<br>", performance.getFailedCourses());
-                    }
-                    if (eligibilityResult[2])
+                    for (EligibilityRules.Reason reason : decision.getReasons())
                     {
-                        reasonsForEligibility[1] = String.format("- CGPA &lt; 2.00 ( %.2f )<br>", performance.getCgpa());
-                    }
-                    dialogMsg = "<html>Reason(s) for eligibility:<br>";
-
-                    for (String reason : reasonsForEligibility)
-                    {
-                        dialogMsg += reason;
+                        dialogMsg += "- " + reason.toString().replace("<", "&lt;").replace(">", "&gt;") + "<br>";
                     }
                     int confirmation = JOptionPane.showConfirmDialog(null, dialogMsg + "<br>Allow student to register for Course Recovery Program?</html>");
 
@@ -230,6 +222,24 @@ public class checkRecoveryEligibility extends JFrame {
         programLabel.setText(enrolled_program);
     }
 
+    public EligibilityRules.Decision checkEligibility(String studentId)
+    {
+        String programId = null;
+
+        for (String[] student : students)
+        {
+            if (student[0].equals(studentId))
+            {
+                programId = student[3];
+                break;
+            }
+        }
+        // Only the student's program is read when the enrollments are partitioned
+        StudentPerformance performance = new StudentPerformance(studentId);
+        performance.getPerformance(data, programId);
+        return new EligibilityCheck().isEligible(programId, performance);
+    }
+
     public void updateEligibility()
     {
         for (String[] student : students)
@@ -245,7 +255,7 @@ public class checkRecoveryEligibility extends JFrame {
 
     public void updateCsvFile()
     {
-        final String STUDENT_INFO = "data/student_information.csv";
+        final String STUDENT_INFO = DataTable.STUDENTS.getPath();
 
         try (BufferedWriter bw = new BufferedWriter(new FileWriter(STUDENT_INFO)))
         {
@@ -261,6 +271,7 @@ public class checkRecoveryEligibility extends JFrame {
         {
             System.out.println("Error: " + e);
         }
+        DataCache.getInstance().reload(DataTable.STUDENTS);
     }
 
     public static void main(String[] args)
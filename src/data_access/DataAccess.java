@@ -1,25 +1,208 @@
 package data_access;
 
+import diagnostics.DataLoadEvent;
+
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import model.Student;
 import model.Course;
 import model.Enrollment;
 import model.Program;
+import model.ProgramCourse;
 
 public class DataAccess
 {
-    final String STUDENT_INFO = "data/student_information.csv";
-    final String COURSE_INFO = "data/course_assessment_information.csv";
-    final String STUDENT_ENROLLED_COURSES = "data/student_enrollment_information.csv";
-    final String PROGRAM_INFO = "data/program_information.csv";
+    final String STUDENT_INFO = DataTable.STUDENTS.getPath();
+    final String COURSE_INFO = DataTable.COURSES.getPath();
+    final String STUDENT_ENROLLED_COURSES = DataTable.ENROLLMENTS.getPath();
+    final String PROGRAM_INFO = DataTable.PROGRAMS.getPath();
+    final String COURSES_IN_PROGRAM = DataTable.PROGRAM_COURSES.getPath();
+
+    private final DataCache cache = DataCache.getInstance();
+
+    // Enrollments are appended to during the term, so they are read incrementally
+    private static final EnrollmentTailReader enrollmentReader = new EnrollmentTailReader(DataTable.ENROLLMENTS.getPath());
+
+    // Student and course lookup over the current enrollment snapshot, rebuilt when the snapshot changes
+    private static volatile EnrollmentIndex enrollmentIndex;
+
+    /*
+     * The list methods return the shared, read-only snapshot held by DataCache.
+     * Each file is parsed on first use and again only when it changes on disk.
+     */
 
     public List<Student> studentList()
+    {
+        return cache.get(DataTable.STUDENTS, this::readStudents);
+    }
+
+    public List<Course> courseList()
+    {
+        return cache.get(DataTable.COURSES, this::readCourses);
+    }
+
+    /**
+     * Returns every enrollment: the sealed semesters from the archive followed by
+     * the rows of the live enrollment file.
+     */
+    public List<Enrollment> enrollmentList()
+    {
+        return SemesterArchive.getInstance().withArchived(liveEnrollmentList());
+    }
+
+    /**
+     * Returns only the rows of the live enrollment file, i.e. the semesters that
+     * have not been sealed into the archive. Rows of sealed semesters left in the
+     * file by an interrupted seal are not included.
+     */
+    public List<Enrollment> liveEnrollmentList()
+    {
+        return SemesterArchive.getInstance().unsealed(cache.get(DataTable.ENROLLMENTS, enrollmentReader));
+    }
+
+    /**
+     * Returns the enrollments of the students in one program and/or one academic year.
+     * When the partitioned layout is available only the matching partitions are read;
+     * otherwise the full enrollment list is filtered.
+     *
+     * @param programId The program, or null for every program
+     * @param year The academic year, or null for every year
+     */
+    public List<Enrollment> enrollmentList(String programId, Integer year)
+    {
+        PartitionedEnrollmentStore partitions = PartitionedEnrollmentStore.getInstance();
+        if (partitions.isAvailable())
+        {
+            return partitions.load(programId, year);
+        }
+
+        Set<String> studentsInProgram = null;
+        if (programId != null)
+        {
+            studentsInProgram = new HashSet<>();
+            for (Student s : studentList())
+            {
+                if (s.getProgramId().trim().equals(programId))
+                {
+                    studentsInProgram.add(s.getStudentId().trim());
+                }
+            }
+        }
+
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (Enrollment en : enrollmentList())
+        {
+            if ((studentsInProgram == null || studentsInProgram.contains(en.getStudentId().trim()))
+                    && (year == null || Integer.parseInt(en.getYear().trim()) == year))
+            {
+                enrollments.add(en);
+            }
+        }
+        return enrollments;
+    }
+
+    /**
+     * Returns the enrollments matching a query as a lazy stream.
+     *
+     * The most selective condition decides which rows are read at all. A program
+     * (or a year without a student or course) reads only the matching partitions
+     * when the partitioned layout is available, so the full list is never loaded.
+     * Otherwise a student or course goes through the enrollment index, and a term
+     * that has no sealed segment skips the archive. The remaining conditions are
+     * applied as the stream is consumed.
+     */
+    public Stream<Enrollment> query(EnrollmentQuery query)
+    {
+        if (query.programId != null || (query.year != null && query.studentId == null && query.courseId == null))
+        {
+            PartitionedEnrollmentStore partitions = PartitionedEnrollmentStore.getInstance();
+            if (partitions.isAvailable())
+            {
+                return partitions.load(query.programId, query.year).stream().filter(query.rowFilter(false, false));
+            }
+        }
+        if (query.studentId != null)
+        {
+            return filter(index().forStudent(query.studentId).stream(), query, true, false);
+        }
+        if (query.courseId != null)
+        {
+            return filter(index().forCourse(query.courseId).stream(), query, false, true);
+        }
+        return filter(termCandidates(query).stream(), query, false, false);
+    }
+
+    // Applies the row conditions plus program membership, which needs the student list
+    private Stream<Enrollment> filter(Stream<Enrollment> rows, EnrollmentQuery query, boolean skipStudent, boolean skipCourse)
+    {
+        Predicate<Enrollment> filter = query.rowFilter(skipStudent, skipCourse);
+        if (query.programId != null)
+        {
+            Set<String> studentsInProgram = new HashSet<>();
+            for (Student s : studentList())
+            {
+                if (s.getProgramId().trim().equals(query.programId))
+                {
+                    studentsInProgram.add(s.getStudentId().trim());
+                }
+            }
+            filter = filter.and(en -> studentsInProgram.contains(en.getStudentId().trim()));
+        }
+        return rows.filter(filter);
+    }
+
+    // The live rows alone when no sealed semester can match the query's year and semester
+    private List<Enrollment> termCandidates(EnrollmentQuery query)
+    {
+        if (query.year == null && query.semester == null)
+        {
+            return enrollmentList();
+        }
+        for (SemesterSegment segment : SemesterArchive.getInstance().getSegments())
+        {
+            if (query.matchesTerm(segment.getYear(), segment.getSemester()))
+            {
+                return enrollmentList();
+            }
+        }
+        return liveEnrollmentList();
+    }
+
+    private EnrollmentIndex index()
+    {
+        List<Enrollment> current = enrollmentList();
+        EnrollmentIndex index = enrollmentIndex;
+        if (index == null || !index.isFor(current))
+        {
+            index = new EnrollmentIndex(current);
+            enrollmentIndex = index;
+        }
+        return index;
+    }
+
+    public List<Program> programList()
+    {
+        return cache.get(DataTable.PROGRAMS, this::readPrograms);
+    }
+
+    public List<ProgramCourse> programCourseList()
+    {
+        return cache.get(DataTable.PROGRAM_COURSES, this::readProgramCourses);
+    }
+
+    private List<Student> readStudents()
     {
         List<Student> students = new ArrayList<>();
 
+        DataLoadEvent event = new DataLoadEvent(STUDENT_INFO);
+        event.begin();
+
         try (BufferedReader br = new BufferedReader(new FileReader(STUDENT_INFO)))
         {
             String line;
@@ -28,7 +211,7 @@ public class DataAccess
             while ((line = br.readLine()) != null)
             {
                 String[] data = line.split(",");
-                Student student = new Student(data[0], data[1], data[2], data[3], data[4], data[5]);
+                Student student = new Student(IdPool.STUDENTS.intern(data[0].trim()), data[1], data[2], IdPool.PROGRAMS.intern(data[3].trim()), data[4], data[5]);
 
                 students.add(student);
             }
@@ -37,13 +220,17 @@ public class DataAccess
         {
             System.out.println("Error: " + e);
         }
+        event.finish(students.size());
         return students;
     }
 
-    public List<Course> courseList()
+    private List<Course> readCourses()
     {
         List<Course> courses = new ArrayList<>();
 
+        DataLoadEvent event = new DataLoadEvent(COURSE_INFO);
+        event.begin();
+
         try (BufferedReader br = new BufferedReader(new FileReader(COURSE_INFO)))
         {
             String line;
@@ -52,7 +239,7 @@ public class DataAccess
             while ((line = br.readLine()) != null)
             {
                 String[] data = line.split(",");
-                Course course = new Course(data[0], data[1], data[2], data[3], data[4], data[5]);
+                Course course = new Course(IdPool.COURSES.intern(data[0].trim()), data[1], data[2], data[3], data[4], data[5]);
 
                 courses.add(course);
             }
@@ -61,14 +248,18 @@ public class DataAccess
         {
             System.out.println("Error: " + e);
         }
+        event.finish(courses.size());
         return courses;
     }
 
-    public List<Enrollment> enrollmentList()
+    private List<Program> readPrograms()
     {
-        List<Enrollment> enrollments = new ArrayList<>();
+        List<Program> programs = new ArrayList<>();
 
-        try (BufferedReader br = new BufferedReader(new FileReader(STUDENT_ENROLLED_COURSES)))
+        DataLoadEvent event = new DataLoadEvent(PROGRAM_INFO);
+        event.begin();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(PROGRAM_INFO)))
         {
             String line;
             br.readLine();
@@ -76,23 +267,27 @@ public class DataAccess
             while ((line = br.readLine()) != null)
             {
                 String[] data = line.split(",");
-                Enrollment enrollment = new Enrollment(data[0], data[1], data[2], data[3], data[4], data[5], data[6]);
+                Program program = new Program(IdPool.PROGRAMS.intern(data[0].trim()), data[1], data[2]);
 
-                enrollments.add(enrollment);
+                programs.add(program);
             }
         }
         catch (Exception e)
         {
             System.out.println("Error: " + e);
         }
-        return enrollments;
+        event.finish(programs.size());
+        return programs;
     }
 
-    public List<Program> programList()
+    private List<ProgramCourse> readProgramCourses()
     {
-        List<Program> programs = new ArrayList<>();
+        List<ProgramCourse> programCourses = new ArrayList<>();
 
-        try (BufferedReader br = new BufferedReader(new FileReader(PROGRAM_INFO)))
+        DataLoadEvent event = new DataLoadEvent(COURSES_IN_PROGRAM);
+        event.begin();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(COURSES_IN_PROGRAM)))
         {
             String line;
             br.readLine();
@@ -100,16 +295,17 @@ public class DataAccess
             while ((line = br.readLine()) != null)
             {
                 String[] data = line.split(",");
-                Program program = new Program(data[0], data[1], data[2]);
+                ProgramCourse programCourse = new ProgramCourse(IdPool.PROGRAMS.intern(data[0].trim()), IdPool.COURSES.intern(data[1].trim()));
 
-                programs.add(program);
+                programCourses.add(programCourse);
             }
         }
         catch (Exception e)
         {
             System.out.println("Error: " + e);
         }
-        return programs;
+        event.finish(programCourses.size());
+        return programCourses;
     }
 
     public List<String[]> getStudents()
@@ -126,45 +322,47 @@ public class DataAccess
 
     public List<String[]> getEnrollments(String[] student)
     {
-        List<String[]> allEnrollments = new ArrayList<>();
+        return getEnrollments(student == null ? null : student[0], null);
+    }
 
-        for (Enrollment en : enrollmentList())
-        {
-            String[] enrollment = {en.getEnrollmentId(), en.getStudentId(), en.getCourseId(), en.getYear(), en.getSemester(), en.getExamScore(), en.getAssignmentScore()};
+    /**
+     * Returns a student's enrollments, or every enrollment if studentId is null.
+     * With the student's program only that program's partitions are read.
+     */
+    public List<String[]> getEnrollments(String studentId, String programId)
+    {
+        List<String[]> allEnrollments = new ArrayList<>();
 
-            if (student == null)
-            {
-                allEnrollments.add(enrollment);
-            }
-            else
-            {
-                if (enrollment[1].trim().equals(student[0]))
-                {
-                    allEnrollments.add(enrollment);
-                }
-            }
-        }
+        EnrollmentQuery query = EnrollmentQuery.create().student(studentId).program(programId);
+        query(query).forEach(en -> allEnrollments.add(new String[]{en.getEnrollmentId(), en.getStudentId(), en.getCourseId(),
+                en.getYear(), en.getSemester(), en.getExamScore(), en.getAssignmentScore()}));
         return allEnrollments;
     }
 
+    /**
+     * Returns every course, or with a student only the courses they are enrolled in.
+     */
     public List<String[]> getCourses(String[] student)
     {
         List<String[]> allCourses = new ArrayList<>();
 
+        Set<String> enrolled = null;
+        if (student != null)
+        {
+            enrolled = new HashSet<>();
+            for (Enrollment en : index().forStudent(student[0].trim()))
+            {
+                enrolled.add(en.getCourseId().trim());
+            }
+        }
+
         for (Course c : courseList()) {
             String[] course = {c.getCourseId(), c.getName(), c.getCredits(), c.getInstructor(), c.getExamWeight(), c.getAssignmentWeight()};
 
-            if (student == null)
+            if (enrolled == null || enrolled.contains(course[0].trim()))
             {
                 allCourses.add(course);
             }
-            else
-            {
-                if (course[0].trim().equals(student[2]))
-                {
-                    allCourses.add(course);
-                }
-            }
         }
         return allCourses;
     }
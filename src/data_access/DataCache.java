@@ -0,0 +1,358 @@
+package data_access;
+
+import logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * In-memory copy of each data file, shared by every DataAccess instance.
+ *
+ * Each table is parsed once and kept as an immutable snapshot. When a file
+ * changes on disk, {@link #refresh} parses it again and swaps the new snapshot
+ * in with a single reference write, so readers always see either the old or the
+ * new version of a table, never a half-loaded one. Listeners are then told which
+ * table changed so they can drop whatever they derived from it.
+ *
+ * A {@link DataDirectoryWatcher} calls refresh automatically when the data
+ * directory is modified by another tool.
+ *
+ * Tables registered with an {@link AppendSource} are refreshed incrementally:
+ * only rows appended since the last read are parsed, added to a new snapshot
+ * and handed to {@link Listener#rowsAppended}. The whole file is parsed again
+ * only when the source reports that it was truncated or rewritten.
+ *
+ * Configuration through system properties:
+ * - oodj.data.watch: set to false to disable the directory watcher (default true)
+ */
+public final class DataCache
+{
+    /**
+     * Notified after a table has been reloaded or modified.
+     */
+    @FunctionalInterface
+    public interface Listener
+    {
+        void tableChanged(DataTable table);
+
+        /**
+         * Called instead of tableChanged when rows were only appended to the end
+         * of a table. Listeners that cannot apply the rows incrementally can rely
+         * on the default, which treats the append as any other change.
+         */
+        default void rowsAppended(DataTable table, List<?> rows)
+        {
+            tableChanged(table);
+        }
+    }
+
+    /**
+     * A loader that can also read just the rows appended since its previous read.
+     */
+    public interface AppendSource<T>
+    {
+        List<T> readAll();
+
+        /**
+         * @return The appended rows, or null if the file has to be read again in full
+         */
+        List<T> readAppended();
+    }
+
+    private static final DataCache instance = new DataCache(Boolean.parseBoolean(System.getProperty("oodj.data.watch", "true")));
+
+    private final Map<DataTable, Slot> slots = new EnumMap<>(DataTable.class);
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private DataDirectoryWatcher watcher;
+
+    private DataCache(boolean watch)
+    {
+        for (DataTable table : DataTable.values())
+        {
+            slots.put(table, new Slot(table));
+        }
+        if (watch && new File("data").isDirectory())
+        {
+            try
+            {
+                watcher = DataDirectoryWatcher.start(Paths.get("data"), this);
+            }
+            catch (IOException e)
+            {
+                Log.warn("DataCache", "Could not watch the data directory, changes need a restart: " + e.getMessage());
+            }
+        }
+    }
+
+    public static DataCache getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Returns the current snapshot of a table, parsing the file with the given
+     * loader the first time. The returned list is read-only.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(DataTable table, Supplier<List<T>> loader)
+    {
+        Slot slot = slots.get(table);
+        Snapshot current = slot.snapshot.get();
+        if (current != null)
+        {
+            return (List<T>) current.rows;
+        }
+        synchronized (slot)
+        {
+            if (slot.loader == null)
+            {
+                slot.loader = (Supplier<List<?>>) (Supplier<?>) loader;
+            }
+            current = slot.snapshot.get();
+            if (current == null)
+            {
+                current = slot.load();
+            }
+        }
+        return (List<T>) current.rows;
+    }
+
+    /**
+     * Returns the current snapshot of a table whose file only grows between
+     * rewrites. Later refreshes parse only the appended rows.
+     */
+    public <T> List<T> get(DataTable table, AppendSource<T> source)
+    {
+        Slot slot = slots.get(table);
+        if (slot.appendSource == null)
+        {
+            synchronized (slot)
+            {
+                slot.appendSource = source;
+            }
+        }
+        return get(table, source::readAll);
+    }
+
+    /**
+     * Reloads a table if its file changed since it was last read, then notifies
+     * the listeners. Tables that have never been read are not parsed; only the
+     * listeners are notified.
+     *
+     * @return true if the file had changed
+     */
+    public boolean refresh(DataTable table)
+    {
+        Slot slot = slots.get(table);
+        synchronized (slot)
+        {
+            FileStamp stamp = FileStamp.of(table.getPath());
+            if (stamp.equals(slot.stamp))
+            {
+                return false;
+            }
+            Snapshot current = slot.snapshot.get();
+            if (slot.appendSource != null && current != null)
+            {
+                List<?> appended = slot.appendSource.readAppended();
+                if (appended != null)
+                {
+                    slot.stamp = stamp;
+                    if (appended.isEmpty())
+                    {
+                        return false;
+                    }
+                    Snapshot grown = slot.append(current, appended);
+                    Log.info("DataCache", "Appended " + appended.size() + " rows to " + table.getFileName() + " (version " + grown.version + ").");
+                    fireAppended(table, Collections.unmodifiableList(appended));
+                    return true;
+                }
+                Log.info("DataCache", table.getFileName() + " was truncated or rewritten, reading it in full.");
+            }
+            if (slot.loader != null)
+            {
+                Snapshot loaded = slot.load();
+                Log.info("DataCache", "Reloaded " + table.getFileName() + " (" + loaded.rows.size() + " rows, version " + loaded.version + ").");
+            }
+            else
+            {
+                slot.stamp = stamp;
+            }
+        }
+        fireChanged(table);
+        return true;
+    }
+
+    /**
+     * Forces a table to be reloaded, for callers that have just rewritten the file
+     * themselves and need to read their own changes before the watcher reports them.
+     */
+    public void reload(DataTable table)
+    {
+        Slot slot = slots.get(table);
+        synchronized (slot)
+        {
+            if (slot.loader != null)
+            {
+                slot.load();
+            }
+            else
+            {
+                slot.stamp = FileStamp.of(table.getPath());
+            }
+        }
+        fireChanged(table);
+    }
+
+    /**
+     * Returns how many times a table has been loaded; 0 if it has never been read.
+     */
+    public long getVersion(DataTable table)
+    {
+        Snapshot current = slots.get(table).snapshot.get();
+        return current == null ? 0 : current.version;
+    }
+
+    public void addListener(Listener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    private void fireAppended(DataTable table, List<?> rows)
+    {
+        for (Listener listener : listeners)
+        {
+            try
+            {
+                listener.rowsAppended(table, rows);
+            }
+            catch (RuntimeException e)
+            {
+                Log.error("DataCache", "Listener failed for " + table + ": " + e);
+            }
+        }
+    }
+
+    private void fireChanged(DataTable table)
+    {
+        for (Listener listener : listeners)
+        {
+            try
+            {
+                listener.tableChanged(table);
+            }
+            catch (RuntimeException e)
+            {
+                Log.error("DataCache", "Listener failed for " + table + ": " + e);
+            }
+        }
+    }
+
+    // Loading is serialized per table by synchronizing on the slot; readers never lock
+    private static final class Slot
+    {
+        final DataTable table;
+        final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+        Supplier<List<?>> loader;
+        AppendSource<?> appendSource;
+        FileStamp stamp;
+        long loads;
+
+        Slot(DataTable table)
+        {
+            this.table = table;
+        }
+
+        Snapshot load()
+        {
+            // Stamp before reading, so a write during the read is seen as a change next time
+            stamp = FileStamp.of(table.getPath());
+            Snapshot loaded = new Snapshot(Collections.unmodifiableList(loader.get()), ++loads);
+            snapshot.set(loaded);
+            return loaded;
+        }
+
+        Snapshot append(Snapshot current, List<?> rows)
+        {
+            List<Object> combined = new ArrayList<>(current.rows.size() + rows.size());
+            combined.addAll(current.rows);
+            combined.addAll(rows);
+            Snapshot grown = new Snapshot(Collections.unmodifiableList(combined), ++loads);
+            snapshot.set(grown);
+            return grown;
+        }
+    }
+
+    private static final class Snapshot
+    {
+        final List<?> rows;
+        final long version;
+
+        Snapshot(List<?> rows, long version)
+        {
+            this.rows = rows;
+            this.version = version;
+        }
+    }
+
+    // Size and modification time of a file, used to ignore events that did not change it
+    private static final class FileStamp
+    {
+        final long length;
+        final long lastModified;
+
+        private FileStamp(long length, long lastModified)
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        static FileStamp of(String path)
+        {
+            try
+            {
+                BasicFileAttributes attributes = Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+                return new FileStamp(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+            }
+            catch (IOException e)
+            {
+                // Missing file
+                return new FileStamp(-1, -1);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof FileStamp))
+            {
+                return false;
+            }
+            FileStamp other = (FileStamp) o;
+            return length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Long.hashCode(length) * 31 + Long.hashCode(lastModified);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package data_access;
+
+import logging.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the data directory and refreshes the {@link DataCache} table of every
+ * file that is created, modified or replaced.
+ *
+ * Editors and import tools often write a file in several steps (truncate, write,
+ * rename), so events are collected until the directory has been quiet for
+ * QUIET_MILLIS and each affected table is refreshed once.
+ */
+public final class DataDirectoryWatcher implements Closeable
+{
+    private static final long QUIET_MILLIS = 250;
+
+    private final WatchService watchService;
+    private final DataCache cache;
+    private final Thread thread;
+
+    private DataDirectoryWatcher(Path directory, DataCache cache) throws IOException
+    {
+        this.watchService = directory.getFileSystem().newWatchService();
+        this.cache = cache;
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        this.thread = new Thread(this::watchLoop, "data-watcher");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching a directory on a background daemon thread.
+     */
+    public static DataDirectoryWatcher start(Path directory, DataCache cache) throws IOException
+    {
+        DataDirectoryWatcher watcher = new DataDirectoryWatcher(directory, cache);
+        watcher.thread.start();
+        Log.info("DataDirectoryWatcher", "Watching " + directory.toAbsolutePath() + " for changes.");
+        return watcher;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        watchService.close();
+    }
+
+    private void watchLoop()
+    {
+        try
+        {
+            while (true)
+            {
+                Set<DataTable> changed = EnumSet.noneOf(DataTable.class);
+                WatchKey key = watchService.take();
+
+                // Keep collecting until no event arrives for QUIET_MILLIS
+                while (key != null)
+                {
+                    collect(key, changed);
+                    key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                for (DataTable table : changed)
+                {
+                    cache.refresh(table);
+                }
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            Log.info("DataDirectoryWatcher", "Stopped watching the data directory.");
+        }
+    }
+
+    private void collect(WatchKey key, Set<DataTable> changed)
+    {
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+            {
+                // Events were lost; check every file
+                changed.addAll(EnumSet.allOf(DataTable.class));
+                continue;
+            }
+            DataTable table = DataTable.fromFileName(((Path) event.context()).getFileName().toString());
+            if (table != null)
+            {
+                changed.add(table);
+            }
+        }
+        key.reset();
+    }
+}
@@ -0,0 +1,52 @@
+package data_access;
+
+/**
+ * The data files the application reads, one constant per file.
+ */
+public enum DataTable
+{
+    STUDENTS("data/student_information.csv"),
+    COURSES("data/course_assessment_information.csv"),
+    ENROLLMENTS("data/student_enrollment_information.csv"),
+    PROGRAMS("data/program_information.csv"),
+    PROGRAM_COURSES("data/courses_in_program.csv"),
+    RECOVERY_PLANS("data/recovery_plans.txt"),
+    MILESTONE_STATUS("data/milestone_status.log");
+
+    private final String path;
+
+    DataTable(String path)
+    {
+        this.path = path;
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    /**
+     * Returns the file name without its directory, as reported by a WatchService.
+     */
+    public String getFileName()
+    {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Returns the table stored in the given file.
+     *
+     * @return The table, or null if the file is not one of the data files
+     */
+    public static DataTable fromFileName(String fileName)
+    {
+        for (DataTable table : values())
+        {
+            if (table.getFileName().equals(fileName))
+            {
+                return table;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package data_access;
+
+import model.Enrollment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup of enrollment rows by student and by course, built once for one
+ * snapshot of the enrollment list.
+ */
+final class EnrollmentIndex
+{
+    private final List<Enrollment> source;
+    private final Map<String, List<Enrollment>> byStudent = new HashMap<>();
+    private final Map<String, List<Enrollment>> byCourse = new HashMap<>();
+
+    EnrollmentIndex(List<Enrollment> source)
+    {
+        this.source = source;
+        for (Enrollment en : source)
+        {
+            byStudent.computeIfAbsent(en.getStudentId().trim(), k -> new ArrayList<>()).add(en);
+            byCourse.computeIfAbsent(en.getCourseId().trim(), k -> new ArrayList<>()).add(en);
+        }
+    }
+
+    /**
+     * Returns true if this index was built from the given list instance.
+     */
+    boolean isFor(List<Enrollment> list)
+    {
+        return source == list;
+    }
+
+    List<Enrollment> forStudent(String studentId)
+    {
+        return byStudent.getOrDefault(studentId, Collections.emptyList());
+    }
+
+    List<Enrollment> forCourse(String courseId)
+    {
+        return byCourse.getOrDefault(courseId, Collections.emptyList());
+    }
+}
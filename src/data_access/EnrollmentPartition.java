@@ -0,0 +1,53 @@
+package data_access;
+
+/**
+ * One entry of the enrollment partition manifest: the rows of one program in
+ * one academic year.
+ */
+public final class EnrollmentPartition
+{
+    private final String programId;
+    private final int year;
+    private final String file;
+    private final int rows;
+
+    public EnrollmentPartition(String programId, int year, String file, int rows)
+    {
+        this.programId = programId;
+        this.year = year;
+        this.file = file;
+        this.rows = rows;
+    }
+
+    /**
+     * Returns true if this partition can hold rows for the given program and year.
+     * A null argument matches every value.
+     */
+    public boolean matches(String programId, Integer year)
+    {
+        return (programId == null || this.programId.equals(programId)) && (year == null || this.year == year);
+    }
+
+    public String getProgramId()
+    {
+        return programId;
+    }
+
+    public int getYear()
+    {
+        return year;
+    }
+
+    /**
+     * Returns the path of the partition file, relative to the partition root.
+     */
+    public String getFile()
+    {
+        return file;
+    }
+
+    public int getRows()
+    {
+        return rows;
+    }
+}
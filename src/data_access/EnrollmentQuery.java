@@ -0,0 +1,141 @@
+package data_access;
+
+import model.Enrollment;
+
+import java.util.function.Predicate;
+
+/**
+ * Typed filter for {@link DataAccess#query}. Every condition is optional; a query
+ * with no conditions matches every enrollment.
+ *
+ * Example:
+ *
+ *     data.query(EnrollmentQuery.create().student("S001").year(1).semester(2))
+ */
+public final class EnrollmentQuery
+{
+    String studentId;
+    String courseId;
+    String programId;
+    Integer year;
+    Integer semester;
+    double minExam = Double.NEGATIVE_INFINITY;
+    double maxExam = Double.POSITIVE_INFINITY;
+    double minAssignment = Double.NEGATIVE_INFINITY;
+    double maxAssignment = Double.POSITIVE_INFINITY;
+
+    private EnrollmentQuery()
+    {
+    }
+
+    public static EnrollmentQuery create()
+    {
+        return new EnrollmentQuery();
+    }
+
+    public EnrollmentQuery student(String studentId)
+    {
+        this.studentId = studentId == null ? null : studentId.trim();
+        return this;
+    }
+
+    public EnrollmentQuery course(String courseId)
+    {
+        this.courseId = courseId == null ? null : courseId.trim();
+        return this;
+    }
+
+    /**
+     * Restricts the query to students enrolled in the given program.
+     */
+    public EnrollmentQuery program(String programId)
+    {
+        this.programId = programId == null ? null : programId.trim();
+        return this;
+    }
+
+    public EnrollmentQuery year(int year)
+    {
+        this.year = year;
+        return this;
+    }
+
+    public EnrollmentQuery semester(int semester)
+    {
+        this.semester = semester;
+        return this;
+    }
+
+    /**
+     * Restricts the exam score to the inclusive range [min, max].
+     */
+    public EnrollmentQuery examScore(double min, double max)
+    {
+        this.minExam = min;
+        this.maxExam = max;
+        return this;
+    }
+
+    /**
+     * Restricts the assignment score to the inclusive range [min, max].
+     */
+    public EnrollmentQuery assignmentScore(double min, double max)
+    {
+        this.minAssignment = min;
+        this.maxAssignment = max;
+        return this;
+    }
+
+    /**
+     * Returns true if the year and semester conditions allow the given term.
+     */
+    boolean matchesTerm(int year, int semester)
+    {
+        return (this.year == null || this.year == year) && (this.semester == null || this.semester == semester);
+    }
+
+    /**
+     * Builds the row filter for the conditions that were not already satisfied by
+     * the way the rows were selected. Program membership is resolved by the caller.
+     *
+     * @param skipStudent true if the rows come from the student index
+     * @param skipCourse true if the rows come from the course index
+     */
+    Predicate<Enrollment> rowFilter(boolean skipStudent, boolean skipCourse)
+    {
+        Predicate<Enrollment> filter = en -> true;
+        if (studentId != null && !skipStudent)
+        {
+            filter = filter.and(en -> en.getStudentId().trim().equals(studentId));
+        }
+        if (courseId != null && !skipCourse)
+        {
+            filter = filter.and(en -> en.getCourseId().trim().equals(courseId));
+        }
+        if (year != null)
+        {
+            int y = year;
+            filter = filter.and(en -> Integer.parseInt(en.getYear().trim()) == y);
+        }
+        if (semester != null)
+        {
+            int s = semester;
+            filter = filter.and(en -> Integer.parseInt(en.getSemester().trim()) == s);
+        }
+        if (minExam > Double.NEGATIVE_INFINITY || maxExam < Double.POSITIVE_INFINITY)
+        {
+            filter = filter.and(en -> inRange(en.getExamScore(), minExam, maxExam));
+        }
+        if (minAssignment > Double.NEGATIVE_INFINITY || maxAssignment < Double.POSITIVE_INFINITY)
+        {
+            filter = filter.and(en -> inRange(en.getAssignmentScore(), minAssignment, maxAssignment));
+        }
+        return filter;
+    }
+
+    private static boolean inRange(String score, double min, double max)
+    {
+        double value = Double.parseDouble(score.trim());
+        return value >= min && value <= max;
+    }
+}
@@ -0,0 +1,246 @@
+package data_access;
+
+import diagnostics.DataLoadEvent;
+import logging.Log;
+import model.Enrollment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Reads student_enrollment_information.csv and, afterwards, only the rows that
+ * were appended to it.
+ *
+ * After each read the reader remembers how many bytes it has consumed and how
+ * to recognise the same file again: its file key (inode where available), a
+ * checksum of the first bytes (header and first rows) and a checksum of the
+ * bytes just before the consumed offset. {@link #readAppended} parses only what
+ * follows that offset. If the file is shorter than before, was replaced, or its
+ * remembered bytes differ, the rows cannot be trusted and it returns null so
+ * the caller falls back to {@link #readAll}.
+ *
+ * The file has no line break after its last row, and rows are appended as
+ * "\r\nrow", so the last row is taken whether or not it is terminated. The next
+ * append then has to start with a line break; if it does not, the row was only
+ * partly written when it was read, and {@link #readAppended} returns null so the
+ * whole file is read again.
+ */
+public final class EnrollmentTailReader implements DataCache.AppendSource<Enrollment>
+{
+    private static final int HEAD_BYTES = 1024;
+    private static final int TAIL_BYTES = 256;
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final Path path;
+    private Object fileKey;
+    private long offset;
+    private int headLength;
+    private long headChecksum;
+    private int tailLength;
+    private long tailChecksum;
+    // True when the last consumed row had no line break, so an append must start with one
+    private boolean lastLineOpen;
+
+    public EnrollmentTailReader(String path)
+    {
+        this.path = Paths.get(path);
+    }
+
+    /**
+     * Parses the whole file and remembers where it ends.
+     */
+    @Override
+    public synchronized List<Enrollment> readAll()
+    {
+        List<Enrollment> enrollments = new ArrayList<>();
+
+        DataLoadEvent event = new DataLoadEvent(path.toString());
+        event.begin();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long end = parse(channel, 0, true, enrollments);
+            remember(channel, end);
+        }
+        catch (Exception e)
+        {
+            Log.error("EnrollmentTailReader", "Failed to read " + path + ": " + e.getMessage());
+            fileKey = null;
+            offset = 0;
+        }
+        event.finish(enrollments.size());
+        return enrollments;
+    }
+
+    /**
+     * Parses the rows appended since the previous read.
+     *
+     * @return The new rows (possibly empty), or null if the file was truncated or
+     *         rewritten and must be read again with {@link #readAll}
+     */
+    @Override
+    public synchronized List<Enrollment> readAppended()
+    {
+        List<Enrollment> appended = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < offset || !Objects.equals(fileKey, fileKey())
+                    || checksum(channel, 0, headLength) != headChecksum
+                    || checksum(channel, offset - tailLength, tailLength) != tailChecksum)
+            {
+                return null;
+            }
+            if (size == offset)
+            {
+                return appended;
+            }
+
+            long start = offset;
+            if (lastLineOpen)
+            {
+                // The previous last row had no line break; the append has to supply it
+                byte first = read(channel, start, 1)[0];
+                if (first != '\n' && first != '\r')
+                {
+                    return null;
+                }
+            }
+
+            long end = parse(channel, start, false, appended);
+            if (end > offset)
+            {
+                remember(channel, end);
+            }
+        }
+        catch (Exception e)
+        {
+            Log.error("EnrollmentTailReader", "Failed to read rows appended to " + path + ": " + e.getMessage());
+            return null;
+        }
+        return appended;
+    }
+
+    // Parses rows from start, including an unterminated last row; returns the offset just past it
+    private long parse(FileChannel channel, long start, boolean skipHeader, List<Enrollment> out) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long position = start;
+        long consumed = start;
+        boolean header = skipHeader;
+
+        channel.position(start);
+        while (channel.read(buffer) > 0)
+        {
+            buffer.flip();
+            while (buffer.hasRemaining())
+            {
+                byte b = buffer.get();
+                position++;
+                if (b != '\n')
+                {
+                    if (lineLength == line.length)
+                    {
+                        byte[] grown = new byte[line.length * 2];
+                        System.arraycopy(line, 0, grown, 0, lineLength);
+                        line = grown;
+                    }
+                    line[lineLength++] = b;
+                    continue;
+                }
+                if (header)
+                {
+                    header = false;
+                }
+                else
+                {
+                    addRow(line, lineLength, true, out);
+                }
+                lineLength = 0;
+                consumed = position;
+            }
+            buffer.clear();
+        }
+
+        if (lineLength > 0 && !header)
+        {
+            addRow(line, lineLength, false, out);
+            consumed = position;
+        }
+        lastLineOpen = consumed == position && lineLength > 0;
+        return consumed;
+    }
+
+    private void addRow(byte[] line, int length, boolean terminated, List<Enrollment> out)
+    {
+        if (length > 0 && line[length - 1] == '\r')
+        {
+            length--;
+        }
+        if (length == 0)
+        {
+            return;
+        }
+        String text = new String(line, 0, length, StandardCharsets.UTF_8);
+        String[] data = text.split(",");
+        if (data.length < 7)
+        {
+            // An unterminated short row is still being written; the next append will not start with a line break
+            if (terminated)
+            {
+                Log.warn("EnrollmentTailReader", "Skipping malformed row in " + path + ": " + text);
+            }
+            return;
+        }
+        out.add(new Enrollment(data[0], IdPool.STUDENTS.intern(data[1].trim()), IdPool.COURSES.intern(data[2].trim()), data[3], data[4], data[5], data[6]));
+    }
+
+    private void remember(FileChannel channel, long end) throws IOException
+    {
+        offset = end;
+        fileKey = fileKey();
+        headLength = (int) Math.min(HEAD_BYTES, end);
+        headChecksum = checksum(channel, 0, headLength);
+        tailLength = (int) Math.min(TAIL_BYTES, end);
+        tailChecksum = checksum(channel, end - tailLength, tailLength);
+    }
+
+    private Object fileKey() throws IOException
+    {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    private static long checksum(FileChannel channel, long position, int length) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        crc.update(read(channel, position, length));
+        return crc.getValue();
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                break;
+            }
+        }
+        return buffer.array();
+    }
+}
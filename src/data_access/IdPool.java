@@ -0,0 +1,118 @@
+package data_access;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical pool for StudentID, CourseID and ProgramID strings.
+ *
+ * Every loader passes the identifiers it parses through {@link #intern}, so the
+ * same ID is held by a single String instance no matter which file or package
+ * produced it. Each identifier also gets a dense int surrogate that can be used
+ * as an array index or compared with ==.
+ */
+public final class IdPool
+{
+    public static final IdPool STUDENTS = new IdPool("Student");
+    public static final IdPool COURSES = new IdPool("Course");
+    public static final IdPool PROGRAMS = new IdPool("Program");
+
+    private final String kind;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private int size;
+
+    private IdPool(String kind)
+    {
+        this.kind = kind;
+    }
+
+    /**
+     * Returns the canonical instance of an identifier, registering it if it is new.
+     *
+     * @param id The identifier as parsed (callers trim beforehand where needed)
+     * @return The shared String instance, or null if id is null
+     */
+    public String intern(String id)
+    {
+        return id == null ? null : entry(id).value;
+    }
+
+    /**
+     * Returns the int surrogate of an identifier, registering it if it is new.
+     */
+    public int idOf(String id)
+    {
+        return entry(id).index;
+    }
+
+    /**
+     * Returns the int surrogate of an identifier without registering it.
+     *
+     * @return The surrogate, or -1 if the identifier has never been seen
+     */
+    public int find(String id)
+    {
+        Entry entry = id == null ? null : entries.get(id);
+        return entry == null ? -1 : entry.index;
+    }
+
+    /**
+     * Returns the identifier for an int surrogate.
+     */
+    public String valueOf(int index)
+    {
+        String[] current = values;
+        if (index < 0 || index >= current.length || current[index] == null)
+        {
+            throw new IllegalArgumentException("Unknown " + kind + " surrogate: " + index);
+        }
+        return current[index];
+    }
+
+    /**
+     * Returns the number of identifiers registered so far. Surrogates are
+     * always in the range [0, size()).
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    private Entry entry(String id)
+    {
+        Entry entry = entries.get(id);
+        if (entry != null)
+        {
+            return entry;
+        }
+        return entries.computeIfAbsent(id, this::register);
+    }
+
+    // Called inside computeIfAbsent, so each new identifier is registered exactly once
+    private synchronized Entry register(String id)
+    {
+        int index = size++;
+        String[] current = values;
+        if (index >= current.length)
+        {
+            String[] grown = new String[current.length * 2];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            current = grown;
+        }
+        current[index] = id;
+        values = current;
+        return new Entry(id, index);
+    }
+
+    private static final class Entry
+    {
+        final String value;
+        final int index;
+
+        Entry(String value, int index)
+        {
+            this.value = value;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package data_access;
+
+import logging.Log;
+import model.Enrollment;
+import model.Student;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Optional copy of the enrollment data split by program and academic year:
+ *
+ *     data/enrollments/gen-3/program=P001/year=1.csv
+ *     data/enrollments/manifest.csv
+ *
+ * Each partition file has the same columns as student_enrollment_information.csv.
+ * The manifest lists every partition with its program, year and row count, so a
+ * query for one program or year opens only the matching files (partition pruning),
+ * and the files it does open are parsed in parallel.
+ *
+ * The monolithic enrollment file stays the file other tools write to. The
+ * partitions are rebuilt from it when the data directory watcher reports it
+ * rewritten, extended when rows are appended, and only used while the manifest
+ * is newer than that file. Neither readers nor the watcher rebuild: changes,
+ * appends and readers that find a missing or stale set all queue the work on
+ * the store's background thread, and while the partitions are stale readers
+ * read the cached enrollment list.
+ *
+ * A rebuild writes a new generation directory that no manifest refers to yet,
+ * then moves the new manifest into place in one atomic step, so a reader sees
+ * either the old partitions or the new ones. The previous generation is kept
+ * until the next rebuild for readers still holding the old manifest. Readers
+ * take only as many rows as their manifest lists, so rows being appended are
+ * not seen until the manifest that counts them is written.
+ *
+ * Configuration through system properties:
+ * - oodj.data.partitioned: set to true to create the partitions when they do not exist yet
+ */
+public final class PartitionedEnrollmentStore
+{
+    private static final String MANIFEST = "manifest.csv";
+    private static final String MANIFEST_HEADER = "ProgramID,Year,File,Rows";
+    private static final String ENROLLMENT_HEADER = "EnrollmentID,StudentID,CourseID,Year,Semester,ExamScore,AssignmentScore";
+    private static final String NO_PROGRAM = "none";
+    private static final Pattern GENERATION = Pattern.compile("gen-(\\d+)");
+
+    private static PartitionedEnrollmentStore instance;
+
+    private final Path root;
+    private final Path source;
+    private final boolean createMissing;
+    private volatile List<EnrollmentPartition> partitions;
+    private final ConcurrentHashMap<Path, PartitionRows> parsed = new ConcurrentHashMap<>();
+
+    // Rebuilds and appends run here, one at a time and in the order they were requested
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r ->
+    {
+        Thread t = new Thread(r, "enrollment-partitions");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    // Version of the enrollment data the partitions were last written from; -1 until this process writes them
+    private long enrollmentVersion = -1;
+
+    public PartitionedEnrollmentStore(String root, String source, boolean createMissing)
+    {
+        this.root = Paths.get(root);
+        this.source = Paths.get(source);
+        this.createMissing = createMissing;
+    }
+
+    /**
+     * Returns the shared store for data/enrollments, which follows changes to
+     * the enrollment file.
+     */
+    public static synchronized PartitionedEnrollmentStore getInstance()
+    {
+        if (instance == null)
+        {
+            instance = new PartitionedEnrollmentStore("data/enrollments", DataTable.ENROLLMENTS.getPath(),
+                    Boolean.getBoolean("oodj.data.partitioned"));
+            DataCache.getInstance().addListener(instance.new EnrollmentListener());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns true if the partitions exist and reflect the current enrollment file.
+     * When they are missing (and creation is enabled) or stale, queues a rebuild
+     * in the background and returns false, so the caller reads the full list.
+     */
+    public boolean isAvailable()
+    {
+        if (isCurrent())
+        {
+            return true;
+        }
+        if (createMissing || Files.exists(root.resolve(MANIFEST)))
+        {
+            requestRebuild();
+        }
+        return false;
+    }
+
+    /**
+     * Returns the partitions listed in the manifest.
+     */
+    public List<EnrollmentPartition> getPartitions()
+    {
+        List<EnrollmentPartition> current = partitions;
+        if (current == null)
+        {
+            current = readManifest();
+            partitions = current;
+        }
+        return current;
+    }
+
+    /**
+     * Loads the enrollments of one program and/or year, reading only the matching
+     * partitions, in parallel.
+     *
+     * @param programId The program, or null for every program
+     * @param year The academic year, or null for every year
+     */
+    public List<Enrollment> load(String programId, Integer year)
+    {
+        List<EnrollmentPartition> all = getPartitions();
+        List<EnrollmentPartition> selected = new ArrayList<>();
+        for (EnrollmentPartition partition : all)
+        {
+            if (partition.matches(programId, year))
+            {
+                selected.add(partition);
+            }
+        }
+        Log.debug("PartitionedEnrollmentStore", "Reading " + selected.size() + " of " + all.size() + " partitions.");
+
+        // An ordered parallel stream keeps the manifest order in the result
+        return selected.parallelStream()
+                .flatMap(partition -> rowsOf(partition).stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes every partition from the enrollment file into a new generation and
+     * then switches the manifest to it.
+     */
+    public synchronized void rebuild(DataAccess data)
+    {
+        Map<String, String> programs = programsByStudent(data);
+        int generation = nextGeneration();
+
+        // Read again if the enrollments changed meanwhile, so the version is exactly the one written
+        DataCache cache = DataCache.getInstance();
+        long version;
+        List<Enrollment> enrollments;
+        do
+        {
+            version = cache.getVersion(DataTable.ENROLLMENTS);
+            enrollments = data.enrollmentList();
+        }
+        while (version != cache.getVersion(DataTable.ENROLLMENTS));
+
+        Map<String, List<Enrollment>> grouped = new TreeMap<>();
+        for (Enrollment en : enrollments)
+        {
+            grouped.computeIfAbsent(partitionFile(generation, programOf(en, programs), en.getYear().trim()), k -> new ArrayList<>()).add(en);
+        }
+
+        Path directory = root.resolve("gen-" + generation);
+        try
+        {
+            // Left over from a rebuild that failed; no manifest refers to it
+            parsed.keySet().removeIf(path -> path.startsWith(directory));
+            deleteTree(directory);
+            Files.createDirectories(directory);
+            List<EnrollmentPartition> written = new ArrayList<>();
+            for (Map.Entry<String, List<Enrollment>> entry : grouped.entrySet())
+            {
+                Enrollment first = entry.getValue().get(0);
+                EnrollmentPartition partition = new EnrollmentPartition(programOf(first, programs),
+                        Integer.parseInt(first.getYear().trim()), entry.getKey(), 0);
+                written.add(appendRows(partition, entry.getValue()));
+            }
+            writeManifest(written);
+            enrollmentVersion = version;
+            Log.info("PartitionedEnrollmentStore", "Wrote " + written.size() + " enrollment partitions.");
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            Log.error("PartitionedEnrollmentStore", "Failed to write enrollment partitions: " + e.getMessage());
+            return;
+        }
+        removeGenerationsBefore(generation - 1);
+    }
+
+    /**
+     * Adds appended enrollment rows to their partitions and updates the manifest.
+     * Rows of a version the partitions already include are skipped; if versions
+     * were missed in between, the partitions are rebuilt instead.
+     *
+     * @param version The enrollment data version that added the rows
+     */
+    public synchronized void append(List<Enrollment> rows, long version)
+    {
+        if (enrollmentVersion >= 0 && version <= enrollmentVersion)
+        {
+            return;
+        }
+        if (enrollmentVersion >= 0 && version != enrollmentVersion + 1)
+        {
+            rebuild(new DataAccess());
+            return;
+        }
+        Map<String, String> programs = programsByStudent(new DataAccess());
+        Map<String, EnrollmentPartition> byFile = new HashMap<>();
+        for (EnrollmentPartition partition : getPartitions())
+        {
+            byFile.put(partition.getFile(), partition);
+        }
+
+        int generation = currentGeneration();
+        if (generation < 0)
+        {
+            // Nothing tells which generation is current; start a new one from the full list
+            rebuild(new DataAccess());
+            return;
+        }
+        Map<String, List<Enrollment>> grouped = new TreeMap<>();
+        for (Enrollment en : rows)
+        {
+            grouped.computeIfAbsent(partitionFile(generation, programOf(en, programs), en.getYear().trim()), k -> new ArrayList<>()).add(en);
+        }
+
+        try
+        {
+            for (Map.Entry<String, List<Enrollment>> entry : grouped.entrySet())
+            {
+                Enrollment first = entry.getValue().get(0);
+                EnrollmentPartition partition = byFile.get(entry.getKey());
+                if (partition == null)
+                {
+                    partition = new EnrollmentPartition(programOf(first, programs), Integer.parseInt(first.getYear().trim()), entry.getKey(), 0);
+                }
+                byFile.put(entry.getKey(), appendRows(partition, entry.getValue()));
+            }
+            writeManifest(new ArrayList<>(new TreeMap<>(byFile).values()));
+            enrollmentVersion = version;
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            Log.error("PartitionedEnrollmentStore", "Failed to append to enrollment partitions: " + e.getMessage());
+        }
+    }
+
+    // The manifest is rewritten after the enrollment file changes, so it is older only if a change was missed
+    private boolean isCurrent()
+    {
+        File manifest = root.resolve(MANIFEST).toFile();
+        return manifest.exists() && manifest.lastModified() >= source.toFile().lastModified();
+    }
+
+    private void requestRebuild()
+    {
+        if (!rebuildQueued.compareAndSet(false, true))
+        {
+            return;
+        }
+        rebuilder.execute(() ->
+        {
+            rebuildQueued.set(false);
+            // A change the watcher has not reported yet reaches the listener first, which may rebuild already
+            DataCache.getInstance().refresh(DataTable.ENROLLMENTS);
+            if (!isCurrent())
+            {
+                rebuild(new DataAccess());
+            }
+        });
+    }
+
+    private List<Enrollment> rowsOf(EnrollmentPartition partition)
+    {
+        Path path = root.resolve(partition.getFile());
+        int count = partition.getRows();
+        PartitionRows cached = parsed.get(path);
+        if (cached != null && cached.rows.size() >= count)
+        {
+            return cached.rows.subList(0, count);
+        }
+
+        // Rows past the manifest's count may still be being appended
+        List<Enrollment> rows = new ArrayList<>(count);
+        try (BufferedReader br = new BufferedReader(new FileReader(path.toFile())))
+        {
+            String line;
+            br.readLine();
+
+            while (rows.size() < count && (line = br.readLine()) != null)
+            {
+                String[] data = line.split(",");
+                if (data.length < 7)
+                {
+                    continue;
+                }
+                rows.add(new Enrollment(data[0], IdPool.STUDENTS.intern(data[1].trim()), IdPool.COURSES.intern(data[2].trim()), data[3], data[4], data[5], data[6]));
+            }
+        }
+        catch (IOException e)
+        {
+            Log.error("PartitionedEnrollmentStore", "Failed to read partition " + partition.getFile() + ": " + e.getMessage());
+        }
+        List<Enrollment> loaded = Collections.unmodifiableList(rows);
+        parsed.put(path, new PartitionRows(loaded));
+        return loaded;
+    }
+
+    private EnrollmentPartition appendRows(EnrollmentPartition partition, List<Enrollment> rows) throws IOException
+    {
+        File file = root.resolve(partition.getFile()).toFile();
+        file.getParentFile().mkdirs();
+        boolean newFile = !file.exists();
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, true)))
+        {
+            if (newFile)
+            {
+                bw.write(ENROLLMENT_HEADER);
+                bw.newLine();
+            }
+            for (Enrollment en : rows)
+            {
+                bw.write(String.join(",", en.getEnrollmentId(), en.getStudentId(), en.getCourseId(), en.getYear(),
+                        en.getSemester(), en.getExamScore(), en.getAssignmentScore()));
+                bw.newLine();
+            }
+        }
+        return new EnrollmentPartition(partition.getProgramId(), partition.getYear(), partition.getFile(), partition.getRows() + rows.size());
+    }
+
+    private List<EnrollmentPartition> readManifest()
+    {
+        List<EnrollmentPartition> result = new ArrayList<>();
+        File manifest = root.resolve(MANIFEST).toFile();
+        if (!manifest.exists())
+        {
+            return result;
+        }
+
+        try (BufferedReader br = new BufferedReader(new FileReader(manifest)))
+        {
+            String line;
+            br.readLine();
+
+            while ((line = br.readLine()) != null)
+            {
+                String[] data = line.split(",");
+                if (data.length >= 4)
+                {
+                    result.add(new EnrollmentPartition(IdPool.PROGRAMS.intern(data[0].trim()), Integer.parseInt(data[1].trim()),
+                            data[2].trim(), Integer.parseInt(data[3].trim())));
+                }
+            }
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            Log.error("PartitionedEnrollmentStore", "Failed to read partition manifest: " + e.getMessage());
+        }
+        return result;
+    }
+
+    // Written to a temporary file and moved into place, so readers never see half a manifest
+    private void writeManifest(List<EnrollmentPartition> written) throws IOException
+    {
+        Files.createDirectories(root);
+        Path temp = root.resolve(MANIFEST + ".tmp");
+        try (BufferedWriter bw = Files.newBufferedWriter(temp))
+        {
+            bw.write(MANIFEST_HEADER);
+            bw.newLine();
+            for (EnrollmentPartition partition : written)
+            {
+                bw.write(partition.getProgramId() + "," + partition.getYear() + "," + partition.getFile() + "," + partition.getRows());
+                bw.newLine();
+            }
+        }
+        Files.move(temp, root.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        partitions = Collections.unmodifiableList(written);
+    }
+
+    private static Map<String, String> programsByStudent(DataAccess data)
+    {
+        Map<String, String> programs = new HashMap<>();
+        for (Student s : data.studentList())
+        {
+            programs.put(s.getStudentId().trim(), IdPool.PROGRAMS.intern(s.getProgramId().trim()));
+        }
+        return programs;
+    }
+
+    private static String programOf(Enrollment en, Map<String, String> programs)
+    {
+        return programs.getOrDefault(en.getStudentId().trim(), NO_PROGRAM);
+    }
+
+    private static String partitionFile(int generation, String programId, String year)
+    {
+        return "gen-" + generation + "/program=" + programId + "/year=" + year + ".csv";
+    }
+
+    // The generation the manifest refers to, or -1 if it lists no partitions
+    private int currentGeneration()
+    {
+        for (EnrollmentPartition partition : getPartitions())
+        {
+            Matcher m = GENERATION.matcher(Paths.get(partition.getFile()).getName(0).toString());
+            if (m.matches())
+            {
+                return Integer.parseInt(m.group(1));
+            }
+        }
+        return -1;
+    }
+
+    private int nextGeneration()
+    {
+        int latest = 0;
+        File[] children = root.toFile().listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                Matcher m = GENERATION.matcher(child.getName());
+                if (m.matches())
+                {
+                    latest = Math.max(latest, Integer.parseInt(m.group(1)));
+                }
+            }
+        }
+        return latest + 1;
+    }
+
+    // Deletes older generations and anything else the manifest cannot refer to
+    private void removeGenerationsBefore(int oldest)
+    {
+        File[] children = root.toFile().listFiles();
+        if (children == null)
+        {
+            return;
+        }
+        for (File child : children)
+        {
+            Matcher m = GENERATION.matcher(child.getName());
+            if (child.getName().equals(MANIFEST) || (m.matches() && Integer.parseInt(m.group(1)) >= oldest))
+            {
+                continue;
+            }
+            Path removed = child.toPath();
+            parsed.keySet().removeIf(path -> path.startsWith(removed));
+            try
+            {
+                deleteTree(removed);
+            }
+            catch (IOException e)
+            {
+                Log.warn("PartitionedEnrollmentStore", "Failed to remove old partitions " + removed + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void deleteTree(Path directory) throws IOException
+    {
+        if (!Files.exists(directory))
+        {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory))
+        {
+            paths = walk.sorted(Collections.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths)
+        {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Keeps the partitions in step with the enrollment file once they exist. The
+     * work is queued on the rebuilder thread, so the data cache is not held up.
+     */
+    private class EnrollmentListener implements DataCache.Listener
+    {
+        @Override
+        public void tableChanged(DataTable table)
+        {
+            if ((table == DataTable.ENROLLMENTS || table == DataTable.STUDENTS) && Files.exists(root.resolve(MANIFEST)))
+            {
+                rebuilder.execute(() -> rebuild(new DataAccess()));
+            }
+        }
+
+        @Override
+        public void rowsAppended(DataTable table, List<?> rows)
+        {
+            if (table != DataTable.ENROLLMENTS)
+            {
+                tableChanged(table);
+            }
+            else if (Files.exists(root.resolve(MANIFEST)))
+            {
+                List<Enrollment> enrollments = new ArrayList<>(rows.size());
+                for (Object row : rows)
+                {
+                    enrollments.add((Enrollment) row);
+                }
+                long version = DataCache.getInstance().getVersion(DataTable.ENROLLMENTS);
+                rebuilder.execute(() -> append(enrollments, version));
+            }
+        }
+    }
+
+    // Generations are never rewritten, only appended to, so the rows read so far stay valid
+    private static final class PartitionRows
+    {
+        final List<Enrollment> rows;
+
+        PartitionRows(List<Enrollment> rows)
+        {
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package data_access;
+
+import logging.Log;
+import model.Enrollment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Closed semesters moved out of the live enrollment file into {@link SemesterSegment}s
+ * under data/archive (one file per year and semester, e.g. y1s2.seg).
+ *
+ * Segments never change once written, so their summaries and rows are read once
+ * and kept in memory. After a semester is sealed, the live CSV only holds the
+ * open terms and is the only file that is parsed again when it changes.
+ * {@link DataAccess#enrollmentList()} still returns archived and live rows together.
+ *
+ * Sealing holds an exclusive lock on the live file while it copies the rows that
+ * stay, so programs that append to the enrollment file should lock it while they
+ * write. If sealing stops after the segment is written but before the live file
+ * is rewritten, the sealed rows are in both; {@link #unsealed} leaves the live
+ * copies out and the next seal removes them from the file.
+ */
+public final class SemesterArchive
+{
+    private static final String EXTENSION = ".seg";
+
+    private static SemesterArchive instance;
+
+    private final Path directory;
+    private volatile List<SemesterSegment> segments;
+    private volatile List<Enrollment> archivedRows;
+
+    // The last live snapshot seen by withArchived and the combined list built from it
+    private List<Enrollment> lastLive;
+    private List<Enrollment> lastCombined;
+    // The last snapshot of the live file seen by unsealed and its rows outside sealed semesters
+    private List<Enrollment> lastFile;
+    private List<Enrollment> lastUnsealed;
+
+    public SemesterArchive(String directory)
+    {
+        this.directory = Paths.get(directory);
+    }
+
+    public static synchronized SemesterArchive getInstance()
+    {
+        if (instance == null)
+        {
+            instance = new SemesterArchive("data/archive");
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the summaries of every sealed semester, oldest first.
+     */
+    public List<SemesterSegment> getSegments()
+    {
+        List<SemesterSegment> current = segments;
+        if (current == null)
+        {
+            synchronized (this)
+            {
+                current = segments;
+                if (current == null)
+                {
+                    current = readSegments();
+                    segments = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public boolean isSealed(int year, int semester)
+    {
+        return Files.exists(segmentFile(year, semester));
+    }
+
+    /**
+     * Returns every archived enrollment row, inflating the segments on first use.
+     */
+    public List<Enrollment> getArchivedRows()
+    {
+        List<Enrollment> current = archivedRows;
+        if (current == null)
+        {
+            synchronized (this)
+            {
+                current = archivedRows;
+                if (current == null)
+                {
+                    current = readArchivedRows();
+                    archivedRows = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns the rows of the live enrollment file that are not in a sealed
+     * semester. The result is kept until the snapshot or the archive changes.
+     */
+    public synchronized List<Enrollment> unsealed(List<Enrollment> file)
+    {
+        if (file != lastFile || lastUnsealed == null)
+        {
+            Set<Integer> sealedTerms = sealedTerms();
+            List<Enrollment> kept = file;
+            if (!sealedTerms.isEmpty())
+            {
+                kept = new ArrayList<>(file.size());
+                for (Enrollment en : file)
+                {
+                    if (!sealedTerms.contains(term(en.getYear(), en.getSemester())))
+                    {
+                        kept.add(en);
+                    }
+                }
+                if (kept.size() == file.size())
+                {
+                    kept = file;
+                }
+                else
+                {
+                    Log.warn("SemesterArchive", (file.size() - kept.size()) + " live rows belong to sealed semesters and are ignored.");
+                    kept = Collections.unmodifiableList(kept);
+                }
+            }
+            lastFile = file;
+            lastUnsealed = kept;
+        }
+        return lastUnsealed;
+    }
+
+    /**
+     * Returns the archived rows followed by the given live rows. The combined list
+     * is kept until the live snapshot or the archive changes.
+     */
+    public synchronized List<Enrollment> withArchived(List<Enrollment> live)
+    {
+        if (getSegments().isEmpty())
+        {
+            return live;
+        }
+        if (live != lastLive || lastCombined == null)
+        {
+            List<Enrollment> archived = getArchivedRows();
+            List<Enrollment> combined = new ArrayList<>(archived.size() + live.size());
+            combined.addAll(archived);
+            combined.addAll(live);
+            lastLive = live;
+            lastCombined = Collections.unmodifiableList(combined);
+        }
+        return lastCombined;
+    }
+
+    /**
+     * Seals a semester: writes its rows and per-student totals to a segment, then
+     * rewrites the live enrollment file without them. Both are taken from the file
+     * itself under an exclusive lock, and the remaining lines are copied unchanged.
+     *
+     * @param summarizer Computes the per-student totals of the semester's rows
+     * @return The number of rows archived (0 if the live file has none for that
+     *         semester), or -1 if it was already sealed or could not be written
+     */
+    public int seal(int year, int semester, Function<List<Enrollment>, Map<String, SemesterSegment.StudentTotals>> summarizer)
+    {
+        int rows = sealFiles(year, semester, summarizer);
+        if (rows > 0)
+        {
+            // Outside the archive lock: listeners of the reload read the archive again
+            DataCache.getInstance().reload(DataTable.ENROLLMENTS);
+            Log.info("SemesterArchive", "Sealed year " + year + " semester " + semester + " (" + rows + " rows).");
+        }
+        return rows;
+    }
+
+    private synchronized int sealFiles(int year, int semester, Function<List<Enrollment>, Map<String, SemesterSegment.StudentTotals>> summarizer)
+    {
+        if (isSealed(year, semester))
+        {
+            Log.warn("SemesterArchive", "Year " + year + " semester " + semester + " is already sealed.");
+            return -1;
+        }
+
+        int term = term(String.valueOf(year), String.valueOf(semester));
+        Set<Integer> sealedTerms = sealedTerms();
+        Path live = Paths.get(DataTable.ENROLLMENTS.getPath());
+        Path liveTemp = Paths.get(DataTable.ENROLLMENTS.getPath() + ".tmp");
+        List<Enrollment> sealed = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(live, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            // Held until the channel closes, after the new live file is in place, so no
+            // appended row falls between the read and the move
+            channel.lock();
+            ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+            int read;
+            do
+            {
+                read = channel.read(content);
+            }
+            while (read >= 0 && content.hasRemaining());
+            byte[] bytes = content.array();
+            int length = content.position();
+
+            // The header and every remaining line are copied byte for byte, line endings included
+            ByteArrayOutputStream remaining = new ByteArrayOutputStream(length);
+            int start = 0;
+            boolean header = true;
+            while (start < length)
+            {
+                int end = start;
+                while (end < length && bytes[end] != '\n')
+                {
+                    end++;
+                }
+                int next = end < length ? end + 1 : end;
+                String line = new String(bytes, start, end - start, StandardCharsets.UTF_8).trim();
+                String[] data = line.split(",");
+                Integer rowTerm = header || data.length < 7 ? null : parseTerm(data[3], data[4]);
+
+                if (rowTerm != null && rowTerm == term)
+                {
+                    sealed.add(new Enrollment(data[0], IdPool.STUDENTS.intern(data[1].trim()), IdPool.COURSES.intern(data[2].trim()),
+                            data[3], data[4], data[5], data[6]));
+                }
+                else if (rowTerm == null || !sealedTerms.contains(rowTerm))
+                {
+                    // Rows of semesters sealed earlier are left over from an interrupted seal and dropped
+                    remaining.write(bytes, start, next - start);
+                }
+                header = false;
+                start = next;
+            }
+            if (sealed.isEmpty())
+            {
+                Log.warn("SemesterArchive", "No live rows for year " + year + " semester " + semester + ", nothing to seal.");
+                return 0;
+            }
+
+            Files.createDirectories(directory);
+            Path temp = directory.resolve(segmentFile(year, semester).getFileName() + ".tmp");
+            SemesterSegment.write(temp, year, semester, sealed, summarizer.apply(sealed));
+            Files.move(temp, segmentFile(year, semester), StandardCopyOption.ATOMIC_MOVE);
+
+            // The segment is in place before the rows leave the live file, so a crash never loses them
+            Files.write(liveTemp, remaining.toByteArray());
+            Files.move(liveTemp, live, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            Log.error("SemesterArchive", "Failed to seal year " + year + " semester " + semester + ": " + e.getMessage());
+            return -1;
+        }
+        finally
+        {
+            // The segment may exist even if the live file could not be rewritten
+            segments = null;
+            archivedRows = null;
+            lastCombined = null;
+            lastUnsealed = null;
+        }
+        return sealed.size();
+    }
+
+    // Year * 100 + semester of every sealed semester
+    private Set<Integer> sealedTerms()
+    {
+        Set<Integer> terms = new HashSet<>();
+        for (SemesterSegment segment : getSegments())
+        {
+            terms.add(segment.getYear() * 100 + segment.getSemester());
+        }
+        return terms;
+    }
+
+    private static int term(String year, String semester)
+    {
+        return Integer.parseInt(year.trim()) * 100 + Integer.parseInt(semester.trim());
+    }
+
+    // The term of a row from the file, or null if it is not a number
+    private static Integer parseTerm(String year, String semester)
+    {
+        try
+        {
+            return term(year, semester);
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    private List<SemesterSegment> readSegments()
+    {
+        List<SemesterSegment> result = new ArrayList<>();
+        for (Path file : segmentFiles())
+        {
+            try
+            {
+                result.add(SemesterSegment.readSummary(file));
+            }
+            catch (IOException e)
+            {
+                Log.error("SemesterArchive", "Failed to read archive segment " + file + ": " + e.getMessage());
+            }
+        }
+        result.sort(Comparator.comparingInt(SemesterSegment::getYear).thenComparingInt(SemesterSegment::getSemester));
+        return Collections.unmodifiableList(result);
+    }
+
+    private List<Enrollment> readArchivedRows()
+    {
+        List<Enrollment> rows = new ArrayList<>();
+        for (SemesterSegment segment : getSegments())
+        {
+            try
+            {
+                rows.addAll(SemesterSegment.readRows(segmentFile(segment.getYear(), segment.getSemester())));
+            }
+            catch (IOException e)
+            {
+                Log.error("SemesterArchive", "Failed to read archived rows: " + e.getMessage());
+            }
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    private List<Path> segmentFiles()
+    {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory))
+        {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION))
+        {
+            for (Path file : stream)
+            {
+                files.add(file);
+            }
+        }
+        catch (IOException e)
+        {
+            Log.error("SemesterArchive", "Failed to list archive segments: " + e.getMessage());
+        }
+        return files;
+    }
+
+    private Path segmentFile(int year, int semester)
+    {
+        return directory.resolve("y" + year + "s" + semester + EXTENSION);
+    }
+}
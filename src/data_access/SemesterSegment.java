@@ -0,0 +1,226 @@
+package data_access;
+
+import model.Enrollment;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * One closed semester sealed into an immutable binary file.
+ *
+ * Layout:
+ * - header: magic, format version, year, semester, row count
+ * - summary: for each student, credits, credit-weighted grade points and failed courses
+ * - rows: length, CRC32 and the Deflater-compressed enrollment rows
+ *
+ * The summary is stored uncompressed in front of the rows, so {@link #readSummary}
+ * can compute CGPA contributions without inflating or parsing a single row.
+ */
+public final class SemesterSegment
+{
+    private static final int MAGIC = 0x4F4F4453;
+    private static final short VERSION = 1;
+
+    private final int year;
+    private final int semester;
+    private final int rowCount;
+    private final Map<String, StudentTotals> totals;
+
+    private SemesterSegment(int year, int semester, int rowCount, Map<String, StudentTotals> totals)
+    {
+        this.year = year;
+        this.semester = semester;
+        this.rowCount = rowCount;
+        this.totals = totals;
+    }
+
+    public int getYear()
+    {
+        return year;
+    }
+
+    public int getSemester()
+    {
+        return semester;
+    }
+
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Returns the per-student totals of this semester, keyed by student ID.
+     */
+    public Map<String, StudentTotals> getTotals()
+    {
+        return totals;
+    }
+
+    /**
+     * Writes a segment file.
+     */
+    public static void write(Path file, int year, int semester, List<Enrollment> rows, Map<String, StudentTotals> totals) throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(compressed, deflater)))
+        {
+            for (Enrollment en : rows)
+            {
+                out.writeUTF(en.getEnrollmentId());
+                out.writeUTF(en.getStudentId());
+                out.writeUTF(en.getCourseId());
+                out.writeUTF(en.getExamScore());
+                out.writeUTF(en.getAssignmentScore());
+            }
+        }
+        finally
+        {
+            deflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(compressed.toByteArray());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(year);
+            out.writeInt(semester);
+            out.writeInt(rows.size());
+
+            out.writeInt(totals.size());
+            for (Map.Entry<String, StudentTotals> entry : totals.entrySet())
+            {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().getCredits());
+                out.writeDouble(entry.getValue().getGradePoints());
+                out.writeInt(entry.getValue().getFailedCourses());
+            }
+
+            out.writeInt(compressed.size());
+            out.writeLong(crc.getValue());
+            compressed.writeTo(out);
+        }
+    }
+
+    /**
+     * Reads the header and per-student summary of a segment, stopping before the rows.
+     */
+    public static SemesterSegment readSummary(Path file) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            return readHeader(in, file);
+        }
+    }
+
+    /**
+     * Inflates and returns the enrollment rows of a segment.
+     */
+    public static List<Enrollment> readRows(Path file) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            SemesterSegment segment = readHeader(in, file);
+            int length = in.readInt();
+            long expectedCrc = in.readLong();
+            byte[] compressed = new byte[length];
+            in.readFully(compressed);
+
+            CRC32 crc = new CRC32();
+            crc.update(compressed);
+            if (crc.getValue() != expectedCrc)
+            {
+                throw new IOException("Corrupt archive segment " + file);
+            }
+
+            String year = String.valueOf(segment.year);
+            String semester = String.valueOf(segment.semester);
+            List<Enrollment> rows = new ArrayList<>(segment.rowCount);
+            try (DataInputStream rowsIn = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed))))
+            {
+                for (int i = 0; i < segment.rowCount; i++)
+                {
+                    String enrollmentId = rowsIn.readUTF();
+                    String studentId = IdPool.STUDENTS.intern(rowsIn.readUTF());
+                    String courseId = IdPool.COURSES.intern(rowsIn.readUTF());
+                    rows.add(new Enrollment(enrollmentId, studentId, courseId, year, semester, rowsIn.readUTF(), rowsIn.readUTF()));
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static SemesterSegment readHeader(DataInputStream in, Path file) throws IOException
+    {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION)
+        {
+            throw new IOException("Not an archive segment: " + file);
+        }
+        int year = in.readInt();
+        int semester = in.readInt();
+        int rowCount = in.readInt();
+
+        int students = in.readInt();
+        Map<String, StudentTotals> totals = new HashMap<>(students * 2);
+        for (int i = 0; i < students; i++)
+        {
+            String studentId = IdPool.STUDENTS.intern(in.readUTF());
+            totals.put(studentId, new StudentTotals(in.readInt(), in.readDouble(), in.readInt()));
+        }
+        return new SemesterSegment(year, semester, rowCount, Collections.unmodifiableMap(totals));
+    }
+
+    /**
+     * Credit and grade point totals of one student.
+     */
+    public static final class StudentTotals
+    {
+        private final int credits;
+        private final double gradePoints;
+        private final int failedCourses;
+
+        public StudentTotals(int credits, double gradePoints, int failedCourses)
+        {
+            this.credits = credits;
+            this.gradePoints = gradePoints;
+            this.failedCourses = failedCourses;
+        }
+
+        public int getCredits()
+        {
+            return credits;
+        }
+
+        /**
+         * Returns the sum of grade point times credit hours.
+         */
+        public double getGradePoints()
+        {
+            return gradePoints;
+        }
+
+        public int getFailedCourses()
+        {
+            return failedCourses;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.File;
+
+/**
+ * Flight Recorder event emitted around each CSV file load in DataAccess.
+ * Records the file that was read, how many data rows were parsed and the file size.
+ */
+@Name("oodj.DataLoad")
+@Label("Data File Load")
+@Category({"OODJ", "Data Access"})
+@Description("Reading and parsing one of the CSV data files")
+@StackTrace(false)
+public class DataLoadEvent extends Event
+{
+    @Label("File")
+    private String file;
+
+    @Label("Rows")
+    private int rows;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    public DataLoadEvent(String file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Ends the event and commits it if recording is enabled.
+     * The file size is only looked up when the event is actually committed.
+     *
+     * @param rows The number of data rows parsed (header excluded)
+     */
+    public void finish(int rows)
+    {
+        end();
+        if (shouldCommit())
+        {
+            this.rows = rows;
+            this.bytes = new File(file).length();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted around StudentPerformance.getPerformance.
+ * Records which student was calculated and how much data had to be joined.
+ */
+@Name("oodj.PerformanceCalculation")
+@Label("Student Performance Calculation")
+@Category({"OODJ", "Performance"})
+@Description("Joining a student's enrollments with the course list and calculating CGPA")
+@StackTrace(false)
+public class PerformanceCalculationEvent extends Event
+{
+    @Label("Student ID")
+    private String studentId;
+
+    @Label("Enrollments")
+    private int enrollments;
+
+    @Label("Courses")
+    private int courses;
+
+    @Label("CGPA")
+    private double cgpa;
+
+    public PerformanceCalculationEvent(String studentId)
+    {
+        this.studentId = studentId;
+    }
+
+    /**
+     * Ends the event and commits it if recording is enabled.
+     *
+     * @param enrollments The number of enrollment rows found for the student
+     * @param courses     The number of course rows joined against
+     * @param cgpa        The calculated CGPA
+     */
+    public void finish(int enrollments, int courses, double cgpa)
+    {
+        end();
+        if (shouldCommit())
+        {
+            this.enrollments = enrollments;
+            this.courses = courses;
+            this.cgpa = cgpa;
+            commit();
+        }
+    }
+}
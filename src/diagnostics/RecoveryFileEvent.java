@@ -0,0 +1,77 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Flight Recorder event emitted around RecoveryFileManager reads and writes.
+ */
+@Name("oodj.RecoveryFile")
+@Label("Recovery Plan File Access")
+@Category({"OODJ", "Data Access"})
+@Description("Reading or writing the recovery plans file")
+@StackTrace(false)
+public class RecoveryFileEvent extends Event
+{
+    public static final String READ = "Read";
+    public static final String WRITE = "Write";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Student ID")
+    @Description("The student whose plan was written, empty for reads")
+    private String studentId;
+
+    @Label("Plans")
+    private int plans;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    public RecoveryFileEvent(String operation, String studentId)
+    {
+        this.operation = operation;
+        this.studentId = studentId;
+    }
+
+    /**
+     * Ends the event and commits it if recording is enabled.
+     *
+     * @param plans The number of plans read or written
+     * @param bytes The number of bytes read or written
+     */
+    public void finish(int plans, long bytes)
+    {
+        end();
+        if (shouldCommit())
+        {
+            this.plans = plans;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+
+    /**
+     * Like {@link #finish(int, long)}, but only asks for the byte count if the
+     * event is committed, for sizes that cost a file system call.
+     */
+    public void finish(int plans, LongSupplier bytes)
+    {
+        end();
+        if (shouldCommit())
+        {
+            this.plans = plans;
+            this.bytes = bytes.getAsLong();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Flight Recorder event emitted for each phase of GenerateReportPDF.createDocument.
+ * The phases are data gathering, table build and file write.
+ */
+@Name("oodj.ReportPhase")
+@Label("Report Generation Phase")
+@Category({"OODJ", "Reports"})
+@Description("One phase of generating a student's academic performance PDF")
+@StackTrace(false)
+public class ReportPhaseEvent extends Event
+{
+    public static final String DATA_GATHERING = "Data Gathering";
+    public static final String TABLE_BUILD = "Table Build";
+    public static final String FILE_WRITE = "File Write";
+
+    @Label("Student ID")
+    private String studentId;
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Rows")
+    private int rows;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    public ReportPhaseEvent(String studentId, String phase)
+    {
+        this.studentId = studentId;
+        this.phase = phase;
+    }
+
+    /**
+     * Ends the event and commits it if recording is enabled.
+     *
+     * @param rows  The number of enrollment rows handled in this phase
+     * @param bytes The number of bytes written (only known for the file write phase)
+     */
+    public void finish(int rows, long bytes)
+    {
+        end();
+        if (shouldCommit())
+        {
+            this.rows = rows;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+
+    /**
+     * Like {@link #finish(int, long)}, but only asks for the byte count if the
+     * event is committed, for sizes that cost a file system call.
+     */
+    public void finish(int rows, LongSupplier bytes)
+    {
+        end();
+        if (shouldCommit())
+        {
+            this.rows = rows;
+            this.bytes = bytes.getAsLong();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package domain;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The grade bands of a grading scheme as plain arrays, so alternative cut-offs
+ * can be tried without changing {@link GradingScheme}.
+ *
+ * {@link #current()} has the bands of GradingScheme. The with- methods return a
+ * changed copy; a policy itself never changes.
+ */
+public final class GradingPolicy
+{
+    private static final GradingPolicy CURRENT = fromScheme();
+
+    // One entry per band, highest band first
+    private final String[] grades;
+    private final double[] gradePoints;
+    private final double[] minScores;
+
+    private GradingPolicy(String[] grades, double[] gradePoints, double[] minScores)
+    {
+        this.grades = grades;
+        this.gradePoints = gradePoints;
+        this.minScores = minScores;
+    }
+
+    /**
+     * Returns the bands currently defined by {@link GradingScheme}.
+     */
+    public static GradingPolicy current()
+    {
+        return CURRENT;
+    }
+
+    private static GradingPolicy fromScheme()
+    {
+        GradingScheme[] bands = GradingScheme.values();
+        String[] grades = new String[bands.length];
+        double[] gradePoints = new double[bands.length];
+        double[] minScores = new double[bands.length];
+        for (int i = 0; i < bands.length; i++)
+        {
+            grades[i] = bands[i].getGrade();
+            gradePoints[i] = bands[i].getGpa();
+            minScores[i] = bands[i].getMinScore();
+        }
+        return new GradingPolicy(grades, gradePoints, minScores);
+    }
+
+    /**
+     * Returns a copy in which a grade starts at a different score.
+     *
+     * @throws IllegalArgumentException if the grade is unknown or the bands would overlap
+     */
+    public GradingPolicy withMinScore(String grade, double minScore)
+    {
+        return withMinScores(Collections.singletonMap(grade, minScore));
+    }
+
+    /**
+     * Returns a copy in which several grades start at different scores. The bands
+     * are only checked once every change is made, so neighbouring cut-offs can
+     * move past each other's old values.
+     *
+     * @param minScores The new minimum score of each changed grade
+     * @throws IllegalArgumentException if a grade is unknown or the bands would overlap
+     */
+    public GradingPolicy withMinScores(Map<String, Double> minScores)
+    {
+        double[] changed = Arrays.copyOf(this.minScores, this.minScores.length);
+        for (Map.Entry<String, Double> entry : minScores.entrySet())
+        {
+            changed[indexOf(entry.getKey())] = entry.getValue();
+        }
+        for (int band = 1; band < changed.length; band++)
+        {
+            if (changed[band] >= changed[band - 1])
+            {
+                throw new IllegalArgumentException("Minimum score " + changed[band] + " for " + grades[band]
+                        + " overlaps " + grades[band - 1] + " at " + changed[band - 1]);
+            }
+        }
+        return new GradingPolicy(grades, gradePoints, changed);
+    }
+
+    /**
+     * Returns a copy in which a grade is worth a different number of grade points.
+     *
+     * @throws IllegalArgumentException if the grade is unknown
+     */
+    public GradingPolicy withGradePoint(String grade, double gradePoint)
+    {
+        double[] changed = Arrays.copyOf(gradePoints, gradePoints.length);
+        changed[indexOf(grade)] = gradePoint;
+        return new GradingPolicy(grades, changed, minScores);
+    }
+
+    /**
+     * Returns the grade point of a final score; like {@link GradingScheme#forScore},
+     * a score below every band gets the lowest band.
+     */
+    public double gradePointFor(double score)
+    {
+        return gradePoints[bandOf(score)];
+    }
+
+    public String gradeFor(double score)
+    {
+        return grades[bandOf(score)];
+    }
+
+    public double getMinScore(String grade)
+    {
+        return minScores[indexOf(grade)];
+    }
+
+    private int bandOf(double score)
+    {
+        for (int i = 0; i < minScores.length; i++)
+        {
+            if (score >= minScores[i])
+            {
+                return i;
+            }
+        }
+        return minScores.length - 1;
+    }
+
+    private int indexOf(String grade)
+    {
+        for (int i = 0; i < grades.length; i++)
+        {
+            if (grades[i].equals(grade))
+            {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown grade " + grade);
+    }
+}
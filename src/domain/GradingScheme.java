@@ -39,5 +39,40 @@ public enum GradingScheme
     {
         return minScore;
     }
+
+    /**
+     * Finds the grade band a final score falls into.
+     *
+     * @param score The weighted final score (0 - 100)
+     * @return The matching grade, F_MINUS for anything below every band
+     */
+    public static GradingScheme forScore(double score)
+    {
+        for (GradingScheme gs : values())
+        {
+            if (score >= gs.minScore)
+            {
+                return gs;
+            }
+        }
+        return F_MINUS;
+    }
+
+    /**
+     * Finds a grade by its label (e.g. "B+").
+     *
+     * @return The matching grade, or null if the label is unknown
+     */
+    public static GradingScheme fromGrade(String grade)
+    {
+        for (GradingScheme gs : values())
+        {
+            if (gs.grade.equals(grade))
+            {
+                return gs;
+            }
+        }
+        return null;
+    }
 }
 
@@ -1,5 +1,7 @@
 package domain;
 
+import java.time.LocalDate;
+
 /**
  * The Milestone class represents a single task within a student's recovery plan.
  * Each milestone has a week, a task description, and a status to track progress.
@@ -7,6 +9,11 @@ package domain;
  */
 public class Milestone
 {
+    // The statuses a milestone moves through
+    public static final String PENDING = "Pending";
+    public static final String IN_PROGRESS = "In Progress";
+    public static final String COMPLETED = "Completed";
+
     // The week number or identifier for when this milestone should be completed (e.g., "Week 1")
     private String week;
     
@@ -15,6 +22,9 @@ public class Milestone
     
     // The current status of the milestone (e.g., "Pending", "In Progress", "Completed")
     private String status;
+    
+    // The last day of the milestone's week, or null if its plan has no start date
+    private LocalDate dueDate;
 
     /**
      * Constructor to create a new Milestone with all required attributes.
@@ -90,6 +100,49 @@ public class Milestone
         this.status = status;
     }
 
+    /**
+     * Gets the date this milestone is due.
+     * 
+     * @return The due date, or null if the plan is not anchored to a start date
+     */
+    public LocalDate getDueDate()
+    {
+        return dueDate;
+    }
+
+    /**
+     * Sets the date this milestone is due.
+     * 
+     * @param dueDate The new due date, or null for none
+     */
+    public void setDueDate(LocalDate dueDate)
+    {
+        this.dueDate = dueDate;
+    }
+
+    /**
+     * Returns the week number in the week identifier, e.g. 3 for "Week 3" or "3".
+     * 
+     * @return The week number, or -1 if the identifier contains no number
+     */
+    public int getWeekNumber()
+    {
+        int number = -1;
+        for (int i = 0; i < week.length(); i++)
+        {
+            char c = week.charAt(i);
+            if (Character.isDigit(c))
+            {
+                number = Math.max(number, 0) * 10 + (c - '0');
+            }
+            else if (number >= 0)
+            {
+                break;
+            }
+        }
+        return number;
+    }
+
     /**
      * Returns a string representation of this Milestone.
      * Format: week:task (useful for saving to file)
@@ -0,0 +1,71 @@
+package domain;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed catalog of permissions that can be granted to a {@link SystemRole}.
+ * Each permission owns one bit, so a role's permissions compile to a single long mask.
+ */
+public enum Permission
+{
+    MANAGE_USERS("Manage Users"),
+    AUTHORIZE_ENROLLMENT("Authorize Enrollment"),
+    MANAGE_PLANS("Manage Plans"),
+    SET_GRADES("Set Grades"),
+    VIEW_PROFILE("View Profile"),
+    CHECK_ELIGIBILITY("Check Eligibility"),
+    ENROLL("Enroll");
+
+    private static final Map<String, Permission> byLabel = new HashMap<>();
+
+    static
+    {
+        for (Permission permission : values())
+        {
+            byLabel.put(permission.label.toLowerCase(), permission);
+        }
+    }
+
+    private final String label;
+    private final long mask;
+
+    Permission(String label)
+    {
+        this.label = label;
+        this.mask = 1L << ordinal();
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+
+    public long getMask()
+    {
+        return mask;
+    }
+
+    /**
+     * Looks up a permission by its display label (case-insensitive).
+     *
+     * @return The permission, or null if the label is not in the catalog
+     */
+    public static Permission fromLabel(String label)
+    {
+        return label == null ? null : byLabel.get(label.trim().toLowerCase());
+    }
+
+    /**
+     * Combines several permissions into one mask.
+     */
+    public static long maskOf(Permission... permissions)
+    {
+        long mask = 0;
+        for (Permission permission : permissions)
+        {
+            mask |= permission.mask;
+        }
+        return mask;
+    }
+}
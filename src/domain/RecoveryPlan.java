@@ -1,5 +1,6 @@
 package domain;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +26,12 @@ public class RecoveryPlan
     
     // A list of milestones that make up this recovery plan
     private List<Milestone> milestones;
+    
+    // The position of this plan in the recovery plans file (-1 if it has not been loaded from it)
+    private int recordNumber = -1;
+    
+    // The first day of week 1 of the plan, or null if the milestones are not anchored to dates
+    private LocalDate startDate;
 
     /**
      * Constructor to create a new RecoveryPlan with all required attributes.
@@ -154,6 +161,70 @@ public class RecoveryPlan
     public void addMilestone(Milestone milestone)
     {
         this.milestones.add(milestone);
+        if (startDate != null)
+        {
+            milestone.setDueDate(dueDateOf(milestone, milestones.size() - 1));
+        }
+    }
+
+    /**
+     * Gets the date the plan starts on.
+     * 
+     * @return The first day of week 1, or null if the plan has no dates
+     */
+    public LocalDate getStartDate()
+    {
+        return startDate;
+    }
+
+    /**
+     * Anchors the plan to a start date and sets the due date of every milestone.
+     * A milestone for week N is due on the last day of week N, i.e. 7 * N - 1 days
+     * after the start date. A milestone whose week has no number is treated as
+     * week (position + 1).
+     * 
+     * @param startDate The first day of week 1, or null to remove the dates
+     */
+    public void setStartDate(LocalDate startDate)
+    {
+        this.startDate = startDate;
+        for (int i = 0; i < milestones.size(); i++)
+        {
+            Milestone milestone = milestones.get(i);
+            milestone.setDueDate(startDate == null ? null : dueDateOf(milestone, i));
+        }
+    }
+
+    // Works out the due date of the milestone at the given position from the start date
+    private LocalDate dueDateOf(Milestone milestone, int index)
+    {
+        int week = milestone.getWeekNumber();
+        if (week < 1)
+        {
+            week = index + 1;
+        }
+        return startDate.plusWeeks(week).minusDays(1);
+    }
+
+    /**
+     * Gets the position of this plan in the recovery plans file.
+     * Milestone status updates are stored against this number.
+     * 
+     * @return The zero-based record number, or -1 if the plan was not loaded from the file
+     */
+    public int getRecordNumber()
+    {
+        return recordNumber;
+    }
+
+    /**
+     * Sets the position of this plan in the recovery plans file.
+     * 
+     * @param recordNumber The zero-based record number
+     */
+    public void setRecordNumber(int recordNumber)
+    {
+        this.recordNumber = recordNumber;
     }
 
     /**
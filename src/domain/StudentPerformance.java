@@ -1,5 +1,8 @@
 package domain;
+import academic.RetakePolicy;
 import data_access.DataAccess;
+import diagnostics.PerformanceCalculationEvent;
+import service.AttemptHistoryStore;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,7 +20,19 @@ public class StudentPerformance
 
     public List<String[]> getPerformance(DataAccess data)
     {
-        List<String[]> enrollments = data.getEnrollments(new String[]{studentId});
+        return getPerformance(data, null);
+    }
+
+    /**
+     * Same as {@link #getPerformance(DataAccess)}, but with the student's program
+     * the enrollment rows are read from that program's partitions only.
+     */
+    public List<String[]> getPerformance(DataAccess data, String programId)
+    {
+        PerformanceCalculationEvent event = new PerformanceCalculationEvent(studentId);
+        event.begin();
+
+        List<String[]> enrollments = data.getEnrollments(studentId, programId);
         List<String[]> courses = data.getCourses(null);
         List<String[]> student_enrollments = new ArrayList<>();
 
@@ -36,26 +51,25 @@ public class StudentPerformance
                 }
             }
         }
-        this.cgpa /= totalCredits;
+        // Totals come from the attempt history, so retakes count as the retake policy says
+        AttemptHistoryStore attempts = AttemptHistoryStore.getInstance();
+        RetakePolicy policy = RetakePolicy.configured();
+        String id = studentId.trim();
+        this.cgpa = attempts.calculateCGPA(id, policy);
+        this.totalCredits = attempts.getCountedCredits(id, policy);
+        this.failedCourses = attempts.getFailedCourses(id, policy);
+        event.finish(enrollments.size(), courses.size(), cgpa);
         return student_enrollments;
     }
 
     public String[] getStudentEnrolledCourses(String[] course, double examScore, double assignmentScore)
     {
-        int creditHours = Integer.parseInt(course[2]);
         double examWeightage = Double.parseDouble(course[4]) / 100;
         double assignmentWeightage = Double.parseDouble(course[5]) / 100;
         double finalScore = (examScore * examWeightage) + (assignmentScore * assignmentWeightage);
         String grade = calculateGrade(finalScore)[0];
         double gpa = Double.parseDouble(calculateGrade(finalScore)[1]);
 
-        this.cgpa += gpa * creditHours;
-        this.totalCredits += creditHours;
-
-        if (gpa < 2.0)
-        {
-            this.failedCourses++;
-        }
         return new String[]{course[0], course[1], course[2], grade, String.valueOf(gpa)};
     }
 
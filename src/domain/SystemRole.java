@@ -1,20 +1,51 @@
 package domain;
 
+import logging.Log;
+
 import java.util.List;
 
 public class SystemRole {
     private String roleName;
     private List<String> permissionList;
+    private final long permissionMask;
 
     public SystemRole(String roleName,  List<String> permissionList) {
         this.roleName = roleName;
         this.permissionList = permissionList;
+        this.permissionMask = compile(roleName, permissionList);
+    }
+
+    // Compiles the permission names into one bit per catalog entry
+    private static long compile(String roleName, List<String> permissionList) {
+        long mask = 0;
+        for (String name : permissionList) {
+            Permission permission = Permission.fromLabel(name);
+            if (permission == null) {
+                Log.warn("SystemRole", "Unknown permission '" + name + "' in role " + roleName);
+            } else {
+                mask |= permission.getMask();
+            }
+        }
+        return mask;
     }
 
     public List<String> getPermissions() {
         return permissionList;
     }
 
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+
+    public boolean hasPermission(Permission permission) {
+        return (permissionMask & permission.getMask()) != 0;
+    }
+
+    public boolean hasPermission(String permission) {
+        Permission p = Permission.fromLabel(permission);
+        return p != null && hasPermission(p);
+    }
+
     //Getters
     public String getRoleName() {
         return roleName;
@@ -23,4 +54,4 @@ public class SystemRole {
     public void setRoleName(String roleName) {
         this.roleName = roleName;
     }
-}
\ No newline at end of file
+}
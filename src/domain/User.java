@@ -1,7 +1,8 @@
 package domain;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import logging.Log;
+import security.PasswordHasher;
+
 import java.util.Date;
 import java.util.List;
 
@@ -20,25 +21,15 @@ public abstract class User {
     }
 
     private String passwordHash(String password){
-        if (password == null) return null;
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e){
-            throw new RuntimeException("Fatal: SHA-256 algorithm not found", e);
-        }
+        return PasswordHasher.hash(password);
     }
 
     public abstract List<String> getPermissions();
 
+    public boolean hasPermission(Permission permission){
+        return isActive && role != null && role.hasPermission(permission);
+    }
+
     // FIX 1: Accepts inputPassword as an argument
     public boolean login(String inputPassword){
         if (!isActive) return false;
@@ -67,7 +58,7 @@ public abstract class User {
     }
 
     public void logActivity(String action){
-        System.err.println("[" + new Date() + "] " + userID + " performed: " + action);
+        Log.audit(userID, action);
     }
 
     //Getter and Setters
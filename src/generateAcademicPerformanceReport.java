@@ -1,7 +1,8 @@
 import javax.swing.*;
 import data_access.DataAccess;
 import org.jdesktop.swingx.autocomplete.*;
-import service.GenerateReportPDF;
+import scheduling.ReportJob;
+import scheduling.ReportJobScheduler;
 
 import java.awt.event.*;
 import java.util.List;
@@ -75,26 +76,32 @@ public class generateAcademicPerformanceReport extends JFrame {
         selectButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                String dialog;
-                String title;
-                int pane;
                 if (idCombobox.getSelectedIndex() != 0)
                 {
-                    GenerateReportPDF pdf = new GenerateReportPDF();
                     String studentId = idCombobox.getSelectedItem().toString().split("-")[0].trim();
-                    dialog = String.format("Academic performance report for student %s%ndownloaded to Downloads folder.", idCombobox.getSelectedItem().toString());
-                    title = "Success!";
-                    pane = JOptionPane.INFORMATION_MESSAGE;
+                    String selectedStudent = idCombobox.getSelectedItem().toString();
+                    selectButton.setEnabled(false);
 
-                    pdf.createDocument(studentId);
+                    // Interactive jobs are never queued behind batch report runs
+                    ReportJob job = ReportJobScheduler.getInstance().submitStudentReport(studentId, ReportJob.Priority.INTERACTIVE);
+                    job.getResult().whenComplete((path, error) -> SwingUtilities.invokeLater(() -> {
+                        selectButton.setEnabled(true);
+                        if (path != null)
+                        {
+                            String dialog = String.format("Academic performance report for student %s%ndownloaded to Downloads folder.", selectedStudent);
+                            JOptionPane.showMessageDialog(null, dialog, "Success!", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                        else
+                        {
+                            String dialog = String.format("Academic performance report for student %s%ncould not be generated.", selectedStudent);
+                            JOptionPane.showMessageDialog(null, dialog, "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }));
                 }
                 else
                 {
-                    dialog = "Please select a student to continue.";
-                    title = "Error";
-                    pane = JOptionPane.ERROR_MESSAGE;
+                    JOptionPane.showMessageDialog(null, "Please select a student to continue.", "Error", JOptionPane.ERROR_MESSAGE);
                 }
-                JOptionPane.showMessageDialog(null, dialog, title, pane);
             }
         });
     }
@@ -0,0 +1,95 @@
+package logging;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Append-only audit file for user activity with size based rotation.
+ *
+ * When the active file grows past {@code maxBytes} it is renamed to
+ * {@code audit.log.1}, older files shift up by one and the oldest is deleted.
+ * The background log writer appends to it; a caller writes an audit entry
+ * itself when the log buffer is full, so the methods are synchronized.
+ */
+final class AuditLog
+{
+    private final File file;
+    private final long maxBytes;
+    private final int maxBackups;
+    private BufferedWriter writer;
+    private long size;
+
+    AuditLog(String path, long maxBytes, int maxBackups)
+    {
+        this.file = new File(path);
+        this.maxBytes = maxBytes;
+        this.maxBackups = maxBackups;
+    }
+
+    synchronized void append(String line) throws IOException
+    {
+        if (writer == null)
+        {
+            open();
+        }
+        writer.write(line);
+        writer.newLine();
+        size += line.length() + 1;
+
+        if (size >= maxBytes)
+        {
+            rotate();
+        }
+    }
+
+    synchronized void flush() throws IOException
+    {
+        if (writer != null)
+        {
+            writer.flush();
+        }
+    }
+
+    synchronized void close() throws IOException
+    {
+        if (writer != null)
+        {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void open() throws IOException
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists())
+        {
+            parent.mkdirs();
+        }
+        writer = new BufferedWriter(new FileWriter(file, true));
+        size = file.length();
+    }
+
+    private void rotate() throws IOException
+    {
+        close();
+
+        File oldest = new File(file.getPath() + "." + maxBackups);
+        if (oldest.exists())
+        {
+            oldest.delete();
+        }
+        for (int i = maxBackups - 1; i >= 1; i--)
+        {
+            File backup = new File(file.getPath() + "." + i);
+            if (backup.exists())
+            {
+                backup.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+        }
+        file.renameTo(new File(file.getPath() + ".1"));
+        open();
+    }
+}
@@ -0,0 +1,13 @@
+package logging;
+
+/**
+ * Severity levels understood by {@link Log}, from least to most severe.
+ */
+public enum Level
+{
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    AUDIT
+}
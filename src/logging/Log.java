@@ -0,0 +1,202 @@
+package logging;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Leveled, asynchronous logger used by the DAO and service classes.
+ *
+ * Calling threads only create a small {@link LogEntry} and place it in a lock-free
+ * {@link RingBuffer}; formatting and writing to {@code System.err} is done by a single
+ * background daemon thread. {@link Level#AUDIT} entries are also appended to a rotating
+ * audit file ({@code logs/audit.log} by default). Other entries are dropped when the
+ * buffer is full; an audit entry is then written to the audit file by the caller.
+ *
+ * Configuration through system properties:
+ * - oodj.log.level: minimum level printed to the console (default INFO)
+ * - oodj.log.audit: path of the audit file (default logs/audit.log)
+ */
+public final class Log
+{
+    private static final int BUFFER_CAPACITY = 8192;
+    private static final long AUDIT_MAX_BYTES = 1024 * 1024;
+    private static final int AUDIT_BACKUPS = 5;
+
+    private static final Level threshold = Level.valueOf(System.getProperty("oodj.log.level", "INFO").toUpperCase());
+    private static final RingBuffer buffer = new RingBuffer(BUFFER_CAPACITY);
+    private static final AuditLog auditLog = new AuditLog(System.getProperty("oodj.log.audit", "logs/audit.log"), AUDIT_MAX_BYTES, AUDIT_BACKUPS);
+    private static final Thread writer = new Thread(Log::drainLoop, "log-writer");
+    private static volatile boolean running = true;
+
+    static
+    {
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::shutdown, "log-shutdown"));
+    }
+
+    private Log()
+    {
+    }
+
+    public static void debug(String source, String message)
+    {
+        log(Level.DEBUG, source, message);
+    }
+
+    public static void info(String source, String message)
+    {
+        log(Level.INFO, source, message);
+    }
+
+    public static void warn(String source, String message)
+    {
+        log(Level.WARN, source, message);
+    }
+
+    public static void error(String source, String message)
+    {
+        log(Level.ERROR, source, message);
+    }
+
+    /**
+     * Records a user action in the audit file. Audit entries are always kept,
+     * regardless of the console level.
+     *
+     * @param userId The user who performed the action
+     * @param action A description of the action
+     */
+    public static void audit(String userId, String action)
+    {
+        LogEntry entry = new LogEntry(System.currentTimeMillis(), Level.AUDIT, userId, action);
+        if (!buffer.offer(entry))
+        {
+            // Only the console copy is lost; the audit line is written here instead of by the writer
+            String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(entry.timestamp));
+            try
+            {
+                auditLog.append(time + "|" + userId + "|" + action);
+                auditLog.flush();
+            }
+            catch (IOException e)
+            {
+                System.err.println("ERROR: Failed to write audit log: " + e.getMessage());
+            }
+        }
+    }
+
+    public static boolean isEnabled(Level level)
+    {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    private static void log(Level level, String source, String message)
+    {
+        if (level.compareTo(threshold) >= 0)
+        {
+            buffer.offer(new LogEntry(System.currentTimeMillis(), level, source, message));
+        }
+    }
+
+    /**
+     * Body of the background writer thread. Drains the buffer in batches and backs
+     * off with short parks when there is nothing to write.
+     */
+    private static void drainLoop()
+    {
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        PrintStream out = System.err;
+        int idleRounds = 0;
+
+        while (running || !buffer.isEmpty())
+        {
+            if (drain(timeFormat, out) > 0)
+            {
+                idleRounds = 0;
+            }
+            else
+            {
+                idleRounds++;
+                LockSupport.parkNanos(idleRounds < 100 ? 100_000L : 10_000_000L);
+            }
+        }
+
+        // Closed here rather than by shutdown(), which may give up waiting while entries are still being written
+        try
+        {
+            auditLog.close();
+        }
+        catch (IOException e)
+        {
+            out.println("ERROR: Failed to close audit log: " + e.getMessage());
+        }
+    }
+
+    private static int drain(SimpleDateFormat timeFormat, PrintStream out)
+    {
+        int written = 0;
+        LogEntry entry;
+        StringBuilder line = new StringBuilder(128);
+
+        while ((entry = buffer.poll()) != null)
+        {
+            String time = timeFormat.format(new Date(entry.timestamp));
+            line.setLength(0);
+
+            if (entry.level == Level.AUDIT)
+            {
+                line.append('[').append(time).append("] ").append(entry.source).append(" performed: ").append(entry.message);
+                try
+                {
+                    auditLog.append(time + "|" + entry.source + "|" + entry.message);
+                }
+                catch (IOException e)
+                {
+                    out.println("ERROR: Failed to write audit log: " + e.getMessage());
+                }
+            }
+            else
+            {
+                line.append('[').append(time).append("] ").append(entry.level).append(' ')
+                    .append(entry.source).append(": ").append(entry.message);
+            }
+            out.println(line);
+            written++;
+        }
+
+        if (written > 0)
+        {
+            long dropped = buffer.takeDropped();
+            if (dropped > 0)
+            {
+                out.println("WARN: Log buffer full, dropped " + dropped + " entries.");
+            }
+            out.flush();
+            try
+            {
+                auditLog.flush();
+            }
+            catch (IOException e)
+            {
+                out.println("ERROR: Failed to flush audit log: " + e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    private static void shutdown()
+    {
+        running = false;
+        try
+        {
+            writer.join(2000);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package logging;
+
+/**
+ * A single log record waiting in the ring buffer.
+ * Entries are immutable and only formatted by the background writer.
+ */
+final class LogEntry
+{
+    final long timestamp;
+    final Level level;
+    final String source;
+    final String message;
+
+    LogEntry(long timestamp, Level level, String source, String message)
+    {
+        this.timestamp = timestamp;
+        this.level = level;
+        this.source = source;
+        this.message = message;
+    }
+}
@@ -0,0 +1,87 @@
+package logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer.
+ *
+ * Producers claim a sequence number with a CAS on {@code head} and then publish
+ * their entry into the claimed slot. The consumer walks {@code tail} forward and
+ * waits on a slot until it is published. When the buffer is full the entry is
+ * dropped and counted instead of blocking the caller.
+ */
+final class RingBuffer
+{
+    private final AtomicReferenceArray<LogEntry> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long tail;
+
+    RingBuffer(int capacity)
+    {
+        if (Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds an entry without blocking.
+     *
+     * @return true if the entry was queued, false if the buffer was full
+     */
+    boolean offer(LogEntry entry)
+    {
+        long claimed;
+        do
+        {
+            claimed = head.get();
+            if (claimed - tail > mask)
+            {
+                dropped.increment();
+                return false;
+            }
+        }
+        while (!head.compareAndSet(claimed, claimed + 1));
+
+        slots.lazySet((int) (claimed & mask), entry);
+        return true;
+    }
+
+    /**
+     * Removes the next published entry. Must only be called by the consumer thread.
+     *
+     * @return the entry, or null if nothing has been published yet
+     */
+    LogEntry poll()
+    {
+        long current = tail;
+        int index = (int) (current & mask);
+        LogEntry entry = slots.get(index);
+        if (entry == null)
+        {
+            return null;
+        }
+        slots.lazySet(index, null);
+        tail = current + 1;
+        return entry;
+    }
+
+    boolean isEmpty()
+    {
+        return head.get() == tail;
+    }
+
+    /**
+     * Returns and resets the number of entries dropped because the buffer was full.
+     */
+    long takeDropped()
+    {
+        return dropped.sumThenReset();
+    }
+}
@@ -0,0 +1,23 @@
+package model;
+
+/**
+ * Simple ProgramCourse data class for CSV data access.
+ * This class represents a row from courses_in_program.csv.
+ */
+public class ProgramCourse {
+    private String programId;
+    private String courseId;
+
+    public ProgramCourse(String programId, String courseId) {
+        this.programId = programId;
+        this.courseId = courseId;
+    }
+
+    public String getProgramId() {
+        return programId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+}
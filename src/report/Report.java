@@ -15,13 +15,19 @@ public class Report{
     }
 
     public String getContent(){
-        return String.format("Report Content for %s (CGPA: %.2f) generated on %s",
+        return String.format("Report Content for %s (CGPA: %.2f, Credits: %d, Failed Courses: %d) generated on %s",
                 sourceProfile.getStudentID(),
                 sourceProfile.getCGPA(),
+                sourceProfile.getTotalCredits(),
+                sourceProfile.getTotalFailedCourse(),
                 generationDate);
     }
 
     public String getReportID(){
         return reportID;
     }
-}
\ No newline at end of file
+
+    public AcademicProfile getSourceProfile(){
+        return sourceProfile;
+    }
+}
@@ -0,0 +1,190 @@
+package scheduling;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for timers that lie far apart in time, such as
+ * milestone deadlines spread over weeks and months.
+ *
+ * A single {@link TimingWheel} keeps far-away timers in its buckets with a round
+ * count, so every rotation visits them again. This wheel instead has several
+ * levels of 64 buckets: level 0 covers 64 ticks, level 1 covers 64 x 64 ticks,
+ * and so on. A timer is put in the lowest level whose range reaches its deadline.
+ * Whenever a level completes a rotation, the next bucket of the level above is
+ * emptied into the levels below it. A timer is therefore moved at most once per
+ * level and is only looked at again when it is close to expiring. Timers beyond
+ * the top level wait in an overflow list that is redistributed when the top
+ * level rotates.
+ *
+ * Scheduling and cancelling are O(1). The timers use the same
+ * {@link TimingWheel.Timeout} handles as the single wheel.
+ *
+ * This class is not thread-safe; callers synchronize around it.
+ *
+ * @param <T> The type of item carried by each timer
+ */
+public class HierarchicalTimingWheel<T>
+{
+    private static final int LEVEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << LEVEL_BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final long tickMillis;
+    private final TimingWheel.Bucket<T>[][] levels;
+    private final TimingWheel.Bucket<T> overflow = new TimingWheel.Bucket<>();
+
+    // The last tick that was processed
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis  The time covered by each bucket of level 0
+     * @param levelCount  The number of levels; each one multiplies the range by 64
+     * @param startMillis The time the wheel starts at
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HierarchicalTimingWheel(long tickMillis, int levelCount, long startMillis)
+    {
+        if (tickMillis <= 0)
+        {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (levelCount < 1 || levelCount * LEVEL_BITS >= 63)
+        {
+            throw new IllegalArgumentException("levelCount must be between 1 and " + (62 / LEVEL_BITS));
+        }
+        this.tickMillis = tickMillis;
+        this.levels = new TimingWheel.Bucket[levelCount][WHEEL_SIZE];
+        for (TimingWheel.Bucket<T>[] level : levels)
+        {
+            for (int i = 0; i < WHEEL_SIZE; i++)
+            {
+                level[i] = new TimingWheel.Bucket<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an item to expire at the given time. Items never fire early;
+     * they fire at most one tick late. Deadlines in the past expire on the next tick.
+     *
+     * @return A handle that can be passed to {@link #cancel}
+     */
+    public TimingWheel.Timeout<T> schedule(T item, long deadlineMillis)
+    {
+        TimingWheel.Timeout<T> timeout = new TimingWheel.Timeout<>(item, deadlineMillis);
+        place(timeout, currentTick + 1);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Removes a pending timer. Cancelling a timer that already fired or was
+     * already cancelled does nothing.
+     *
+     * @return true if the timer was pending
+     */
+    public boolean cancel(TimingWheel.Timeout<T> timeout)
+    {
+        if (timeout == null || timeout.bucket == null)
+        {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time and hands every expired item
+     * to the consumer. The consumer may schedule new timers.
+     *
+     * @return The number of items that expired
+     */
+    public int advance(long nowMillis, Consumer<T> expired)
+    {
+        long targetTick = nowMillis / tickMillis;
+        int fired = 0;
+
+        while (currentTick < targetTick)
+        {
+            if (size == 0)
+            {
+                // Nothing can fire or cascade, so skip straight to the target
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            cascade();
+
+            TimingWheel.Bucket<T> bucket = levels[0][(int) (currentTick & MASK)];
+            TimingWheel.Timeout<T> timeout;
+            while ((timeout = bucket.head) != null)
+            {
+                bucket.remove(timeout);
+                size--;
+                fired++;
+                expired.accept(timeout.item);
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Returns the number of pending timers.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    // Empties the buckets of the higher levels whose time has come into the levels below
+    private void cascade()
+    {
+        for (int level = 1; level <= levels.length; level++)
+        {
+            int shift = LEVEL_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0)
+            {
+                return;
+            }
+            TimingWheel.Bucket<T> bucket = level < levels.length
+                    ? levels[level][(int) ((currentTick >>> shift) & MASK)]
+                    : overflow;
+            // Detach the whole list first: overflow timers may go straight back into it
+            TimingWheel.Timeout<T> timeout = bucket.head;
+            bucket.head = null;
+            while (timeout != null)
+            {
+                TimingWheel.Timeout<T> next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                place(timeout, currentTick);
+                timeout = next;
+            }
+        }
+    }
+
+    /*
+     * Puts a timer in the lowest level that reaches its tick. New timers start at
+     * the next tick; timers moved down by a cascade may be due on the tick that is
+     * being processed, whose level 0 bucket is emptied right after the cascade.
+     */
+    private void place(TimingWheel.Timeout<T> timeout, long earliestTick)
+    {
+        long tick = Math.max((timeout.deadlineMillis + tickMillis - 1) / tickMillis, earliestTick);
+        long delta = tick - currentTick;
+
+        for (int level = 0; level < levels.length; level++)
+        {
+            int shift = LEVEL_BITS * level;
+            if (delta < 1L << (shift + LEVEL_BITS))
+            {
+                levels[level][(int) ((tick >>> shift) & MASK)].add(timeout);
+                return;
+            }
+        }
+        overflow.add(timeout);
+    }
+}
@@ -0,0 +1,188 @@
+package scheduling;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+/**
+ * A report request queued on the {@link ReportJobScheduler}.
+ *
+ * Status and progress are written by the worker thread and may be read from
+ * any thread, including the Swing event thread.
+ */
+public final class ReportJob
+{
+    public enum Priority
+    {
+        /** Requested by an officer who is waiting for the file. */
+        INTERACTIVE,
+        /** Bulk or scheduled generation that nobody is waiting on. */
+        BATCH
+    }
+
+    public enum Status
+    {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED,
+        CANCELLED
+    }
+
+    /**
+     * The work a job performs.
+     */
+    @FunctionalInterface
+    public interface Task
+    {
+        /**
+         * @param progress Accepts the completed percentage; throws CancellationException
+         *                 once the job has been cancelled
+         * @return The path of the generated file, or null if generation failed
+         */
+        String run(IntConsumer progress) throws Exception;
+    }
+
+    private final long id;
+    private final String key;
+    private final Task task;
+    private final long submittedAt = System.currentTimeMillis();
+    private final CompletableFuture<String> result = new CompletableFuture<>();
+
+    // Guarded by the scheduler lock while queued; volatile for readers
+    volatile Priority priority;
+    volatile Status status = Status.QUEUED;
+    private volatile int progress;
+    private volatile boolean cancelRequested;
+
+    ReportJob(long id, String key, Priority priority, Task task)
+    {
+        this.id = id;
+        this.key = key;
+        this.priority = priority;
+        this.task = task;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Returns the deduplication key, for example "STUDENT:S001".
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+    public Priority getPriority()
+    {
+        return priority;
+    }
+
+    public Status getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * Returns the completed percentage, from 0 to 100.
+     */
+    public int getProgress()
+    {
+        return progress;
+    }
+
+    public long getSubmittedAt()
+    {
+        return submittedAt;
+    }
+
+    public boolean isCancelRequested()
+    {
+        return cancelRequested;
+    }
+
+    /**
+     * Completes with the generated file path once the job finishes. Failed jobs
+     * complete with null and cancelled jobs complete exceptionally with a
+     * CancellationException.
+     */
+    public CompletableFuture<String> getResult()
+    {
+        return result;
+    }
+
+    void requestCancel()
+    {
+        cancelRequested = true;
+    }
+
+    void run()
+    {
+        String path;
+        try
+        {
+            path = task.run(this::updateProgress);
+        }
+        catch (CancellationException e)
+        {
+            status = Status.CANCELLED;
+            result.completeExceptionally(e);
+            return;
+        }
+        catch (Exception e)
+        {
+            status = Status.FAILED;
+            result.complete(null);
+            return;
+        }
+        catch (Error e)
+        {
+            // Still fails the job for anyone waiting on it; the worker deals with the error
+            status = Status.FAILED;
+            result.complete(null);
+            throw e;
+        }
+
+        if (path == null)
+        {
+            status = cancelRequested ? Status.CANCELLED : Status.FAILED;
+        }
+        else
+        {
+            progress = 100;
+            status = Status.DONE;
+        }
+        if (status == Status.CANCELLED)
+        {
+            result.completeExceptionally(new CancellationException("Report job " + id + " was cancelled"));
+        }
+        else
+        {
+            result.complete(path);
+        }
+    }
+
+    void cancelQueued()
+    {
+        status = Status.CANCELLED;
+        result.completeExceptionally(new CancellationException("Report job " + id + " was cancelled"));
+    }
+
+    private void updateProgress(int percent)
+    {
+        if (cancelRequested)
+        {
+            throw new CancellationException("Report job " + id + " was cancelled");
+        }
+        progress = Math.max(progress, Math.min(100, percent));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ReportJob#" + id + "[" + key + ", " + priority + ", " + status + ", " + progress + "%]";
+    }
+}
@@ -0,0 +1,350 @@
+package scheduling;
+
+import logging.Log;
+import service.CohortReportPDF;
+import service.GenerateReportPDF;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queues report generation and runs it on a fixed set of worker threads.
+ *
+ * - Two queues, INTERACTIVE and BATCH. Workers always take interactive jobs first.
+ * - Batch jobs may occupy at most parallelism - 1 workers, so one worker is always
+ *   free for an interactive request even while thousands of batch jobs are queued.
+ *   With a parallelism of 1 nothing can be reserved: an interactive job still goes
+ *   ahead of every queued batch job, but waits for a running one to finish.
+ * - A job that throws an Error fails, and its worker is replaced.
+ * - A job that is still queued with the same key (for example the same student's
+ *   report) is returned instead of queueing a duplicate. An interactive request for
+ *   a queued batch job promotes that job to the interactive queue.
+ * - Queued jobs are cancelled by marking them and skipping them when dequeued.
+ *   Running jobs are cancelled cooperatively at their next progress update.
+ *
+ * Configuration through system properties:
+ * - oodj.reports.parallelism: number of worker threads (default half the CPUs, at least 2)
+ */
+public final class ReportJobScheduler
+{
+    private static final int RETAINED_FINISHED = 1000;
+
+    private static final ReportJobScheduler instance = new ReportJobScheduler(
+            Integer.getInteger("oodj.reports.parallelism", Math.max(2, Runtime.getRuntime().availableProcessors() / 2)));
+
+    private final int parallelism;
+    private final int batchLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final ArrayDeque<ReportJob> interactive = new ArrayDeque<>();
+    private final ArrayDeque<ReportJob> batch = new ArrayDeque<>();
+    private final Map<String, ReportJob> queuedByKey = new HashMap<>();
+    private final ArrayDeque<Long> finished = new ArrayDeque<>();
+    private final ConcurrentHashMap<Long, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private int runningBatch;
+    private boolean shutdown;
+
+    /**
+     * @param parallelism The number of worker threads; at least 2 keeps a worker
+     *                    reserved for interactive jobs, while with 1 the only worker
+     *                    is shared with batch jobs
+     */
+    public ReportJobScheduler(int parallelism)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.batchLimit = Math.max(1, parallelism - 1);
+
+        for (int i = 0; i < parallelism; i++)
+        {
+            startWorker("report-worker-" + i);
+        }
+    }
+
+    private void startWorker(String name)
+    {
+        Thread worker = new Thread(this::workLoop, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static ReportJobScheduler getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Queues the academic performance report of one student.
+     */
+    public ReportJob submitStudentReport(String studentId, ReportJob.Priority priority)
+    {
+        return submit("STUDENT:" + studentId, priority, progress -> new GenerateReportPDF().createDocument(studentId, progress));
+    }
+
+    /**
+     * Queues the cohort report of one program.
+     */
+    public ReportJob submitCohortReport(String programId, ReportJob.Priority priority)
+    {
+        return submit("COHORT:" + programId, priority, progress -> new CohortReportPDF().createDocument(programId, progress));
+    }
+
+    /**
+     * Queues a job unless one with the same key is already waiting.
+     *
+     * @param key Identifies identical jobs, such as the report type and student ID
+     * @return The new job, or the queued job with the same key
+     */
+    public ReportJob submit(String key, ReportJob.Priority priority, ReportJob.Task task)
+    {
+        lock.lock();
+        try
+        {
+            if (shutdown)
+            {
+                throw new IllegalStateException("Report scheduler has been shut down");
+            }
+
+            ReportJob existing = queuedByKey.get(key);
+            if (existing != null)
+            {
+                if (priority == ReportJob.Priority.INTERACTIVE && existing.priority == ReportJob.Priority.BATCH)
+                {
+                    // The stale entry in the batch queue is skipped once the job is no longer QUEUED
+                    existing.priority = ReportJob.Priority.INTERACTIVE;
+                    interactive.addLast(existing);
+                    workAvailable.signal();
+                }
+                return existing;
+            }
+
+            ReportJob job = new ReportJob(nextId.getAndIncrement(), key, priority, task);
+            jobs.put(job.getId(), job);
+            queuedByKey.put(key, job);
+            (priority == ReportJob.Priority.INTERACTIVE ? interactive : batch).addLast(job);
+            workAvailable.signal();
+            return job;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a job by ID. The most recent finished jobs are kept for status queries.
+     *
+     * @return The job, or null if it is unknown or has been forgotten
+     */
+    public ReportJob getJob(long jobId)
+    {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Cancels a job. A queued job is never started; a running job stops at its
+     * next progress update.
+     *
+     * @return true if the job was queued or running
+     */
+    public boolean cancel(long jobId)
+    {
+        lock.lock();
+        try
+        {
+            ReportJob job = jobs.get(jobId);
+            if (job == null)
+            {
+                return false;
+            }
+            if (job.status == ReportJob.Status.QUEUED)
+            {
+                queuedByKey.remove(job.getKey());
+                job.cancelQueued();
+                retire(job);
+                return true;
+            }
+            if (job.status == ReportJob.Status.RUNNING)
+            {
+                job.requestCancel();
+                return true;
+            }
+            return false;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of jobs waiting with the given priority.
+     */
+    public int getQueuedCount(ReportJob.Priority priority)
+    {
+        lock.lock();
+        try
+        {
+            int count = 0;
+            for (ReportJob job : queuedByKey.values())
+            {
+                if (job.priority == priority)
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * Stops accepting jobs and cancels everything still queued. Running jobs finish.
+     */
+    public void shutdown()
+    {
+        lock.lock();
+        try
+        {
+            shutdown = true;
+            for (ReportJob job : queuedByKey.values())
+            {
+                job.cancelQueued();
+            }
+            queuedByKey.clear();
+            interactive.clear();
+            batch.clear();
+            workAvailable.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void workLoop()
+    {
+        while (true)
+        {
+            ReportJob job;
+            try
+            {
+                job = take();
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+            if (job == null)
+            {
+                return;
+            }
+
+            Log.debug("ReportJobScheduler", "Starting " + job);
+            boolean completed = false;
+            try
+            {
+                job.run();
+                completed = true;
+                Log.info("ReportJobScheduler", "Finished " + job);
+            }
+            finally
+            {
+                lock.lock();
+                try
+                {
+                    if (job.priority == ReportJob.Priority.BATCH)
+                    {
+                        runningBatch--;
+                        workAvailable.signal();
+                    }
+                    retire(job);
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+                if (!completed)
+                {
+                    // The error ends this thread; keep the number of workers
+                    Log.error("ReportJobScheduler", "Error in " + job + ", replacing " + Thread.currentThread().getName());
+                    startWorker(Thread.currentThread().getName());
+                }
+            }
+        }
+    }
+
+    // Returns the next runnable job, or null once the scheduler is shut down
+    private ReportJob take() throws InterruptedException
+    {
+        lock.lock();
+        try
+        {
+            while (!shutdown)
+            {
+                ReportJob job = pollQueued(interactive);
+                if (job == null && runningBatch < batchLimit)
+                {
+                    job = pollQueued(batch);
+                    if (job != null)
+                    {
+                        runningBatch++;
+                    }
+                }
+                if (job != null)
+                {
+                    queuedByKey.remove(job.getKey());
+                    job.status = ReportJob.Status.RUNNING;
+                    return job;
+                }
+                workAvailable.await();
+            }
+            return null;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // Skips cancelled jobs and entries left behind by a promotion
+    private ReportJob pollQueued(ArrayDeque<ReportJob> queue)
+    {
+        ReportJob job;
+        while ((job = queue.pollFirst()) != null)
+        {
+            boolean promoted = queue == batch && job.priority == ReportJob.Priority.INTERACTIVE;
+            if (job.status == ReportJob.Status.QUEUED && !promoted)
+            {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private void retire(ReportJob job)
+    {
+        finished.addLast(job.getId());
+        while (finished.size() > RETAINED_FINISHED)
+        {
+            jobs.remove(finished.pollFirst());
+        }
+    }
+}
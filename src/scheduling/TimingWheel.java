@@ -0,0 +1,196 @@
+package scheduling;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for large numbers of timers that are mostly cancelled or
+ * rescheduled before they fire (idle sessions, reminders).
+ *
+ * The wheel has a fixed number of buckets, each covering {@code tickMillis}.
+ * Timers further away than one rotation carry a remaining round count.
+ * Scheduling and cancelling are O(1); {@link #advance} only visits the buckets
+ * that passed since the previous call.
+ *
+ * This class is not thread-safe; callers synchronize around it.
+ *
+ * @param <T> The type of item carried by each timer
+ */
+public class TimingWheel<T>
+{
+    private final long tickMillis;
+    private final Bucket<T>[] buckets;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis The time covered by each bucket
+     * @param wheelSize  The number of buckets, rounded up to a power of two
+     * @param startMillis The time the wheel starts at
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis)
+    {
+        if (tickMillis <= 0)
+        {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = new Bucket[capacity];
+        for (int i = 0; i < capacity; i++)
+        {
+            buckets[i] = new Bucket<>();
+        }
+        this.mask = capacity - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an item to expire at the given time. Items never fire early;
+     * they fire at most one tick late. Deadlines in the past expire on the next tick.
+     *
+     * @return A handle that can be passed to {@link #cancel}
+     */
+    public Timeout<T> schedule(T item, long deadlineMillis)
+    {
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(item, deadlineMillis);
+        timeout.rounds = (tick - currentTick - 1) / buckets.length;
+        buckets[(int) (tick & mask)].add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Removes a pending timer. Cancelling a timer that already fired or was
+     * already cancelled does nothing.
+     *
+     * @return true if the timer was pending
+     */
+    public boolean cancel(Timeout<T> timeout)
+    {
+        if (timeout == null || timeout.bucket == null)
+        {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time and hands every expired item
+     * to the consumer.
+     *
+     * @return The number of items that expired
+     */
+    public int advance(long nowMillis, Consumer<T> expired)
+    {
+        long targetTick = nowMillis / tickMillis;
+        int fired = 0;
+
+        while (currentTick < targetTick)
+        {
+            currentTick++;
+            Bucket<T> bucket = buckets[(int) (currentTick & mask)];
+            Timeout<T> timeout = bucket.head;
+
+            while (timeout != null)
+            {
+                Timeout<T> next = timeout.next;
+                if (timeout.rounds <= 0)
+                {
+                    bucket.remove(timeout);
+                    size--;
+                    fired++;
+                    expired.accept(timeout.item);
+                }
+                else
+                {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Returns the number of pending timers.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * A pending timer. Kept in a doubly linked list inside its bucket so it
+     * can be unlinked in constant time. Also used by {@link HierarchicalTimingWheel}.
+     */
+    public static final class Timeout<T>
+    {
+        final T item;
+        final long deadlineMillis;
+        long rounds;
+        Bucket<T> bucket;
+        Timeout<T> prev;
+        Timeout<T> next;
+
+        Timeout(T item, long deadlineMillis)
+        {
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public T getItem()
+        {
+            return item;
+        }
+
+        public long getDeadlineMillis()
+        {
+            return deadlineMillis;
+        }
+
+        public boolean isPending()
+        {
+            return bucket != null;
+        }
+    }
+
+    static final class Bucket<T>
+    {
+        Timeout<T> head;
+
+        void add(Timeout<T> timeout)
+        {
+            timeout.bucket = this;
+            timeout.next = head;
+            if (head != null)
+            {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<T> timeout)
+        {
+            if (timeout.prev != null)
+            {
+                timeout.prev.next = timeout.next;
+            }
+            else
+            {
+                head = timeout.next;
+            }
+            if (timeout.next != null)
+            {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package security;
+
+import domain.Permission;
+import domain.SystemRole;
+import domain.User;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Permission checks against the compiled role masks in {@link SystemRole}.
+ *
+ * A single check is one AND of the role mask with the permission bit. The bulk
+ * methods evaluate a required mask per row, which lets large result sets
+ * (for example a cohort listing) be filtered in one pass.
+ */
+public class Authorizer
+{
+    private final SessionManager sessionManager;
+
+    public Authorizer(SessionManager sessionManager)
+    {
+        this.sessionManager = sessionManager;
+    }
+
+    /**
+     * Checks a permission for the user behind a session token.
+     *
+     * @return true if the session is valid and its role grants the permission
+     */
+    public boolean check(String token, Permission permission)
+    {
+        User user = sessionManager.getUser(token);
+        return user != null && user.hasPermission(permission);
+    }
+
+    public static boolean check(SystemRole role, Permission permission)
+    {
+        return role != null && (role.getPermissionMask() & permission.getMask()) != 0;
+    }
+
+    /**
+     * Returns true if the role holds every permission in the required mask.
+     */
+    public static boolean checkAll(SystemRole role, long requiredMask)
+    {
+        return role != null && (requiredMask & ~role.getPermissionMask()) == 0;
+    }
+
+    /**
+     * Marks which rows the role may see.
+     *
+     * @param role          The role of the caller
+     * @param requiredMasks The permissions each row requires, one mask per row
+     * @return A BitSet with a bit set for every visible row
+     */
+    public static BitSet visibleRows(SystemRole role, long[] requiredMasks)
+    {
+        BitSet visible = new BitSet(requiredMasks.length);
+        if (role == null)
+        {
+            return visible;
+        }
+
+        long missing = ~role.getPermissionMask();
+        for (int i = 0; i < requiredMasks.length; i++)
+        {
+            if ((requiredMasks[i] & missing) == 0)
+            {
+                visible.set(i);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Filters a list down to the rows the role may see.
+     *
+     * @param role         The role of the caller
+     * @param rows         The full result set
+     * @param requiredMask Gives the permissions a row requires
+     * @return The visible rows, in their original order
+     */
+    public static <T> List<T> filter(SystemRole role, List<T> rows, ToLongFunction<T> requiredMask)
+    {
+        if (role == null)
+        {
+            return new ArrayList<>();
+        }
+
+        long missing = ~role.getPermissionMask();
+        List<T> visible = new ArrayList<>(rows.size());
+        for (T row : rows)
+        {
+            if ((requiredMask.applyAsLong(row) & missing) == 0)
+            {
+                visible.add(row);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Filters a list where every row needs the same permissions. The check is
+     * done once, so the list is either returned as a copy or emptied.
+     */
+    public static <T> List<T> filter(SystemRole role, List<T> rows, long requiredMask)
+    {
+        return checkAll(role, requiredMask) ? new ArrayList<>(rows) : new ArrayList<>();
+    }
+}
@@ -0,0 +1,59 @@
+package security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 password hashing with one reusable MessageDigest per thread
+ * and table based hex encoding.
+ */
+public final class PasswordHasher
+{
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new RuntimeException("Fatal: SHA-256 algorithm not found", e);
+        }
+    });
+
+    private PasswordHasher()
+    {
+    }
+
+    /**
+     * Hashes a password and returns the lowercase hex digest.
+     *
+     * @param password The plain text password
+     * @return The hex encoded SHA-256 hash, or null if password is null
+     */
+    public static String hash(String password)
+    {
+        if (password == null) return null;
+
+        MessageDigest md = DIGEST.get();
+        md.reset();
+        return toHex(md.digest(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Encodes bytes as a lowercase hex string.
+     */
+    public static String toHex(byte[] bytes)
+    {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            int b = bytes[i] & 0xff;
+            out[i * 2] = HEX[b >>> 4];
+            out[i * 2 + 1] = HEX[b & 0x0f];
+        }
+        return new String(out);
+    }
+}
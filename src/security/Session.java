@@ -0,0 +1,51 @@
+package security;
+
+import domain.User;
+import scheduling.TimingWheel;
+
+/**
+ * An authenticated session issued by {@link SessionManager} after a successful login.
+ */
+public class Session
+{
+    private final String token;
+    private final User user;
+    private final long createdAt;
+    private volatile long lastAccess;
+
+    // Pending idle-expiry timer, only touched while holding the SessionManager's wheel lock
+    TimingWheel.Timeout<Session> expiry;
+
+    Session(String token, User user, long now)
+    {
+        this.token = token;
+        this.user = user;
+        this.createdAt = now;
+        this.lastAccess = now;
+    }
+
+    void touch(long now)
+    {
+        this.lastAccess = now;
+    }
+
+    public String getToken()
+    {
+        return token;
+    }
+
+    public User getUser()
+    {
+        return user;
+    }
+
+    public long getCreatedAt()
+    {
+        return createdAt;
+    }
+
+    public long getLastAccess()
+    {
+        return lastAccess;
+    }
+}
@@ -0,0 +1,178 @@
+package security;
+
+import domain.User;
+import logging.Log;
+import scheduling.TimingWheel;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues session tokens after a successful {@link User#login} so later requests
+ * can be authorized by token lookup instead of re-hashing the password.
+ *
+ * Sessions are kept in a concurrent table. Idle expiry is driven by a
+ * {@link TimingWheel}: touching a session only updates its last access time,
+ * and when its timer fires the session is either removed or rescheduled
+ * from the latest access time.
+ */
+public class SessionManager
+{
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    private static final SessionManager instance = new SessionManager(DEFAULT_IDLE_TIMEOUT_MILLIS);
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final TimingWheel<Session> wheel;
+    private final long idleTimeoutMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService ticker;
+
+    public SessionManager(long idleTimeoutMillis)
+    {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::expireIdle, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static SessionManager getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Authenticates the user and opens a session.
+     *
+     * @param user     The user logging in
+     * @param password The password entered
+     * @return The session token, or null if the login failed
+     */
+    public String login(User user, String password)
+    {
+        if (!user.login(password))
+        {
+            return null;
+        }
+
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        long now = System.currentTimeMillis();
+        Session session = new Session(PasswordHasher.toHex(bytes), user, now);
+        sessions.put(session.getToken(), session);
+
+        synchronized (wheel)
+        {
+            session.expiry = wheel.schedule(session, now + idleTimeoutMillis);
+        }
+        return session.getToken();
+    }
+
+    /**
+     * Looks up the session for a token and marks it as used.
+     *
+     * @return The session, or null if the token is unknown or expired
+     */
+    public Session getSession(String token)
+    {
+        if (token == null) return null;
+
+        Session session = sessions.get(token);
+        if (session == null) return null;
+
+        long now = System.currentTimeMillis();
+        if (now - session.getLastAccess() >= idleTimeoutMillis || !session.getUser().isActive())
+        {
+            invalidate(token);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * Returns the user owning a valid session, or null.
+     */
+    public User getUser(String token)
+    {
+        Session session = getSession(token);
+        return session == null ? null : session.getUser();
+    }
+
+    /**
+     * Ends a session, for example when the user logs out.
+     */
+    public void invalidate(String token)
+    {
+        Session session = sessions.remove(token);
+        if (session != null)
+        {
+            synchronized (wheel)
+            {
+                wheel.cancel(session.expiry);
+                session.expiry = null;
+            }
+        }
+    }
+
+    /**
+     * Logs the user out and ends their session.
+     */
+    public void logout(String token)
+    {
+        Session session = sessions.get(token);
+        if (session != null)
+        {
+            invalidate(token);
+            session.getUser().logActivity("Session ended");
+        }
+    }
+
+    public int getActiveSessionCount()
+    {
+        return sessions.size();
+    }
+
+    /**
+     * Advances the expiry wheel. Sessions that were used since their timer was
+     * set are rescheduled instead of removed.
+     */
+    void expireIdle()
+    {
+        long now = System.currentTimeMillis();
+        try
+        {
+            synchronized (wheel)
+            {
+                wheel.advance(now, session -> {
+                    long idleUntil = session.getLastAccess() + idleTimeoutMillis;
+                    if (idleUntil > now && sessions.containsKey(session.getToken()))
+                    {
+                        session.expiry = wheel.schedule(session, idleUntil);
+                    }
+                    else
+                    {
+                        session.expiry = null;
+                        if (sessions.remove(session.getToken(), session))
+                        {
+                            Log.info("SessionManager", "Session expired for " + session.getUser().getUserID());
+                        }
+                    }
+                });
+            }
+        }
+        catch (RuntimeException e)
+        {
+            Log.error("SessionManager", "Session expiry failed: " + e.getMessage());
+        }
+    }
+}
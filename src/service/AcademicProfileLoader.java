@@ -0,0 +1,230 @@
+package service;
+
+import academic.AcademicProfile;
+import academic.Course;
+import academic.CourseAttempt;
+import academic.CourseResult;
+import data_access.DataAccess;
+import data_access.DataCache;
+import data_access.DataTable;
+import data_access.IdPool;
+import logging.Log;
+import model.Enrollment;
+import model.Student;
+import report.Report;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materializes an {@link AcademicProfile} for every student from the CSV data in one pass.
+ *
+ * The student, course and enrollment files are each read once; every enrollment row
+ * becomes a {@link CourseResult} (the same way StudentPerformance reads the data).
+ * The resulting profiles are cached, and each profile caches its own CGPA and failed
+ * course count, so report and eligibility screens can share one precomputed view.
+ */
+public class AcademicProfileLoader {
+
+    private static final AcademicProfileLoader instance = new AcademicProfileLoader();
+
+    private final CourseCatalog catalog;
+    private volatile Map<String, AcademicProfile> profiles;
+    // The enrollment snapshot version the cached profiles include
+    private long enrollmentVersion;
+
+    public AcademicProfileLoader(CourseCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    private AcademicProfileLoader() {
+        this(CourseCatalog.getInstance());
+        // Profiles are derived from these three files; rebuild them lazily after a change,
+        // except that appended enrollment rows are applied to the affected profiles directly
+        DataCache.getInstance().addListener(new DataCache.Listener() {
+            @Override
+            public void tableChanged(DataTable table) {
+                if (table == DataTable.STUDENTS || table == DataTable.COURSES || table == DataTable.ENROLLMENTS) {
+                    invalidate();
+                }
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void rowsAppended(DataTable table, List<?> rows) {
+                if (table == DataTable.ENROLLMENTS) {
+                    // Called while the cache holds the table, so this is the version the rows produced
+                    applyEnrollments((List<Enrollment>) rows, DataCache.getInstance().getVersion(DataTable.ENROLLMENTS));
+                } else {
+                    tableChanged(table);
+                }
+            }
+        });
+    }
+
+    public static AcademicProfileLoader getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the cached profile for a student, loading all profiles on first use.
+     *
+     * @return The profile, or null if the student is unknown
+     */
+    public AcademicProfile getProfile(String studentId) {
+        return loaded().get(studentId);
+    }
+
+    /**
+     * Returns every cached profile.
+     */
+    public Collection<AcademicProfile> getProfiles() {
+        return Collections.unmodifiableCollection(loaded().values());
+    }
+
+    /**
+     * Builds a report for a student from the cached profile.
+     *
+     * @return The report, or null if the student is unknown
+     */
+    public Report generateReport(String studentId) {
+        AcademicProfile profile = getProfile(studentId);
+        return profile == null ? null : profile.generateReport();
+    }
+
+    /**
+     * Drops the cached profiles; the next lookup reloads them from disk.
+     */
+    public void invalidate() {
+        profiles = null;
+    }
+
+    /**
+     * Adds newly appended enrollment rows to the cached profiles.
+     *
+     * Affected profiles are copied, extended and swapped in with a new map, so a
+     * reader holding a profile never sees it change underneath it. Does nothing if
+     * the profiles have not been loaded yet; the next lookup reads everything anyway.
+     *
+     * @param version The enrollment snapshot version that includes the rows. Rows
+     *                the profiles already include are skipped; if a batch is
+     *                missing in between, the profiles are dropped and reloaded.
+     */
+    public synchronized void applyEnrollments(List<Enrollment> enrollments, long version) {
+        Map<String, AcademicProfile> current = profiles;
+        if (current == null || version <= enrollmentVersion) {
+            return;
+        }
+        if (version != enrollmentVersion + 1) {
+            invalidate();
+            return;
+        }
+
+        Map<String, AcademicProfile> updated = new HashMap<>(current);
+        Map<String, AcademicProfile> copied = new HashMap<>();
+        for (Enrollment en : enrollments) {
+            String studentId = IdPool.STUDENTS.intern(en.getStudentId().trim());
+            String courseId = IdPool.COURSES.intern(en.getCourseId().trim());
+
+            AcademicProfile profile = copied.get(studentId);
+            if (profile == null) {
+                profile = new AcademicProfile(studentId);
+                AcademicProfile previous = current.get(studentId);
+                if (previous != null) {
+                    for (CourseResult existing : previous.getCourseResults()) {
+                        profile.addCourseResult(existing);
+                    }
+                }
+                copied.put(studentId, profile);
+                updated.put(studentId, profile);
+            }
+
+            int attemptNumber = 1;
+            for (CourseResult existing : profile.getCourseResults()) {
+                if (existing.getCourse().getCourseID().equals(courseId)) {
+                    attemptNumber++;
+                }
+            }
+            CourseResult courseResult = toCourseResult(en, courseId, attemptNumber);
+            if (courseResult != null) {
+                profile.addCourseResult(courseResult);
+            }
+        }
+        profiles = updated;
+        enrollmentVersion = version;
+        Log.info("AcademicProfileLoader", "Applied " + enrollments.size() + " appended enrollments to " + copied.size() + " profiles.");
+    }
+
+    private Map<String, AcademicProfile> loaded() {
+        Map<String, AcademicProfile> current = profiles;
+        if (current == null) {
+            synchronized (this) {
+                current = profiles;
+                if (current == null) {
+                    // Read again if the enrollments changed during the load, so the
+                    // recorded version is exactly the one the profiles were built from
+                    DataAccess data = new DataAccess();
+                    DataCache cache = DataCache.getInstance();
+                    long version;
+                    do {
+                        data.liveEnrollmentList();
+                        version = cache.getVersion(DataTable.ENROLLMENTS);
+                        current = load(data);
+                    } while (version != cache.getVersion(DataTable.ENROLLMENTS));
+                    enrollmentVersion = version;
+                    profiles = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Reads the data files once and builds a profile for every student.
+     */
+    public Map<String, AcademicProfile> load(DataAccess data) {
+        Map<String, AcademicProfile> result = new HashMap<>();
+
+        for (Student student : data.studentList()) {
+            String studentId = IdPool.STUDENTS.intern(student.getStudentId().trim());
+            result.put(studentId, new AcademicProfile(studentId));
+        }
+
+        Map<String, Integer> attemptCounts = new HashMap<>();
+        for (Enrollment en : data.enrollmentList()) {
+            String studentId = IdPool.STUDENTS.intern(en.getStudentId().trim());
+            String courseId = IdPool.COURSES.intern(en.getCourseId().trim());
+            if (catalog.getCourse(courseId) == null) {
+                continue;
+            }
+
+            int attemptNumber = attemptCounts.merge(studentId + "|" + courseId, 1, Integer::sum);
+            CourseResult courseResult = toCourseResult(en, courseId, attemptNumber);
+            result.computeIfAbsent(studentId, AcademicProfile::new).addCourseResult(courseResult);
+        }
+        Log.info("AcademicProfileLoader", "Materialized " + result.size() + " academic profiles.");
+        return result;
+    }
+
+    // Turns one enrollment row into a graded course result; null if the course is unknown
+    private CourseResult toCourseResult(Enrollment en, String courseId, int attemptNumber) {
+        Course course = catalog.getCourse(courseId);
+        if (course == null) {
+            return null;
+        }
+
+        double examScore = Double.parseDouble(en.getExamScore().trim());
+        double assignmentScore = Double.parseDouble(en.getAssignmentScore().trim());
+        CourseAttempt attempt = course.gradeAttempt(attemptNumber, Integer.parseInt(en.getYear().trim()),
+                Integer.parseInt(en.getSemester().trim()), examScore, assignmentScore, new Date());
+
+        CourseResult courseResult = new CourseResult(course);
+        courseResult.addAttempt(attempt);
+        courseResult.setGrade(attempt.getResultGrade());
+        return courseResult;
+    }
+}
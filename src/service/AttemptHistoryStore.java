@@ -0,0 +1,418 @@
+package service;
+
+import academic.AttemptHistory;
+import academic.Course;
+import academic.CourseAttempt;
+import academic.RetakePolicy;
+import data_access.DataAccess;
+import data_access.DataCache;
+import data_access.DataTable;
+import data_access.IdPool;
+import logging.Log;
+import model.Enrollment;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Persisted history of every course attempt, keyed by (student, course).
+ *
+ * Attempts are stored in data/course_attempts.csv. The enrollment data is the
+ * source of truth for the attempts read from it, where a retake is simply another
+ * row for the same student and course; attempts recorded through
+ * {@link #recordAttempt} exist only in the attempt file. On load the file is
+ * reconciled with the enrollment data: enrollment attempts are taken from the
+ * enrollment rows as they are now, and recorded attempts are kept. An
+ * enrollment attempt keeps the DateRecorded it was first stored with, and the
+ * file is only rewritten when its contents change.
+ *
+ * Each {@link AttemptHistory} tracks its latest and best attempt as attempts are
+ * added, and each student keeps running grade point, credit and failure totals for
+ * every {@link RetakePolicy}. Recording an attempt updates those totals in O(1), so
+ * a retake-aware CGPA never needs the history to be re-sorted.
+ *
+ * File Format:
+ * StudentID,CourseID,AttemptNumber,Year,Semester,ExamScore,AssignmentScore,FinalScore,Grade,GradePoint,DateRecorded,EnrollmentID
+ * (EnrollmentID is empty for recorded attempts)
+ */
+public class AttemptHistoryStore {
+
+    private static final String HEADER = "StudentID,CourseID,AttemptNumber,Year,Semester,ExamScore,AssignmentScore,FinalScore,Grade,GradePoint,DateRecorded,EnrollmentID";
+    private static AttemptHistoryStore instance;
+
+    private final String filePath;
+    private final CourseCatalog catalog;
+    private final Map<String, Map<String, AttemptHistory>> histories = new HashMap<>();
+    private final Map<String, PolicyTotals> totals = new HashMap<>();
+
+    // The enrollment row each attempt was read from; recorded attempts have none
+    private final Map<CourseAttempt, String> enrollmentIds = new IdentityHashMap<>();
+    private final Set<String> indexedEnrollments = new HashSet<>();
+    // Attempts recorded through recordAttempt, kept when the history is reconciled
+    private final List<PendingAttempt> recorded = new ArrayList<>();
+    // When each enrollment row was first stored, so reconciling does not restamp it
+    private Map<String, Date> enrollmentDates = new HashMap<>();
+
+    public AttemptHistoryStore(String filePath, CourseCatalog catalog) {
+        this.filePath = filePath;
+        this.catalog = catalog;
+    }
+
+    /**
+     * Returns the shared store, loading it on first use.
+     */
+    public static synchronized AttemptHistoryStore getInstance() {
+        if (instance == null) {
+            instance = new AttemptHistoryStore("data/course_attempts.csv", CourseCatalog.getInstance());
+            // Listen first, so rows appended during the load are not missed; duplicates are skipped.
+            // The catalog registered its listener when it was created, so it reloads courses before this one runs
+            DataCache.getInstance().addListener(instance.new EnrollmentListener());
+            instance.load(new DataAccess());
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the recorded attempts from the attempt file and reconciles them with
+     * the enrollment data.
+     */
+    public synchronized void load(DataAccess data) {
+        recorded.clear();
+        enrollmentDates.clear();
+
+        File file = new File(filePath);
+        if (file.exists()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                String line = br.readLine();
+                if (!HEADER.equals(line)) {
+                    Log.warn("AttemptHistoryStore", "Unknown attempt file format, rebuilding it from the enrollment data.");
+                } else {
+                    while ((line = br.readLine()) != null) {
+                        String[] v = line.split(",", -1);
+                        if (v.length < 12) {
+                            continue;
+                        }
+                        // Attempts with an enrollment ID are taken from the enrollment data instead
+                        if (!v[11].trim().isEmpty()) {
+                            enrollmentDates.put(v[11].trim(), new Date(Long.parseLong(v[10].trim())));
+                            continue;
+                        }
+                        recorded.add(new PendingAttempt(IdPool.STUDENTS.intern(v[0].trim()), IdPool.COURSES.intern(v[1].trim()),
+                                null, Integer.parseInt(v[3].trim()), Integer.parseInt(v[4].trim()),
+                                Double.parseDouble(v[5].trim()), Double.parseDouble(v[6].trim()),
+                                new Date(Long.parseLong(v[10].trim()))));
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                Log.error("AttemptHistoryStore", "Failed to load course attempts: " + e.getMessage());
+            }
+        }
+        reconcile(data.enrollmentList());
+        Log.info("AttemptHistoryStore", "Loaded " + enrollmentIds.size() + " enrollment and " + recorded.size() + " recorded course attempts.");
+    }
+
+    /**
+     * Rebuilds the history from the enrollment rows and the recorded attempts, and
+     * rewrites the attempt file if that changed it. Attempts at the same student
+     * and course are numbered in year/semester order.
+     */
+    public synchronized void reconcile(List<Enrollment> enrollments) {
+        histories.clear();
+        totals.clear();
+        enrollmentIds.clear();
+        indexedEnrollments.clear();
+        // Rows no longer in the enrollment data drop out of the map as it is refilled by add
+        Map<String, Date> known = enrollmentDates;
+        enrollmentDates = new HashMap<>();
+
+        List<PendingAttempt> pending = new ArrayList<>(enrollments.size() + recorded.size());
+        for (Enrollment en : enrollments) {
+            pending.add(PendingAttempt.of(en, known));
+        }
+        pending.addAll(recorded);
+        pending.sort(Comparator.comparing((PendingAttempt p) -> p.studentId)
+                .thenComparing(p -> p.courseId)
+                .thenComparingInt(p -> p.year)
+                .thenComparingInt(p -> p.semester));
+
+        for (PendingAttempt p : pending) {
+            add(p);
+        }
+        save();
+    }
+
+    /**
+     * Records a new attempt, appending it to the attempt file.
+     *
+     * @return The recorded attempt, or null if the course is not in the catalog
+     */
+    public synchronized CourseAttempt recordAttempt(String studentId, String courseId, int year, int semester,
+                                                    double examScore, double assignmentScore) {
+        PendingAttempt p = new PendingAttempt(IdPool.STUDENTS.intern(studentId.trim()), IdPool.COURSES.intern(courseId.trim()),
+                null, year, semester, examScore, assignmentScore, new Date());
+        CourseAttempt attempt = add(p);
+        if (attempt == null) {
+            Log.warn("AttemptHistoryStore", "Unknown course " + p.courseId + ", attempt not recorded.");
+            return null;
+        }
+        recorded.add(p);
+        append(Collections.singletonList(toLine(p.studentId, p.courseId, attempt, null)));
+        return attempt;
+    }
+
+    /**
+     * Adds enrollment rows appended to the enrollment file as new attempts. Rows
+     * already in the history, e.g. because it was loaded after they were
+     * appended, are skipped.
+     */
+    public synchronized void appendEnrollments(List<Enrollment> enrollments) {
+        List<String> lines = new ArrayList<>(enrollments.size());
+        for (Enrollment en : enrollments) {
+            PendingAttempt p = PendingAttempt.of(en, enrollmentDates);
+            if (indexedEnrollments.contains(p.enrollmentId)) {
+                continue;
+            }
+            CourseAttempt attempt = add(p);
+            if (attempt != null) {
+                lines.add(toLine(p.studentId, p.courseId, attempt, p.enrollmentId));
+            }
+        }
+        append(lines);
+    }
+
+    /**
+     * Adds appended enrollment rows as new attempts. Any other change to the
+     * enrollment file, or a change to the courses, which can change credits and
+     * weights, reconciles the history with it.
+     */
+    private class EnrollmentListener implements DataCache.Listener {
+        @Override
+        public void tableChanged(DataTable table) {
+            if (table == DataTable.ENROLLMENTS || table == DataTable.COURSES) {
+                reconcile(new DataAccess().enrollmentList());
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void rowsAppended(DataTable table, List<?> rows) {
+            if (table == DataTable.ENROLLMENTS) {
+                appendEnrollments((List<Enrollment>) rows);
+            } else {
+                tableChanged(table);
+            }
+        }
+    }
+
+    public synchronized AttemptHistory getHistory(String studentId, String courseId) {
+        Map<String, AttemptHistory> courses = histories.get(studentId);
+        return courses == null ? null : courses.get(courseId);
+    }
+
+    public synchronized Collection<AttemptHistory> getHistories(String studentId) {
+        Map<String, AttemptHistory> courses = histories.get(studentId);
+        return courses == null ? Collections.emptyList() : new ArrayList<>(courses.values());
+    }
+
+    public synchronized CourseAttempt getLatestAttempt(String studentId, String courseId) {
+        AttemptHistory history = getHistory(studentId, courseId);
+        return history == null ? null : history.getLatestAttempt();
+    }
+
+    public synchronized CourseAttempt getBestAttempt(String studentId, String courseId) {
+        AttemptHistory history = getHistory(studentId, courseId);
+        return history == null ? null : history.getBestAttempt();
+    }
+
+    /**
+     * Returns the student's CGPA under a retake policy from the running totals.
+     */
+    public synchronized double calculateCGPA(String studentId, RetakePolicy policy) {
+        PolicyTotals t = totals.get(studentId);
+        if (t == null || t.credits[policy.ordinal()] == 0) {
+            return 0.0;
+        }
+        return t.points[policy.ordinal()] / t.credits[policy.ordinal()];
+    }
+
+    /**
+     * Returns the credits that count towards CGPA under a retake policy.
+     */
+    public synchronized int getCountedCredits(String studentId, RetakePolicy policy) {
+        PolicyTotals t = totals.get(studentId);
+        return t == null ? 0 : t.credits[policy.ordinal()];
+    }
+
+    /**
+     * Returns how many of the student's counted attempts are failures under a retake policy.
+     */
+    public synchronized int getFailedCourses(String studentId, RetakePolicy policy) {
+        PolicyTotals t = totals.get(studentId);
+        return t == null ? 0 : t.failed[policy.ordinal()];
+    }
+
+    /**
+     * Returns every student's CGPA under a retake policy.
+     */
+    public synchronized Map<String, Double> calculateAllCGPA(RetakePolicy policy) {
+        Map<String, Double> result = new HashMap<>();
+        for (String studentId : totals.keySet()) {
+            result.put(studentId, calculateCGPA(studentId, policy));
+        }
+        return result;
+    }
+
+    // Grades the attempt as the next one of its history and indexes it; null if the course is unknown
+    private CourseAttempt add(PendingAttempt p) {
+        Course course = catalog.getCourse(p.courseId);
+        if (course == null) {
+            return null;
+        }
+        AttemptHistory history = getHistory(p.studentId, p.courseId);
+        int attemptNumber = history == null ? 1 : history.getAttemptCount() + 1;
+
+        CourseAttempt attempt = course.gradeAttempt(attemptNumber, p.year, p.semester, p.examScore, p.assignmentScore, p.dateRecorded);
+        index(p.studentId, p.courseId, attempt);
+        if (p.enrollmentId != null) {
+            enrollmentIds.put(attempt, p.enrollmentId);
+            indexedEnrollments.add(p.enrollmentId);
+            enrollmentDates.put(p.enrollmentId, p.dateRecorded);
+        }
+        return attempt;
+    }
+
+    // Adds the attempt to its history and applies the change to the student's totals
+    private void index(String studentId, String courseId, CourseAttempt attempt) {
+        AttemptHistory history = histories
+                .computeIfAbsent(studentId, k -> new HashMap<>())
+                .computeIfAbsent(courseId, k -> new AttemptHistory(studentId, courseId));
+        PolicyTotals t = totals.computeIfAbsent(studentId, k -> new PolicyTotals());
+        Course course = catalog.getCourse(courseId);
+        int credits = course == null ? 0 : course.getCreditHours();
+
+        for (RetakePolicy policy : RetakePolicy.values()) {
+            t.points[policy.ordinal()] -= history.countedGradePoints(policy) * credits;
+            t.credits[policy.ordinal()] -= history.countedAttempts(policy) * credits;
+            t.failed[policy.ordinal()] -= history.countedFailures(policy);
+        }
+        history.addAttempt(attempt);
+        for (RetakePolicy policy : RetakePolicy.values()) {
+            t.points[policy.ordinal()] += history.countedGradePoints(policy) * credits;
+            t.credits[policy.ordinal()] += history.countedAttempts(policy) * credits;
+            t.failed[policy.ordinal()] += history.countedFailures(policy);
+        }
+    }
+
+    // Writes every attempt, sorted by student and course, unless the file already holds exactly that
+    private void save() {
+        StringBuilder sb = new StringBuilder(HEADER).append(System.lineSeparator());
+        for (Map<String, AttemptHistory> courses : new TreeMap<>(histories).values()) {
+            for (AttemptHistory history : new TreeMap<>(courses).values()) {
+                for (CourseAttempt attempt : history.getAttempts()) {
+                    sb.append(toLine(history.getStudentID(), history.getCourseID(), attempt, enrollmentIds.get(attempt)))
+                            .append(System.lineSeparator());
+                }
+            }
+        }
+        String content = sb.toString();
+
+        try {
+            File file = new File(filePath);
+            if (file.exists() && content.equals(new String(Files.readAllBytes(Paths.get(filePath))))) {
+                return;
+            }
+            try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
+                bw.write(content);
+            }
+        } catch (IOException e) {
+            Log.error("AttemptHistoryStore", "Failed to save course attempts: " + e.getMessage());
+        }
+    }
+
+    private void append(List<String> lines) {
+        File file = new File(filePath);
+        boolean newFile = !file.exists();
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, true))) {
+            if (newFile) {
+                bw.write(HEADER);
+                bw.newLine();
+            }
+            for (String line : lines) {
+                bw.write(line);
+                bw.newLine();
+            }
+        } catch (IOException e) {
+            Log.error("AttemptHistoryStore", "Failed to save course attempts: " + e.getMessage());
+        }
+    }
+
+    private static String toLine(String studentId, String courseId, CourseAttempt a, String enrollmentId) {
+        return studentId + "," + courseId + "," + a.getAttemptNumber() + "," + a.getYear() + "," + a.getSemester() + ","
+                + a.getExamScore() + "," + a.getAssignmentScore() + "," + a.getFinalScore() + ","
+                + a.getResultGrade() + "," + a.getGradePoint() + "," + a.getDateRecorded().getTime() + ","
+                + (enrollmentId == null ? "" : enrollmentId);
+    }
+
+    private static int parseInt(String value) {
+        return Integer.parseInt(value.trim());
+    }
+
+    // Running grade point, credit and failure totals, one slot per RetakePolicy
+    private static final class PolicyTotals {
+        final double[] points = new double[RetakePolicy.values().length];
+        final int[] credits = new int[RetakePolicy.values().length];
+        final int[] failed = new int[RetakePolicy.values().length];
+    }
+
+    // An attempt waiting to be graded and numbered: an enrollment row or a recorded attempt
+    private static final class PendingAttempt {
+        final String studentId;
+        final String courseId;
+        final String enrollmentId;
+        final int year;
+        final int semester;
+        final double examScore;
+        final double assignmentScore;
+        final Date dateRecorded;
+
+        PendingAttempt(String studentId, String courseId, String enrollmentId, int year, int semester,
+                       double examScore, double assignmentScore, Date dateRecorded) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.enrollmentId = enrollmentId;
+            this.year = year;
+            this.semester = semester;
+            this.examScore = examScore;
+            this.assignmentScore = assignmentScore;
+            this.dateRecorded = dateRecorded;
+        }
+
+        // Dated when the row was first stored, or now if it is new
+        static PendingAttempt of(Enrollment en, Map<String, Date> knownDates) {
+            String enrollmentId = en.getEnrollmentId().trim();
+            Date dateRecorded = knownDates.get(enrollmentId);
+            return new PendingAttempt(IdPool.STUDENTS.intern(en.getStudentId().trim()), IdPool.COURSES.intern(en.getCourseId().trim()),
+                    enrollmentId, parseInt(en.getYear()), parseInt(en.getSemester()),
+                    Double.parseDouble(en.getExamScore().trim()), Double.parseDouble(en.getAssignmentScore().trim()),
+                    dateRecorded == null ? new Date() : dateRecorded);
+        }
+    }
+}
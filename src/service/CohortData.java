@@ -0,0 +1,283 @@
+package service;
+
+import academic.CourseResult;
+import academic.RetakePolicy;
+import data_access.DataAccess;
+import domain.GradingPolicy;
+import logging.Log;
+import model.Course;
+import model.Enrollment;
+import model.Student;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-student aggregates of the whole cohort, kept column by column.
+ *
+ * Each student is a row, in the order of the student file. Credits, CGPA and
+ * failed courses are stored in one primitive array each, and the program as an
+ * index into {@link #getProgramIds()}. Code that looks at every student (rules,
+ * rankings, tables) loops over the arrays it needs instead of building a
+ * StudentPerformance per student.
+ *
+ * The weighted final score and term of every enrollment is kept as well, so the
+ * cohort can be aggregated again under another grading policy ({@link #regrade})
+ * without reading the files again. Retakes of a course count as the configured
+ * {@link RetakePolicy} says.
+ *
+ * The data is a snapshot: it does not change after {@link #load}.
+ */
+public final class CohortData {
+
+    private final String[] studentIds;
+    private final String[] programIds;
+    private final String[] courseIds;
+    private final Map<String, Integer> rowByStudent;
+
+    // Columns, one entry per row
+    final int[] program;
+    final int[] credits;
+    final double[] cgpa;
+    final int[] failedCourses;
+
+    // Enrollment columns, one entry per enrollment of a known student and course
+    final int[] enrollmentRow;
+    final int[] enrollmentCourse;
+    final double[] finalScore;
+    // Year * 100 + semester, to find the latest attempt at a course
+    final int[] enrollmentTerm;
+
+    // Credit hours, indexed like courseIds
+    final int[] courseCredits;
+
+    private final RetakePolicy retakePolicy;
+
+    private CohortData(CohortData source, int[] credits, double[] cgpa, int[] failedCourses) {
+        this.studentIds = source.studentIds;
+        this.programIds = source.programIds;
+        this.courseIds = source.courseIds;
+        this.rowByStudent = source.rowByStudent;
+        this.program = source.program;
+        this.enrollmentRow = source.enrollmentRow;
+        this.enrollmentCourse = source.enrollmentCourse;
+        this.finalScore = source.finalScore;
+        this.enrollmentTerm = source.enrollmentTerm;
+        this.courseCredits = source.courseCredits;
+        this.retakePolicy = source.retakePolicy;
+        this.credits = credits;
+        this.cgpa = cgpa;
+        this.failedCourses = failedCourses;
+    }
+
+    private CohortData(String[] studentIds, String[] programIds, String[] courseIds, Map<String, Integer> rowByStudent,
+                       int[] program, int[] enrollmentRow, int[] enrollmentCourse, double[] finalScore, int[] enrollmentTerm,
+                       int[] courseCredits, RetakePolicy retakePolicy) {
+        this.studentIds = studentIds;
+        this.programIds = programIds;
+        this.courseIds = courseIds;
+        this.rowByStudent = rowByStudent;
+        this.program = program;
+        this.enrollmentRow = enrollmentRow;
+        this.enrollmentCourse = enrollmentCourse;
+        this.finalScore = finalScore;
+        this.enrollmentTerm = enrollmentTerm;
+        this.courseCredits = courseCredits;
+        this.retakePolicy = retakePolicy;
+        this.credits = new int[studentIds.length];
+        this.cgpa = new double[studentIds.length];
+        this.failedCourses = new int[studentIds.length];
+    }
+
+    /**
+     * Reads every student and enrollment once and aggregates them with the
+     * current grading scheme.
+     */
+    public static CohortData load(DataAccess data) {
+        long start = System.nanoTime();
+        List<Student> students = data.studentList();
+        int n = students.size();
+
+        String[] studentIds = new String[n];
+        int[] program = new int[n];
+        Map<String, Integer> programIndex = new HashMap<>();
+        Map<String, Integer> rowByStudent = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            Student s = students.get(i);
+            studentIds[i] = s.getStudentId().trim();
+            program[i] = programIndex.computeIfAbsent(s.getProgramId().trim(), k -> programIndex.size());
+            rowByStudent.putIfAbsent(studentIds[i], i);
+        }
+
+        // Course columns parsed once: index, exam weight, assignment weight
+        List<Course> courseList = data.courseList();
+        String[] courseIds = new String[courseList.size()];
+        int[] courseCredits = new int[courseList.size()];
+        Map<String, double[]> courses = new HashMap<>();
+        for (Course c : courseList) {
+            int index = courses.size();
+            String id = c.getCourseId().trim();
+            if (courses.containsKey(id)) continue;
+            courseIds[index] = id;
+            courseCredits[index] = Integer.parseInt(c.getCredits().trim());
+            courses.put(id, new double[]{index, Double.parseDouble(c.getExamWeight().trim()) / 100,
+                    Double.parseDouble(c.getAssignmentWeight().trim()) / 100});
+        }
+
+        List<Enrollment> enrollments = data.enrollmentList();
+        int[] enrollmentRow = new int[enrollments.size()];
+        int[] enrollmentCourse = new int[enrollments.size()];
+        double[] finalScore = new double[enrollments.size()];
+        int[] enrollmentTerm = new int[enrollments.size()];
+        int m = 0;
+        for (Enrollment en : enrollments) {
+            Integer row = rowByStudent.get(en.getStudentId().trim());
+            double[] course = courses.get(en.getCourseId().trim());
+            if (row == null || course == null) continue;
+
+            enrollmentRow[m] = row;
+            enrollmentCourse[m] = (int) course[0];
+            finalScore[m] = Double.parseDouble(en.getExamScore().trim()) * course[1]
+                    + Double.parseDouble(en.getAssignmentScore().trim()) * course[2];
+            enrollmentTerm[m] = Integer.parseInt(en.getYear().trim()) * 100 + Integer.parseInt(en.getSemester().trim());
+            m++;
+        }
+
+        CohortData cohort = new CohortData(studentIds, toArray(programIndex), Arrays.copyOf(courseIds, courses.size()),
+                rowByStudent, program, Arrays.copyOf(enrollmentRow, m), Arrays.copyOf(enrollmentCourse, m),
+                Arrays.copyOf(finalScore, m), Arrays.copyOf(enrollmentTerm, m), Arrays.copyOf(courseCredits, courses.size()),
+                RetakePolicy.configured());
+        cohort.aggregate(GradingPolicy.current());
+
+        Log.info("CohortData", "Aggregated " + n + " students and " + m + " enrollments in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        return cohort;
+    }
+
+    /**
+     * Returns the same students and enrollments aggregated under a different
+     * grading policy. Only the aggregate columns are new; the rest is shared.
+     */
+    public CohortData regrade(GradingPolicy policy) {
+        int n = size();
+        CohortData regraded = new CohortData(this, new int[n], new double[n], new int[n]);
+        regraded.aggregate(policy);
+        return regraded;
+    }
+
+    // Fills credits, CGPA and failed courses from the enrollment columns
+    private void aggregate(GradingPolicy policy) {
+        double[] points = new double[size()];
+        for (int e : countedEnrollments(policy)) {
+            int row = enrollmentRow[e];
+            int courseCredit = courseCredits[enrollmentCourse[e]];
+            double gpa = policy.gradePointFor(finalScore[e]);
+            credits[row] += courseCredit;
+            points[row] += gpa * courseCredit;
+            if (CourseResult.isFailing(gpa)) failedCourses[row]++;
+        }
+        for (int i = 0; i < points.length; i++) {
+            cgpa[i] = credits[i] == 0 ? 0.0 : points[i] / credits[i];
+        }
+    }
+
+    // The enrollments that count under the retake policy: all of them, or one per student and course
+    private int[] countedEnrollments(GradingPolicy policy) {
+        if (retakePolicy == RetakePolicy.ALL_ATTEMPTS) {
+            int[] all = new int[finalScore.length];
+            for (int e = 0; e < all.length; e++) all[e] = e;
+            return all;
+        }
+
+        Map<Long, Integer> counted = new HashMap<>();
+        for (int e = 0; e < finalScore.length; e++) {
+            Long key = (long) enrollmentRow[e] << 32 | enrollmentCourse[e];
+            Integer previous = counted.get(key);
+            boolean replaces = previous == null || (retakePolicy == RetakePolicy.LATEST_ATTEMPT
+                    ? enrollmentTerm[e] >= enrollmentTerm[previous]
+                    : policy.gradePointFor(finalScore[e]) > policy.gradePointFor(finalScore[previous]));
+            if (replaces) counted.put(key, e);
+        }
+        int[] result = new int[counted.size()];
+        int i = 0;
+        for (int e : counted.values()) result[i++] = e;
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static String[] toArray(Map<String, Integer> index) {
+        String[] ids = new String[index.size()];
+        for (Map.Entry<String, Integer> entry : index.entrySet()) {
+            ids[entry.getValue()] = entry.getKey();
+        }
+        return ids;
+    }
+
+    public int size() {
+        return studentIds.length;
+    }
+
+    /**
+     * Returns the row of a student, or -1 if the student is not in the cohort.
+     */
+    public int rowOf(String studentId) {
+        Integer row = rowByStudent.get(studentId.trim());
+        return row == null ? -1 : row;
+    }
+
+    public String getStudentId(int row) {
+        return studentIds[row];
+    }
+
+    public String getProgramId(int row) {
+        return programIds[program[row]];
+    }
+
+    public int getCredits(int row) {
+        return credits[row];
+    }
+
+    public double getCgpa(int row) {
+        return cgpa[row];
+    }
+
+    public int getFailedCourses(int row) {
+        return failedCourses[row];
+    }
+
+    /**
+     * Returns the distinct program IDs, indexed by the program column.
+     */
+    public String[] getProgramIds() {
+        return programIds.clone();
+    }
+
+    /**
+     * Returns the distinct course IDs, indexed by the enrollment course column.
+     */
+    public String[] getCourseIds() {
+        return courseIds.clone();
+    }
+
+    public int getEnrollmentCount() {
+        return finalScore.length;
+    }
+
+    /**
+     * Returns the rows of the students in a program; empty if the program is unknown.
+     */
+    public BitSet rowsInProgram(String programId) {
+        BitSet rows = new BitSet(size());
+        for (int p = 0; p < programIds.length; p++) {
+            if (programIds[p].equals(programId)) {
+                for (int i = 0; i < program.length; i++) {
+                    if (program[i] == p) rows.set(i);
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,234 @@
+package service;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.*;
+import academic.AttemptHistory;
+import academic.CourseAttempt;
+import academic.RetakePolicy;
+import data_access.DataAccess;
+import logging.Log;
+import model.Course;
+import model.Program;
+import model.Student;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+
+/**
+ * Generates one printable PDF with the academic performance of every student in a program.
+ *
+ * Each student's results go into a single PdfPTable that is marked incomplete
+ * (iText's LargeElement support). The table is added to the document every
+ * FLUSH_ROWS rows, which lays out the finished rows, writes full pages to disk
+ * and drops them from memory. Memory use therefore stays flat no matter how many
+ * students the cohort has.
+ *
+ * The rows are the attempts of the {@link AttemptHistoryStore}, and the totals
+ * are its counted credits and CGPA under the configured {@link RetakePolicy}, so
+ * the report agrees with every other CGPA in the system.
+ */
+public class CohortReportPDF
+{
+    private static final int FLUSH_ROWS = 50;
+
+    private static final Font heading = PdfResources.HEADING;
+    private static final Font subheading = PdfResources.SUBHEADING;
+    private static final Font body = PdfResources.SMALL_BODY;
+    private static final Font column = PdfResources.SMALL_COLUMN;
+    private static final String pdfTitle = "Cohort Academic Performance Report";
+
+    private static final String[] columnTitles = {"Year", "Sem", "Course Code", "Course Title", "Credit Hours", "Grade", "Grade Point"};
+    private static final float[] columnWidths = {0.6f, 0.6f, 1.1f, 3f, 1.1f, 0.75f, 1f};
+
+    DataAccess data = new DataAccess();
+
+    /**
+     * Writes the cohort report for a program to the Downloads folder.
+     *
+     * @param programId The program whose students are included
+     * @return The path of the generated file, or null if generation failed
+     */
+    public String createDocument(String programId)
+    {
+        return createDocument(programId, null);
+    }
+
+    /**
+     * Writes the cohort report for a program to the Downloads folder.
+     *
+     * @param progress Receives the completed percentage after each student, or null.
+     *                 It may throw CancellationException to abandon the report, in
+     *                 which case the partial file is deleted and the exception rethrown.
+     * @return The path of the generated file, or null if generation failed
+     */
+    public String createDocument(String programId, IntConsumer progress)
+    {
+        LocalDateTime currDateTime = LocalDateTime.now(ZoneId.of("GMT+8"));
+        String docName = "Cohort_" + programId + "_" + currDateTime.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".pdf";
+        final String FILE_PATH = System.getProperty("user.home") + File.separator + "Downloads" + File.separator + docName;
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(FILE_PATH)))
+        {
+            writeDocument(programId, out, progress);
+            return FILE_PATH;
+        }
+        catch (CancellationException e)
+        {
+            new File(FILE_PATH).delete();
+            throw e;
+        }
+        catch (Exception e)
+        {
+            Log.error("CohortReportPDF", "Failed to write the cohort report for " + programId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the cohort report for a program to a stream.
+     */
+    public void writeDocument(String programId, OutputStream out) throws DocumentException
+    {
+        writeDocument(programId, out, null);
+    }
+
+    /**
+     * Writes the cohort report for a program to a stream, reporting progress
+     * after each student.
+     */
+    public void writeDocument(String programId, OutputStream out, IntConsumer progress) throws DocumentException
+    {
+        Document doc = new Document(PageSize.A4);
+        PdfWriter writer = PdfWriter.getInstance(doc, out);
+        PdfResources.configure(writer);
+        PdfResources.Templates templates = new PdfResources.Templates(writer, doc);
+        doc.addCreationDate();
+        doc.addTitle(pdfTitle + " - " + programId);
+        doc.open();
+
+        String programName = programId;
+        for (Program p : data.programList())
+        {
+            if (p.getProgramId().trim().equals(programId))
+            {
+                programName = p.getLevel() + " in " + p.getName();
+                break;
+            }
+        }
+
+        Paragraph header = new Paragraph(pdfTitle.toUpperCase(), heading);
+        header.setAlignment(Element.ALIGN_CENTER);
+        doc.add(header);
+        Paragraph programLine = new Paragraph(programName, body);
+        programLine.setAlignment(Element.ALIGN_CENTER);
+        programLine.setSpacingAfter(12);
+        doc.add(programLine);
+
+        List<Student> cohort = new ArrayList<>();
+        for (Student s : data.studentList())
+        {
+            if (s.getProgramId().trim().equals(programId))
+            {
+                cohort.add(s);
+            }
+        }
+        AttemptHistoryStore attempts = AttemptHistoryStore.getInstance();
+        RetakePolicy policy = RetakePolicy.configured();
+        Map<String, Course> courses = new HashMap<>();
+        for (Course c : data.courseList())
+        {
+            courses.put(c.getCourseId().trim(), c);
+        }
+
+        if (cohort.isEmpty())
+        {
+            doc.add(new Paragraph("No students are enrolled in this program.", body));
+        }
+        for (int i = 0; i < cohort.size(); i++)
+        {
+            addStudent(doc, templates, cohort.get(i), attempts, policy, courses);
+            if (progress != null)
+            {
+                progress.accept(5 + 90 * (i + 1) / cohort.size());
+            }
+        }
+        doc.close();
+    }
+
+    private void addStudent(Document doc, PdfResources.Templates templates, Student student, AttemptHistoryStore attempts,
+                            RetakePolicy policy, Map<String, Course> courses) throws DocumentException
+    {
+        String studentId = student.getStudentId().trim();
+        Paragraph name = new Paragraph(studentId + " - " + student.getFirstName() + " " + student.getLastName(), subheading);
+        name.setSpacingBefore(14);
+        name.setSpacingAfter(6);
+        doc.add(name);
+
+        PdfPTable tab = new PdfPTable(columnTitles.length);
+        tab.setWidthPercentage(100);
+        tab.setWidths(columnWidths);
+        tab.setHeaderRows(1);
+        tab.setComplete(false);
+
+        tab.addCell(templates.headerRow(columnTitles, columnWidths, column));
+
+        // Every attempt, in the order they were taken
+        List<String[]> rows = new ArrayList<>();
+        for (AttemptHistory history : attempts.getHistories(studentId))
+        {
+            Course course = courses.get(history.getCourseID());
+            if (course == null)
+            {
+                continue;
+            }
+            for (CourseAttempt attempt : history.getAttempts())
+            {
+                rows.add(new String[]{String.valueOf(attempt.getYear()), String.valueOf(attempt.getSemester()), course.getCourseId().trim(),
+                        course.getName(), course.getCredits(), attempt.getResultGrade(), String.valueOf(attempt.getGradePoint())});
+            }
+        }
+        rows.sort(Comparator.comparing((String[] r) -> Integer.parseInt(r[0]))
+                .thenComparing(r -> Integer.parseInt(r[1]))
+                .thenComparing(r -> r[2]));
+
+        int rowsSinceFlush = 0;
+        for (String[] row : rows)
+        {
+            for (String cell : row)
+            {
+                addCell(tab, cell);
+            }
+
+            if (++rowsSinceFlush == FLUSH_ROWS)
+            {
+                // Lays out the finished rows and frees them; the header row is repeated on new pages
+                doc.add(tab);
+                rowsSinceFlush = 0;
+            }
+        }
+
+        tab.addCell(templates.label("Total Credit Hours / CGPA", column, columnWidths, 0, columnTitles.length - 2));
+        int credits = attempts.getCountedCredits(studentId, policy);
+        addCell(tab, String.valueOf(credits));
+        addCell(tab, credits == 0 ? "-" : String.format("%.2f", attempts.calculateCGPA(studentId, policy)));
+
+        tab.setComplete(true);
+        doc.add(tab);
+    }
+
+    private void addCell(PdfPTable tab, String text)
+    {
+        PdfPCell cell = new PdfPCell(new Phrase(text, body));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        tab.addCell(cell);
+    }
+}
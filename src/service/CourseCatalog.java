@@ -1,6 +1,10 @@
 package service;
 
 import academic.Course;
+import data_access.DataCache;
+import data_access.DataTable;
+import data_access.IdPool;
+import logging.Log;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -10,12 +14,16 @@ import java.util.HashMap;
 
 public class CourseCatalog {
     private static CourseCatalog instance = new CourseCatalog();
-    private Map<String, Course> courses;
+    private volatile Map<String, Course> courses;
     private final String COURSE_FILE_PATH = "data/course_assessment_information.csv";
 
     private CourseCatalog(){
         this.courses = new HashMap<>();
         loadCourses();
+        // Pick up edits to the course file without a restart
+        DataCache.getInstance().addListener(table -> {
+            if (table == DataTable.COURSES) loadCourses();
+        });
     }
 
     public static CourseCatalog getInstance(){
@@ -23,7 +31,9 @@ public class CourseCatalog {
     }
 
     public void loadCourses(){
-        System.err.println("Loading courses from file: " + COURSE_FILE_PATH);
+        // Built separately and swapped in, so lookups never see a partly loaded catalog
+        Map<String, Course> loaded = new HashMap<>();
+        Log.info("CourseCatalog", "Loading courses from file: " + COURSE_FILE_PATH);
 
         try (BufferedReader br = new BufferedReader(new FileReader(COURSE_FILE_PATH))) {
             String line;
@@ -31,24 +41,25 @@ public class CourseCatalog {
 
             while ((line = br.readLine()) != null){
                 String[] values = line.split(",");
-                if (values.length >= 7){
-                    String courseID = values[0].trim();
+                if (values.length >= 6){
+                    String courseID = IdPool.COURSES.intern(values[0].trim());
                     String courseName = values[1].trim();
 
                     int credits = Integer.parseInt(values[2].trim());
-                    int examWeight =  Integer.parseInt(values[5].trim());
-                    int assignmentWeight = Integer.parseInt(values[6].trim());
+                    int examWeight =  Integer.parseInt(values[4].trim());
+                    int assignmentWeight = Integer.parseInt(values[5].trim());
 
                     Course course = new Course (courseID, courseName, credits, examWeight, assignmentWeight);
 
-                    courses.put(courseID, course);
+                    loaded.put(courseID, course);
                 }
             }
-            System.err.println("Successfully loaded " + courses.size() + " courses.");
+            courses = loaded;
+            Log.info("CourseCatalog", "Successfully loaded " + loaded.size() + " courses.");
         } catch (IOException e){
-            System.err.println("ERROR: Failed to load courses from file." + e.getMessage());
+            Log.error("CourseCatalog", "Failed to load courses from file. " + e.getMessage());
         } catch (NumberFormatException e){
-            System.err.println("ERROR: Data format error in course file." + e.getMessage());
+            Log.error("CourseCatalog", "Data format error in course file. " + e.getMessage());
         }
     }
 
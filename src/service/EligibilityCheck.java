@@ -1,23 +1,19 @@
 package service;
 import domain.StudentPerformance;
 
+/**
+ * Decides whether a student is eligible for the course recovery program.
+ * The conditions are configured in data/eligibility_rules.properties, see EligibilityRules.
+ */
 public class EligibilityCheck
 {
-    public boolean[] isEligible(StudentPerformance performance)
+    public EligibilityRules.Decision isEligible(String programId, StudentPerformance performance)
     {
-        final int maxFailedCourses = 3;
-        final double minCGPA = 2.0;
-        final boolean conditionOneMet = performance.getFailedCourses() > maxFailedCourses;
-        final boolean conditionTwoMet = performance.getCgpa() < minCGPA;
-        final boolean anyConditionMet = conditionOneMet || conditionTwoMet;
+        return EligibilityRules.getInstance().evaluate(programId, performance.getFailedCourses(), performance.getCgpa(), performance.getTotalCredits());
+    }
 
-        if (anyConditionMet)
-        {
-            return new boolean[]{true, conditionOneMet, conditionTwoMet};
-        }
-        else
-        {
-            return new boolean[]{false, conditionOneMet, conditionTwoMet};
-        }
+    public boolean isEligible(String programId, int failedCourses, double cgpa, int credits)
+    {
+        return EligibilityRules.getInstance().evaluate(programId, failedCourses, cgpa, credits).isEligible();
     }
 }
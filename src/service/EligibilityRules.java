@@ -0,0 +1,604 @@
+package service;
+
+import logging.Log;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recovery eligibility rules, read from a properties file so thresholds and
+ * conditions can change without a new release.
+ *
+ * File format (data/eligibility_rules.properties):
+ * <pre>
+ * # A condition compares one metric (cgpa, failedCourses, credits) with a number
+ * condition.too_many_failed = failedCourses &gt; 3
+ * condition.low_cgpa = cgpa &lt; 2.0
+ * condition.low_cgpa.description = CGPA below 2.00        (optional)
+ *
+ * # The rule combines conditions with and, or, not and parentheses
+ * rule = too_many_failed or low_cgpa
+ *
+ * # Programs can replace conditions or the rule
+ * program.P002.condition.low_cgpa = cgpa &lt; 2.5
+ * program.P003.rule = low_cgpa and not (credits &lt; 12)
+ * </pre>
+ *
+ * The rules are compiled once. A single student is checked with
+ * {@link #evaluate(String, int, double, int)}; the whole cohort is checked with
+ * {@link #evaluate(CohortData)}, which tests each distinct condition once over a
+ * column of {@link CohortData} into a BitSet and combines the BitSets with the
+ * rule of each program. Both return the conditions that made a student eligible.
+ */
+public final class EligibilityRules {
+
+    public static final String DEFAULT_PATH = "data/eligibility_rules.properties";
+
+    private static final Pattern CONDITION = Pattern.compile("\\s*(\\w+)\\s*(<=|>=|==|!=|<|>)\\s*(-?\\d+(?:\\.\\d+)?)\\s*");
+    private static final Pattern TOKEN = Pattern.compile("\\s*(\\(|\\)|&&|\\|\\||!|[A-Za-z_][A-Za-z0-9_]*)");
+
+    private static EligibilityRules instance;
+    private static long instanceModified = -1;
+
+    /**
+     * The per-student values a condition can test.
+     */
+    public enum Metric {
+        CGPA("cgpa", "CGPA", false),
+        FAILED_COURSES("failedCourses", "No. of failed courses", true),
+        CREDITS("credits", "Credits", true);
+
+        private final String key;
+        private final String label;
+        private final boolean whole;
+
+        Metric(String key, String label, boolean whole) {
+            this.key = key;
+            this.label = label;
+            this.whole = whole;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        String format(double value) {
+            return whole ? String.valueOf((long) value) : String.format("%.2f", value);
+        }
+
+        double valueOf(CohortData cohort, int row) {
+            switch (this) {
+                case CGPA: return cohort.cgpa[row];
+                case FAILED_COURSES: return cohort.failedCourses[row];
+                default: return cohort.credits[row];
+            }
+        }
+
+        static Metric fromKey(String key) {
+            for (Metric m : values()) {
+                if (m.key.equalsIgnoreCase(key)) return m;
+            }
+            return null;
+        }
+    }
+
+    private final Policy defaults;
+    private final Map<String, Policy> programs;
+
+    private EligibilityRules(Policy defaults, Map<String, Policy> programs) {
+        this.defaults = defaults;
+        this.programs = programs;
+    }
+
+    /**
+     * Returns the rules in {@link #DEFAULT_PATH}, reading the file again when it
+     * has changed. If the file is missing the built-in rules are used; if it is
+     * invalid the previous rules stay in effect.
+     */
+    public static synchronized EligibilityRules getInstance() {
+        Path path = Paths.get(DEFAULT_PATH);
+        long modified = path.toFile().lastModified();
+        if (instance == null || modified != instanceModified) {
+            try {
+                instance = Files.exists(path) ? load(path) : builtIn();
+                Log.info("EligibilityRules", "Loaded eligibility rules from " + (Files.exists(path) ? DEFAULT_PATH : "built-in defaults") + ".");
+            } catch (IOException | IllegalArgumentException e) {
+                Log.error("EligibilityRules", "Invalid eligibility rules, keeping the previous ones. " + e.getMessage());
+                if (instance == null) instance = builtIn();
+            }
+            instanceModified = modified;
+        }
+        return instance;
+    }
+
+    /**
+     * The rules that applied before they became configurable:
+     * more than 3 failed courses or a CGPA below 2.0.
+     */
+    public static EligibilityRules builtIn() {
+        Properties p = new Properties();
+        p.setProperty("condition.too_many_failed", "failedCourses > 3");
+        p.setProperty("condition.low_cgpa", "cgpa < 2.0");
+        p.setProperty("rule", "too_many_failed or low_cgpa");
+        return parse(p);
+    }
+
+    public static EligibilityRules load(Path path) throws IOException {
+        Properties p = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            p.load(reader);
+        }
+        return parse(p);
+    }
+
+    /**
+     * Compiles rules from properties in the format described above.
+     *
+     * @throws IllegalArgumentException if a condition or rule cannot be parsed
+     */
+    public static EligibilityRules parse(Properties p) {
+        Map<String, Condition> conditions = new LinkedHashMap<>();
+        Map<String, Map<String, Condition>> programConditions = new HashMap<>();
+        Map<String, String> programRules = new HashMap<>();
+
+        for (String key : p.stringPropertyNames()) {
+            String value = p.getProperty(key).trim();
+            if (key.startsWith("condition.") && !key.endsWith(".description")) {
+                String name = key.substring("condition.".length());
+                conditions.put(name, parseCondition(name, value, p.getProperty(key + ".description")));
+            } else if (key.startsWith("program.")) {
+                String rest = key.substring("program.".length());
+                int dot = rest.indexOf('.');
+                if (dot < 0) throw new IllegalArgumentException("Unknown key " + key);
+                String program = rest.substring(0, dot);
+                String setting = rest.substring(dot + 1);
+                if (setting.equals("rule")) {
+                    programRules.put(program, value);
+                } else if (setting.startsWith("condition.") && !setting.endsWith(".description")) {
+                    String name = setting.substring("condition.".length());
+                    programConditions.computeIfAbsent(program, k -> new LinkedHashMap<>())
+                            .put(name, parseCondition(name, value, p.getProperty(key + ".description")));
+                } else if (!setting.endsWith(".description")) {
+                    throw new IllegalArgumentException("Unknown key " + key);
+                }
+            } else if (!key.equals("rule") && !key.endsWith(".description")) {
+                throw new IllegalArgumentException("Unknown key " + key);
+            }
+        }
+
+        String rule = p.getProperty("rule");
+        if (rule == null) throw new IllegalArgumentException("No rule given");
+        Policy defaults = new Policy(conditions, rule);
+
+        Set<String> overridden = new LinkedHashSet<>(programConditions.keySet());
+        overridden.addAll(programRules.keySet());
+        Map<String, Policy> programs = new HashMap<>();
+        for (String program : overridden) {
+            Map<String, Condition> merged = new LinkedHashMap<>(conditions);
+            merged.putAll(programConditions.getOrDefault(program, Collections.emptyMap()));
+            programs.put(program, new Policy(merged, programRules.getOrDefault(program, rule)));
+        }
+        return new EligibilityRules(defaults, programs);
+    }
+
+    /**
+     * Checks one student.
+     *
+     * @param programId The student's program, for program overrides; may be null
+     */
+    public Decision evaluate(String programId, int failedCourses, double cgpa, int credits) {
+        Policy policy = policyFor(programId);
+        double[] values = new double[Metric.values().length];
+        values[Metric.CGPA.ordinal()] = cgpa;
+        values[Metric.FAILED_COURSES.ordinal()] = failedCourses;
+        values[Metric.CREDITS.ordinal()] = credits;
+
+        Predicate<String> holds = name -> {
+            Condition c = policy.conditions.get(name);
+            return c.test(values[c.metric.ordinal()]);
+        };
+        if (!policy.rule.test(holds)) {
+            return new Decision(false, Collections.emptyList());
+        }
+        List<Reason> reasons = new ArrayList<>();
+        for (String name : policy.referenced) {
+            Condition c = policy.conditions.get(name);
+            double value = values[c.metric.ordinal()];
+            if (c.test(value)) reasons.add(new Reason(c, value));
+        }
+        return new Decision(true, reasons);
+    }
+
+    /**
+     * Checks every student of the cohort.
+     */
+    public CohortResult evaluate(CohortData cohort) {
+        int n = cohort.size();
+
+        // Students grouped by the policy of their program
+        String[] programIds = cohort.getProgramIds();
+        Map<Policy, BitSet> rowsByPolicy = new LinkedHashMap<>();
+        Policy[] policyOfProgram = new Policy[programIds.length];
+        for (int p = 0; p < programIds.length; p++) {
+            policyOfProgram[p] = policyFor(programIds[p]);
+        }
+        for (int i = 0; i < n; i++) {
+            rowsByPolicy.computeIfAbsent(policyOfProgram[cohort.program[i]], k -> new BitSet(n)).set(i);
+        }
+
+        // Each distinct condition is tested once, even if several programs use it
+        Map<String, BitSet> tested = new HashMap<>();
+        BitSet eligible = new BitSet(n);
+        Map<String, BitSet> met = new HashMap<>();
+
+        for (Map.Entry<Policy, BitSet> entry : rowsByPolicy.entrySet()) {
+            Policy policy = entry.getKey();
+            BitSet rows = entry.getValue();
+            Function<String, BitSet> column = name -> {
+                Condition c = policy.conditions.get(name);
+                return tested.computeIfAbsent(c.key(), k -> c.select(cohort));
+            };
+
+            BitSet result = policy.rule.evaluate(column, n);
+            result.and(rows);
+            eligible.or(result);
+
+            for (String name : policy.referenced) {
+                BitSet reason = (BitSet) column.apply(name).clone();
+                reason.and(result);
+                met.computeIfAbsent(name, k -> new BitSet(n)).or(reason);
+            }
+        }
+        return new CohortResult(this, cohort, eligible, met);
+    }
+
+    private Policy policyFor(String programId) {
+        Policy policy = programId == null ? null : programs.get(programId.trim());
+        return policy == null ? defaults : policy;
+    }
+
+    private static Condition parseCondition(String name, String text, String description) {
+        Matcher m = CONDITION.matcher(text);
+        Metric metric = m.matches() ? Metric.fromKey(m.group(1)) : null;
+        if (metric == null) {
+            throw new IllegalArgumentException("Invalid condition " + name + ": " + text);
+        }
+        return new Condition(name, metric, m.group(2), Double.parseDouble(m.group(3)), description);
+    }
+
+    /**
+     * The outcome for one student: eligible or not, and the conditions that held.
+     */
+    public static final class Decision {
+        private final boolean eligible;
+        private final List<Reason> reasons;
+
+        Decision(boolean eligible, List<Reason> reasons) {
+            this.eligible = eligible;
+            this.reasons = Collections.unmodifiableList(reasons);
+        }
+
+        public boolean isEligible() {
+            return eligible;
+        }
+
+        /**
+         * Returns the conditions that made the student eligible; empty if not eligible.
+         */
+        public List<Reason> getReasons() {
+            return reasons;
+        }
+    }
+
+    /**
+     * A condition that held for a student, with the student's value.
+     */
+    public static final class Reason {
+        private final String condition;
+        private final String description;
+        private final double value;
+        private final Metric metric;
+
+        Reason(Condition c, double value) {
+            this.condition = c.name;
+            this.description = c.description;
+            this.value = value;
+            this.metric = c.metric;
+        }
+
+        public String getCondition() {
+            return condition;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return description + " ( " + metric.format(value) + " )";
+        }
+    }
+
+    /**
+     * The outcome for a whole cohort, by row of the {@link CohortData}.
+     */
+    public static final class CohortResult {
+        private final EligibilityRules rules;
+        private final CohortData cohort;
+        private final BitSet eligible;
+        private final Map<String, BitSet> met;
+
+        CohortResult(EligibilityRules rules, CohortData cohort, BitSet eligible, Map<String, BitSet> met) {
+            this.rules = rules;
+            this.cohort = cohort;
+            this.eligible = eligible;
+            this.met = met;
+        }
+
+        public boolean isEligible(int row) {
+            return eligible.get(row);
+        }
+
+        public int getEligibleCount() {
+            return eligible.cardinality();
+        }
+
+        public BitSet getEligibleRows() {
+            return (BitSet) eligible.clone();
+        }
+
+        /**
+         * Returns the number of eligible students for whom a condition held.
+         */
+        public int getCount(String condition) {
+            BitSet rows = met.get(condition);
+            return rows == null ? 0 : rows.cardinality();
+        }
+
+        /**
+         * Returns the conditions that made a student eligible; empty if not eligible.
+         */
+        public List<Reason> getReasons(int row) {
+            if (!eligible.get(row)) return Collections.emptyList();
+            Policy policy = rules.policyFor(cohort.getProgramId(row));
+            List<Reason> reasons = new ArrayList<>();
+            for (String name : policy.referenced) {
+                BitSet rows = met.get(name);
+                if (rows != null && rows.get(row)) {
+                    Condition c = policy.conditions.get(name);
+                    reasons.add(new Reason(c, c.metric.valueOf(cohort, row)));
+                }
+            }
+            return reasons;
+        }
+    }
+
+    // The conditions and compiled rule that apply to one program (or to all by default)
+    private static final class Policy {
+        final Map<String, Condition> conditions;
+        final Expr rule;
+        // The conditions that can be reasons for eligibility, in the order the rule names them
+        final List<String> referenced;
+
+        Policy(Map<String, Condition> conditions, String rule) {
+            RuleParser parser = new RuleParser(rule, conditions.keySet());
+            this.conditions = conditions;
+            this.rule = parser.parse();
+            this.referenced = new ArrayList<>(parser.reasons);
+        }
+    }
+
+    // metric op threshold, with the operator stored as the set of outcomes it accepts
+    private static final class Condition {
+        private static final int BELOW = 1;
+        private static final int EQUAL = 2;
+        private static final int ABOVE = 4;
+
+        final String name;
+        final Metric metric;
+        final String operator;
+        final double threshold;
+        final String description;
+        private final int accepts;
+
+        Condition(String name, Metric metric, String operator, double threshold, String description) {
+            this.name = name;
+            this.metric = metric;
+            this.operator = operator;
+            this.threshold = threshold;
+            this.description = description != null ? description.trim()
+                    : metric.getLabel() + " " + operator + " " + metric.format(threshold);
+            switch (operator) {
+                case "<": accepts = BELOW; break;
+                case "<=": accepts = BELOW | EQUAL; break;
+                case ">": accepts = ABOVE; break;
+                case ">=": accepts = ABOVE | EQUAL; break;
+                case "==": accepts = EQUAL; break;
+                default: accepts = BELOW | ABOVE; break;
+            }
+        }
+
+        boolean test(double value) {
+            return (accepts & (value < threshold ? BELOW : value == threshold ? EQUAL : ABOVE)) != 0;
+        }
+
+        // The rows for which the condition holds, in one pass over the metric's column
+        BitSet select(CohortData cohort) {
+            int n = cohort.size();
+            BitSet rows = new BitSet(n);
+            switch (metric) {
+                case CGPA:
+                    double[] cgpa = cohort.cgpa;
+                    for (int i = 0; i < n; i++) {
+                        if (test(cgpa[i])) rows.set(i);
+                    }
+                    break;
+                default:
+                    int[] column = metric == Metric.FAILED_COURSES ? cohort.failedCourses : cohort.credits;
+                    for (int i = 0; i < n; i++) {
+                        if (test(column[i])) rows.set(i);
+                    }
+                    break;
+            }
+            return rows;
+        }
+
+        // Conditions with the same test share one BitSet during a cohort evaluation
+        String key() {
+            return metric + operator + threshold;
+        }
+    }
+
+    // A compiled rule; evaluated for one student or as BitSets for many
+    private interface Expr {
+        boolean test(Predicate<String> holds);
+
+        BitSet evaluate(Function<String, BitSet> column, int size);
+    }
+
+    // Recursive descent: or := and (OR and)*, and := unary (AND unary)*, unary := NOT unary | ( or ) | name
+    private static final class RuleParser {
+        private final String text;
+        private final Set<String> known;
+        private final List<String> tokens = new ArrayList<>();
+        private int pos;
+
+        // Conditions that appear outside a not; a negated condition is never a reason
+        final Set<String> reasons = new LinkedHashSet<>();
+        private int negated;
+
+        RuleParser(String text, Set<String> known) {
+            this.text = text;
+            this.known = known;
+            Matcher m = TOKEN.matcher(text);
+            int end = 0;
+            while (m.lookingAt()) {
+                tokens.add(m.group(1));
+                end = m.end();
+                m.region(end, text.length());
+            }
+            if (!text.substring(end).trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid rule: " + text);
+            }
+        }
+
+        Expr parse() {
+            Expr expr = or();
+            if (pos != tokens.size()) throw new IllegalArgumentException("Invalid rule: " + text);
+            return expr;
+        }
+
+        private Expr or() {
+            Expr left = and();
+            while (accept("or", "||")) {
+                Expr l = left;
+                Expr r = and();
+                left = new Expr() {
+                    public boolean test(Predicate<String> holds) {
+                        return l.test(holds) || r.test(holds);
+                    }
+
+                    public BitSet evaluate(Function<String, BitSet> column, int size) {
+                        BitSet bits = l.evaluate(column, size);
+                        bits.or(r.evaluate(column, size));
+                        return bits;
+                    }
+                };
+            }
+            return left;
+        }
+
+        private Expr and() {
+            Expr left = unary();
+            while (accept("and", "&&")) {
+                Expr l = left;
+                Expr r = unary();
+                left = new Expr() {
+                    public boolean test(Predicate<String> holds) {
+                        return l.test(holds) && r.test(holds);
+                    }
+
+                    public BitSet evaluate(Function<String, BitSet> column, int size) {
+                        BitSet bits = l.evaluate(column, size);
+                        bits.and(r.evaluate(column, size));
+                        return bits;
+                    }
+                };
+            }
+            return left;
+        }
+
+        private Expr unary() {
+            if (accept("not", "!")) {
+                negated++;
+                Expr inner = unary();
+                negated--;
+                return new Expr() {
+                    public boolean test(Predicate<String> holds) {
+                        return !inner.test(holds);
+                    }
+
+                    public BitSet evaluate(Function<String, BitSet> column, int size) {
+                        BitSet bits = inner.evaluate(column, size);
+                        bits.flip(0, size);
+                        return bits;
+                    }
+                };
+            }
+            if (accept("(", "(")) {
+                Expr inner = or();
+                if (!accept(")", ")")) throw new IllegalArgumentException("Missing ) in rule: " + text);
+                return inner;
+            }
+            if (pos >= tokens.size()) throw new IllegalArgumentException("Incomplete rule: " + text);
+
+            String name = tokens.get(pos++);
+            if (!known.contains(name)) throw new IllegalArgumentException("Unknown condition " + name + " in rule: " + text);
+            if (negated % 2 == 0) reasons.add(name);
+            return new Expr() {
+                public boolean test(Predicate<String> holds) {
+                    return holds.test(name);
+                }
+
+                public BitSet evaluate(Function<String, BitSet> column, int size) {
+                    // Copied, since the caller combines it in place
+                    return (BitSet) column.apply(name).clone();
+                }
+            };
+        }
+
+        private boolean accept(String word, String symbol) {
+            if (pos < tokens.size()) {
+                String token = tokens.get(pos);
+                if (token.equals(symbol) || token.toLowerCase(Locale.ROOT).equals(word)) {
+                    pos++;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
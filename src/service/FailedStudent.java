@@ -1,5 +1,7 @@
 package service;
 
+import java.util.Objects;
+
 /**
  * FailedStudent is a helper class that represents a student who has failed
  * a component of a course and needs recovery.
@@ -52,6 +54,29 @@ public class FailedStudent {
         return failedComponent;
     }
     
+    /**
+     * Two entries are equal when they flag the same component of the same course
+     * for the same student, so refreshed results can be matched against old ones.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FailedStudent)) {
+            return false;
+        }
+        FailedStudent other = (FailedStudent) o;
+        return Objects.equals(studentId, other.studentId)
+                && Objects.equals(courseId, other.courseId)
+                && Objects.equals(failedComponent, other.failedComponent);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(studentId, courseId, failedComponent);
+    }
+
     @Override
     public String toString() {
         return "FailedStudent{" +
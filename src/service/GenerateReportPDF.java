@@ -3,6 +3,9 @@ package service;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import data_access.DataAccess;
+import data_access.EnrollmentQuery;
+import diagnostics.ReportPhaseEvent;
+import model.Enrollment;
 import model.StudentPerformance;
 
 import java.io.*;
@@ -11,39 +14,91 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 
 public class GenerateReportPDF
 {
-    private final Font heading = FontFactory.getFont(FontFactory.TIMES_BOLD, 16, BaseColor.BLACK);
-    private final Font body = FontFactory.getFont(FontFactory.TIMES, 12, BaseColor.BLACK);
-    private final Font column = FontFactory.getFont(FontFactory.TIMES_BOLD, 12, BaseColor.BLACK);
-    private final String pdfTitle = "Student Academic Performance Report";
+    private static final Font heading = PdfResources.HEADING;
+    private static final Font body = PdfResources.BODY;
+    private static final Font column = PdfResources.COLUMN;
+    private static final String pdfTitle = "Student Academic Performance Report";
+
+    private static final String[] columnTitles = {
+            "Course Code",
+            "Course Title",
+            "Credit Hours",
+            "Grade",
+            "Grade Point"
+    };
+    private static final float[] columnWidths = {1.1f, 3f, 1.1f, 0.75f, 1f};
+    private static final String[] summaryTitles = {"Total Credit Hours", "GPA", "CGPA"};
 
     private List<Double> totalGpaBySemester = new ArrayList<>();
+    // Header row and summary labels of the document being written
+    private PdfResources.Templates templates;
     DataAccess data = new DataAccess();
     List<String[]> students = data.getStudents();
 
-    public void createDocument(String studentId)
+    public String createDocument(String studentId)
+    {
+        return createDocument(studentId, null);
+    }
+
+    /**
+     * Writes the report for a student to the Downloads folder.
+     *
+     * @param progress Receives the completed percentage after each phase, or null.
+     *                 It may throw CancellationException to abandon the report, in
+     *                 which case the partial file is deleted and the exception rethrown.
+     * @return The path of the generated file, or null if generation failed
+     */
+    public String createDocument(String studentId, IntConsumer progress)
     {
         LocalDateTime currDateTime = LocalDateTime.now(ZoneId.of("GMT+8"));
         String docName = studentId + "_" + currDateTime.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".pdf";
         final String FILE_PATH = System.getProperty("user.home") + File.separator + "Downloads" + File.separator + docName;
-        try
+        // The stream is closed before either catch block runs, so the partial file can be deleted
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(FILE_PATH)))
         {
             Document doc = new Document(PageSize.A4);
-            PdfWriter.getInstance(doc, new FileOutputStream(FILE_PATH));
+            PdfWriter writer = PdfWriter.getInstance(doc, out);
+            PdfResources.configure(writer);
+            templates = new PdfResources.Templates(writer, doc);
             doc.addCreationDate();
             doc.addTitle(pdfTitle + " - " + studentId);
 
             doc.open();
+            report(progress, 10);
             generateDocContents(doc, studentId);
+            report(progress, 80);
+
+            ReportPhaseEvent fileWrite = new ReportPhaseEvent(studentId, ReportPhaseEvent.FILE_WRITE);
+            fileWrite.begin();
             doc.close();
+            fileWrite.finish(0, () -> new File(FILE_PATH).length());
+            report(progress, 100);
+            return FILE_PATH;
+        }
+        catch (CancellationException e)
+        {
+            new File(FILE_PATH).delete();
+            throw e;
         }
         catch (Exception e)
         {
             System.out.println("Error: " + e);
+            return null;
+        }
+    }
+
+    private static void report(IntConsumer progress, int percent)
+    {
+        if (progress != null)
+        {
+            progress.accept(percent);
         }
     }
 
@@ -52,6 +107,9 @@ public class GenerateReportPDF
         final String[] student_info = {"Student Name", "Student ID", "Enrolled Program"};
         try
         {
+            ReportPhaseEvent gathering = new ReportPhaseEvent(studentId, ReportPhaseEvent.DATA_GATHERING);
+            gathering.begin();
+
             Paragraph header = new Paragraph(pdfTitle.toUpperCase(), heading);
             header.setAlignment(Element.ALIGN_CENTER);
             doc.add(header);
@@ -82,7 +140,12 @@ public class GenerateReportPDF
                     break;
                 }
             }
-            separateByYear(studentId, doc);
+            gathering.finish(students.size(), 0);
+
+            ReportPhaseEvent tableBuild = new ReportPhaseEvent(studentId, ReportPhaseEvent.TABLE_BUILD);
+            tableBuild.begin();
+            int rows = separateByYear(studentId, doc);
+            tableBuild.finish(rows, 0);
         }
         catch (Exception e)
         {
@@ -90,7 +153,7 @@ public class GenerateReportPDF
         }
     }
 
-    public  void separateByYear(String studentId, Document doc)
+    public int separateByYear(String studentId, Document doc)
     {
         List<String[]> enrollments = data.getEnrollments(new String[]{studentId});
         int displayedYear = 0;
@@ -125,31 +188,16 @@ public class GenerateReportPDF
                 System.out.println("Error: " + e);
             }
         }
+        return enrollments.size();
     }
 
     public void generateTable(String studentId, Document doc, int displayedYear, int displayedSemester)
     {
-        final String[] columnTitles = {
-                "Course Code",
-                "Course Title",
-                "Credit Hours",
-                "Grade",
-                "Grade Point"
-        };
-        final int totalColumns = columnTitles.length;
-        final float[] columnWidths = {1.1f, 3f, 1.1f, 0.75f, 1f};
-
-        PdfPTable tab = new PdfPTable(totalColumns);
+        PdfPTable tab = new PdfPTable(columnTitles.length);
 
         try
         {
-            for (String columnTitle : columnTitles) {
-                PdfPCell cell = new PdfPCell();
-
-                cell.setPhrase(new Phrase(columnTitle, column));
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                tab.addCell(cell);
-            }
+            tab.addCell(templates.headerRow(columnTitles, columnWidths, column));
             addRows(studentId, tab, displayedYear, displayedSemester);
 
             tab.setWidthPercentage(100);
@@ -162,39 +210,40 @@ public class GenerateReportPDF
         }
     }
 
-    public void addRows(String studentId, PdfPTable tab, int displayedYear, int displayedSemester)
+    public void addRows(String studentId, PdfPTable tab, int displayedYear, int displayedSemester) throws DocumentException
     {
         DataAccess data = new DataAccess();
         StudentPerformance perf = new StudentPerformance(studentId);
-        List<String[]> enrollments = data.getEnrollments(new String[]{studentId});
         int totalCreditHours = 0;
         double gpa = 0;
+        List<String[]> performance = perf.getPerformance(data);
 
-        for (String[] enrollment : enrollments)
+        // Only this semester's rows are read, straight from the enrollment index
+        List<Enrollment> enrollments = data.query(EnrollmentQuery.create().student(studentId)
+                .year(displayedYear).semester(displayedSemester)).collect(Collectors.toList());
+
+        for (Enrollment enrollment : enrollments)
         {
-            if (Integer.parseInt(enrollment[3]) == displayedYear && Integer.parseInt(enrollment[4]) == displayedSemester)
+            for (String[] row : performance)
             {
-                for (String[] row : perf.getPerformance(data))
+                if (row[0].equals(enrollment.getCourseId()))
                 {
-                    if (row[0].equals(enrollment[2]))
+                    for (String s : row)
                     {
-                        for (String s : row)
+                        if (s.equals(row[2]))
+                        {
+                            totalCreditHours += Integer.parseInt(s);
+                        }
+                        if (s.equals(row[4]))
                         {
-                            if (s.equals(row[2]))
-                            {
-                                totalCreditHours += Integer.parseInt(s);
-                            }
-                            if (s.equals(row[4]))
-                            {
-                                gpa += Double.parseDouble(s) * Double.parseDouble(row[2]);
-                            }
-
-                            PdfPCell cell = new PdfPCell();
-
-                            cell.setPhrase(new Phrase(s, body));
-                            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                            tab.addCell(cell);
+                            gpa += Double.parseDouble(s) * Double.parseDouble(row[2]);
                         }
+
+                        PdfPCell cell = new PdfPCell();
+
+                        cell.setPhrase(new Phrase(s, body));
+                        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                        tab.addCell(cell);
                     }
                 }
             }
@@ -202,15 +251,12 @@ public class GenerateReportPDF
         addSummary(studentId, tab, totalCreditHours, gpa);
     }
 
-    public void addSummary(String studentId, PdfPTable tab, int creditHours, double gpa)
+    public void addSummary(String studentId, PdfPTable tab, int creditHours, double gpa) throws DocumentException
     {
         DataAccess data = new DataAccess();
         StudentPerformance perf = new StudentPerformance(studentId);
         perf.getPerformance(data);
 
-        final List<String> summaryTitles = Arrays.asList("Total Credit Hours", "GPA", "CGPA");
-        final int totalSummary = summaryTitles.size();
-
         String cgpa_by_semester = String.format("%.2f", gpa / creditHours);
         double cgpa = 0;
         totalGpaBySemester.add(Double.valueOf(cgpa_by_semester));
@@ -221,34 +267,16 @@ public class GenerateReportPDF
         }
 
         String[] results = {String.valueOf(creditHours), cgpa_by_semester, String.format("%.2f", cgpa / totalGpaBySemester.size())};
-        int cellsAdded = 0;
 
-        for (String summary : summaryTitles)
+        // The spacer is shared and the labels are document templates; only the value cell is new
+        for (int i = 0; i < summaryTitles.length; i++)
         {
-            for (int i = 0; i < totalSummary; i++)
-            {
-                PdfPCell cell = new PdfPCell(new Phrase(""));
+            tab.addCell(PdfResources.SUMMARY_SPACER);
+            tab.addCell(templates.label(summaryTitles[i], column, columnWidths, 2, 2));
 
-                if (cellsAdded == 0 || cellsAdded == 3 || cellsAdded == 6)
-                {
-                    cell.setColspan(2);
-                    cell.setBorder(PdfPCell.NO_BORDER);
-                }
-                else if (cellsAdded == 1 || cellsAdded == 4 || cellsAdded == 7)
-                {
-                    cell.setColspan(2);
-                    cell.setPhrase(new Phrase(summary, column));
-                    cell.setBorder(PdfPCell.BOX);
-                }
-                else
-                {
-                    cell.setColspan(1);
-                    cell.setPhrase(new Phrase(results[summaryTitles.indexOf(summary)], body));
-                    cell.setBorder(PdfPCell.BOX);
-                }
-                tab.addCell(cell);
-                cellsAdded++;
-            }
+            PdfPCell value = new PdfPCell(new Phrase(results[i], body));
+            value.setBorder(PdfPCell.BOX);
+            tab.addCell(value);
         }
     }
 }
@@ -0,0 +1,612 @@
+package service;
+
+import data_access.DataAccess;
+import data_access.DataCache;
+import data_access.DataTable;
+import domain.Milestone;
+import domain.RecoveryPlan;
+import logging.Log;
+import model.Student;
+import scheduling.HierarchicalTimingWheel;
+import scheduling.TimingWheel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Sends reminders before milestone due dates and escalates milestones that are
+ * overdue, through {@link NotificationService}.
+ *
+ * Every open milestone of a plan with a start date gets two timers in a
+ * {@link HierarchicalTimingWheel}: a reminder a few days before its due date and
+ * an overdue alert the day after it. Completing a milestone cancels both. The
+ * wheel ticks once a minute.
+ *
+ * The scheduler never rescans all plans once it has started. It remembers how far
+ * it has read the plans file and the milestone status log, and on each tick (or
+ * when DataCache reports a change) it reads only what was appended since: new
+ * plans are scheduled, completed milestones are cancelled. Its pending timers and
+ * read positions are written to a checkpoint file every few minutes and at
+ * shutdown, so a restart resumes from the checkpoint. Deadlines that passed while
+ * the application was down fire on the first tick after the restart. A
+ * notification may be sent twice if the application stops between sending it and
+ * the next checkpoint.
+ *
+ * Limitations: reopening a completed milestone does not re-arm its timers, and
+ * deadlines that had already passed when a plan was first scheduled are not
+ * notified.
+ *
+ * System properties:
+ * - oodj.reminders.leadDays: days before the due date to send the reminder (default 2)
+ * - oodj.reminders.escalateTo: address that receives overdue alerts
+ */
+public class MilestoneScheduler
+{
+    private static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long CHECKPOINT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    // 4 levels of 64 one-minute ticks reach about 32 years ahead
+    private static final int WHEEL_LEVELS = 4;
+
+    private static final String CHECKPOINT_PATH = "data/milestone_schedule.chk";
+    private static final String CHECKPOINT_HEADER = "v1";
+
+    private static final int LEAD_DAYS = Integer.getInteger("oodj.reminders.leadDays", 2);
+    private static final String ESCALATE_TO = System.getProperty("oodj.reminders.escalateTo", "academic_office@university.edu");
+
+    private static MilestoneScheduler instance;
+
+    private final RecoveryFileManager recoveryFileManager = new RecoveryFileManager();
+    private final MilestoneStatusLog statusLog = new MilestoneStatusLog();
+    private final NotificationService notifications = new NotificationService();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ScheduledExecutorService ticker;
+
+    // Guarded by this; only the ticker thread changes it
+    private HierarchicalTimingWheel<Deadline> wheel;
+    private final Map<Long, MilestoneTimers> timers = new HashMap<>();
+    private long plansOffset;
+    private int plansCount;
+    private long statusOffset;
+    private long lastAdvance;
+    private long lastCheckpoint;
+    private boolean dirty;
+
+    private MilestoneScheduler()
+    {
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "milestone-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the scheduler, starting it on first use. Loading happens on the
+     * scheduler's own thread, so this returns immediately.
+     */
+    public static synchronized MilestoneScheduler getInstance()
+    {
+        if (instance == null)
+        {
+            instance = new MilestoneScheduler();
+            instance.start();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the number of reminders and overdue alerts waiting to fire.
+     */
+    public synchronized int getPendingCount()
+    {
+        return wheel == null ? 0 : wheel.size();
+    }
+
+    /**
+     * Writes the checkpoint now, if anything changed since the last one.
+     */
+    public void checkpoint()
+    {
+        synchronized (this)
+        {
+            if (!dirty || wheel == null)
+            {
+                return;
+            }
+            writeCheckpoint();
+        }
+    }
+
+    private void start()
+    {
+        ticker.execute(this::load);
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        // Saves and status changes made in this process are picked up straight away
+        DataCache.getInstance().addListener(table -> {
+            if (table == DataTable.RECOVERY_PLANS || table == DataTable.MILESTONE_STATUS)
+            {
+                ticker.execute(this::catchUp);
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::checkpoint, "milestone-checkpoint"));
+    }
+
+    // Restores the checkpoint, or scans every plan if there is none
+    private synchronized void load()
+    {
+        try
+        {
+            if (!restoreCheckpoint())
+            {
+                scanAll(System.currentTimeMillis());
+            }
+            catchUp();
+        }
+        catch (RuntimeException e)
+        {
+            Log.error("MilestoneScheduler", "Failed to load milestone deadlines: " + e.getMessage());
+        }
+    }
+
+    private void tick()
+    {
+        List<Deadline> fired = new ArrayList<>();
+        try
+        {
+            synchronized (this)
+            {
+                if (wheel == null)
+                {
+                    return;
+                }
+                catchUp();
+                lastAdvance = System.currentTimeMillis();
+                wheel.advance(lastAdvance, deadline -> {
+                    fired.add(deadline);
+                    MilestoneTimers t = timers.get(deadline.key());
+                    if (t != null)
+                    {
+                        if (deadline.kind == Kind.REMINDER)
+                        {
+                            t.reminder = null;
+                        }
+                        else
+                        {
+                            t.overdue = null;
+                        }
+                        if (t.reminder == null && t.overdue == null)
+                        {
+                            timers.remove(deadline.key());
+                        }
+                    }
+                });
+                dirty |= !fired.isEmpty();
+            }
+
+            // Notifications are sent outside the lock
+            if (!fired.isEmpty())
+            {
+                notify(fired);
+            }
+
+            synchronized (this)
+            {
+                if (dirty && lastAdvance - lastCheckpoint >= CHECKPOINT_MILLIS)
+                {
+                    writeCheckpoint();
+                }
+            }
+        }
+        catch (RuntimeException e)
+        {
+            Log.error("MilestoneScheduler", "Milestone tick failed: " + e.getMessage());
+        }
+    }
+
+    /*
+     * Reads the plans and status changes appended since the last read. If a file
+     * got shorter it was rewritten: the plans are then scanned again, while the
+     * status log (which shrinks when it is compacted) is simply read from the start.
+     */
+    private synchronized void catchUp()
+    {
+        if (wheel == null)
+        {
+            return;
+        }
+
+        Path plansFile = Paths.get(DataTable.RECOVERY_PLANS.getPath());
+        if (size(plansFile) < plansOffset)
+        {
+            Log.info("MilestoneScheduler", "Recovery plans file was rewritten, scheduling every plan again.");
+            scanAll(lastAdvance);
+            return;
+        }
+        plansOffset = readLines(plansFile, plansOffset, false, line -> {
+            if (line.trim().isEmpty())
+            {
+                return;
+            }
+            RecoveryPlan plan = recoveryFileManager.parsePlan(line);
+            if (plan != null)
+            {
+                schedulePlan(plan, plansCount++, lastAdvance);
+                dirty = true;
+            }
+        });
+
+        Path statusFile = Paths.get(DataTable.MILESTONE_STATUS.getPath());
+        if (size(statusFile) < statusOffset)
+        {
+            statusOffset = 0;
+        }
+        statusOffset = readLines(statusFile, statusOffset, false, line -> {
+            String[] change = MilestoneStatusLog.parse(line);
+            if (change != null && Milestone.COMPLETED.equalsIgnoreCase(change[4]))
+            {
+                cancel(key(Integer.parseInt(change[0]), Integer.parseInt(change[3])));
+            }
+        });
+    }
+
+    // Replaces every timer with a fresh schedule from all plans; deadlines up to `since` are skipped
+    private void scanAll(long since)
+    {
+        // The offset comes from the same read as the plans, so a plan appended meanwhile is read once, by catchUp.
+        // Like loadPlans, the scan takes a last plan without a line break (the shipped file ends that way);
+        // savePlan starts a new line before appending after it.
+        List<RecoveryPlan> plans = new ArrayList<>();
+        long plansSize = readLines(Paths.get(DataTable.RECOVERY_PLANS.getPath()), 0, true, line -> {
+            RecoveryPlan plan = line.trim().isEmpty() ? null : recoveryFileManager.parsePlan(line);
+            if (plan != null)
+            {
+                plan.setRecordNumber(plans.size());
+                plans.add(plan);
+            }
+        });
+        // Taken before the replay: a completion logged in between is applied again by catchUp, which is harmless
+        long statusSize = size(Paths.get(DataTable.MILESTONE_STATUS.getPath()));
+        statusLog.replay(plans);
+
+        wheel = new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_LEVELS, since);
+        timers.clear();
+        for (RecoveryPlan plan : plans)
+        {
+            schedulePlan(plan, plan.getRecordNumber(), since);
+        }
+        plansOffset = plansSize;
+        plansCount = plans.size();
+        statusOffset = statusSize;
+        lastAdvance = since;
+        dirty = true;
+        Log.info("MilestoneScheduler", "Scheduled " + wheel.size() + " milestone reminders from " + plans.size() + " plans.");
+    }
+
+    private void schedulePlan(RecoveryPlan plan, int record, long since)
+    {
+        if (plan.getStartDate() == null)
+        {
+            return;
+        }
+        List<Milestone> milestones = plan.getMilestones();
+        for (int i = 0; i < milestones.size(); i++)
+        {
+            Milestone milestone = milestones.get(i);
+            if (Milestone.COMPLETED.equalsIgnoreCase(milestone.getStatus()) || milestone.getDueDate() == null
+                    || timers.containsKey(key(record, i)))
+            {
+                continue;
+            }
+
+            LocalDate due = milestone.getDueDate();
+            long reminderAt = due.minusDays(LEAD_DAYS).atStartOfDay(zone).toInstant().toEpochMilli();
+            long overdueAt = due.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+            MilestoneTimers t = new MilestoneTimers();
+            if (reminderAt > since)
+            {
+                t.reminder = wheel.schedule(new Deadline(Kind.REMINDER, record, plan.getStudentId(), plan.getCourseId(),
+                        i, due, milestone.getTask()), reminderAt);
+            }
+            if (overdueAt > since)
+            {
+                t.overdue = wheel.schedule(new Deadline(Kind.OVERDUE, record, plan.getStudentId(), plan.getCourseId(),
+                        i, due, milestone.getTask()), overdueAt);
+            }
+            if (t.reminder != null || t.overdue != null)
+            {
+                timers.put(key(record, i), t);
+            }
+        }
+    }
+
+    private void cancel(long key)
+    {
+        MilestoneTimers t = timers.remove(key);
+        if (t != null)
+        {
+            wheel.cancel(t.reminder);
+            wheel.cancel(t.overdue);
+            dirty = true;
+        }
+    }
+
+    private void notify(List<Deadline> fired)
+    {
+        Map<String, String> emails = new HashMap<>();
+        for (Student s : new DataAccess().studentList())
+        {
+            emails.put(s.getStudentId().trim(), s.getEmail().trim());
+        }
+
+        for (Deadline d : fired)
+        {
+            String recipient = emails.getOrDefault(d.studentId, d.studentId);
+            String milestone = "\"" + d.task + "\" (" + d.courseId + ", due " + d.dueDate + ")";
+            if (d.kind == Kind.REMINDER)
+            {
+                notifications.sendEmail(recipient, "Recovery milestone due soon",
+                        "Your recovery milestone " + milestone + " is due soon.");
+            }
+            else
+            {
+                notifications.sendEmail(recipient, "Recovery milestone overdue",
+                        "Your recovery milestone " + milestone + " is overdue.");
+                notifications.sendEmail(ESCALATE_TO, "Overdue recovery milestone",
+                        "Student " + d.studentId + " has not completed the recovery milestone " + milestone + ".");
+            }
+        }
+        Log.info("MilestoneScheduler", "Sent " + fired.size() + " milestone notifications.");
+    }
+
+    /*
+     * Checkpoint format:
+     * v1|LastAdvance|PlansOffset|PlansCount|StatusOffset
+     * then one line per pending timer:
+     * Kind|Record|StudentID|CourseID|MilestoneIndex|FireAt|DueDate|Task
+     * The task is last because it is free text; plans cannot contain '|' in a task.
+     */
+
+    private void writeCheckpoint()
+    {
+        Path file = Paths.get(CHECKPOINT_PATH);
+        Path temp = Paths.get(CHECKPOINT_PATH + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp))
+        {
+            writer.write(CHECKPOINT_HEADER + "|" + lastAdvance + "|" + plansOffset + "|" + plansCount + "|" + statusOffset);
+            writer.newLine();
+            for (MilestoneTimers t : timers.values())
+            {
+                writeTimer(writer, t.reminder);
+                writeTimer(writer, t.overdue);
+            }
+        }
+        catch (IOException e)
+        {
+            Log.error("MilestoneScheduler", "Failed to write checkpoint: " + e.getMessage());
+            return;
+        }
+
+        try
+        {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            lastCheckpoint = lastAdvance;
+        }
+        catch (IOException e)
+        {
+            Log.error("MilestoneScheduler", "Failed to write checkpoint: " + e.getMessage());
+        }
+    }
+
+    private void writeTimer(BufferedWriter writer, TimingWheel.Timeout<Deadline> timeout) throws IOException
+    {
+        if (timeout == null || !timeout.isPending())
+        {
+            return;
+        }
+        Deadline d = timeout.getItem();
+        writer.write(d.kind.name() + "|" + d.record + "|" + d.studentId + "|" + d.courseId + "|" + d.milestone
+                + "|" + timeout.getDeadlineMillis() + "|" + d.dueDate + "|" + d.task);
+        writer.newLine();
+    }
+
+    /**
+     * Loads the checkpoint into a new wheel.
+     *
+     * @return false if there is no usable checkpoint
+     */
+    private boolean restoreCheckpoint()
+    {
+        Path file = Paths.get(CHECKPOINT_PATH);
+        if (!Files.exists(file))
+        {
+            return false;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file))
+        {
+            String[] header = reader.readLine().split("\\|");
+            if (header.length != 5 || !header[0].equals(CHECKPOINT_HEADER))
+            {
+                Log.warn("MilestoneScheduler", "Ignoring checkpoint with an unknown format.");
+                return false;
+            }
+            long time = Long.parseLong(header[1]);
+            long offset = Long.parseLong(header[2]);
+            if (size(Paths.get(DataTable.RECOVERY_PLANS.getPath())) < offset)
+            {
+                Log.info("MilestoneScheduler", "Recovery plans file changed since the checkpoint, scheduling every plan again.");
+                return false;
+            }
+
+            HierarchicalTimingWheel<Deadline> restored = new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_LEVELS, time);
+            Map<Long, MilestoneTimers> restoredTimers = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                String[] p = line.split("\\|", 8);
+                Deadline d = new Deadline(Kind.valueOf(p[0]), Integer.parseInt(p[1]), p[2], p[3],
+                        Integer.parseInt(p[4]), LocalDate.parse(p[6]), p[7]);
+                TimingWheel.Timeout<Deadline> timeout = restored.schedule(d, Long.parseLong(p[5]));
+                MilestoneTimers t = restoredTimers.computeIfAbsent(d.key(), k -> new MilestoneTimers());
+                if (d.kind == Kind.REMINDER)
+                {
+                    t.reminder = timeout;
+                }
+                else
+                {
+                    t.overdue = timeout;
+                }
+            }
+
+            wheel = restored;
+            timers.clear();
+            timers.putAll(restoredTimers);
+            lastAdvance = time;
+            lastCheckpoint = time;
+            plansOffset = offset;
+            plansCount = Integer.parseInt(header[3]);
+            statusOffset = Long.parseLong(header[4]);
+            dirty = false;
+            Log.info("MilestoneScheduler", "Restored " + wheel.size() + " milestone reminders from checkpoint.");
+            return true;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Log.warn("MilestoneScheduler", "Ignoring unreadable checkpoint: " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the complete lines of a file from the given byte offset. A last line
+     * without a line break is left for the next read, unless lastLineComplete is set.
+     *
+     * @param lastLineComplete Whether the end of the file also ends a line
+     *
+     * @return The offset after the last line that was read
+     */
+    private static long readLines(Path file, long offset, boolean lastLineComplete, Consumer<String> consumer)
+    {
+        if (!Files.exists(file))
+        {
+            return offset;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r"))
+        {
+            long length = raf.length();
+            if (length <= offset)
+            {
+                return offset;
+            }
+            byte[] bytes = new byte[(int) Math.min(length - offset, Integer.MAX_VALUE - 8)];
+            raf.seek(offset);
+            raf.readFully(bytes);
+
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long consumed = offset;
+            for (int i = 0; i < bytes.length; i++)
+            {
+                if (bytes[i] == '\n')
+                {
+                    consumer.accept(new String(line.toByteArray(), Charset.defaultCharset()).replace("\r", ""));
+                    line.reset();
+                    consumed = offset + i + 1;
+                }
+                else
+                {
+                    line.write(bytes[i]);
+                }
+            }
+            if (lastLineComplete && line.size() > 0)
+            {
+                consumer.accept(new String(line.toByteArray(), Charset.defaultCharset()).replace("\r", ""));
+                consumed = offset + bytes.length;
+            }
+            return consumed;
+        }
+        catch (IOException e)
+        {
+            Log.error("MilestoneScheduler", "Failed to read " + file + ": " + e.getMessage());
+            return offset;
+        }
+    }
+
+    private static long size(Path file)
+    {
+        try
+        {
+            return Files.exists(file) ? Files.size(file) : 0;
+        }
+        catch (IOException e)
+        {
+            return 0;
+        }
+    }
+
+    private static long key(int record, int milestone)
+    {
+        return ((long) record << 16) | milestone;
+    }
+
+    private enum Kind
+    {
+        REMINDER, OVERDUE
+    }
+
+    // One reminder or overdue alert for one milestone
+    private static final class Deadline
+    {
+        final Kind kind;
+        final int record;
+        final String studentId;
+        final String courseId;
+        final int milestone;
+        final LocalDate dueDate;
+        final String task;
+
+        Deadline(Kind kind, int record, String studentId, String courseId, int milestone, LocalDate dueDate, String task)
+        {
+            this.kind = kind;
+            this.record = record;
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.milestone = milestone;
+            this.dueDate = dueDate;
+            this.task = task;
+        }
+
+        long key()
+        {
+            return MilestoneScheduler.key(record, milestone);
+        }
+    }
+
+    // The pending timers of one milestone, so completing it cancels both in O(1)
+    private static final class MilestoneTimers
+    {
+        TimingWheel.Timeout<Deadline> reminder;
+        TimingWheel.Timeout<Deadline> overdue;
+    }
+}
@@ -0,0 +1,218 @@
+package service;
+
+import data_access.DataTable;
+import domain.Milestone;
+import domain.RecoveryPlan;
+import logging.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The MilestoneStatusLog stores milestone status changes in an append-only file,
+ * so marking a milestone done never rewrites the recovery plans file.
+ *
+ * File Format (one line per change, the last line for a milestone wins):
+ * RecordNumber|StudentID|CourseID|MilestoneIndex|Status|Timestamp
+ *
+ * Example:
+ * 0|S001|CS101|2|Completed|1760000000000
+ *
+ * The record number is the plan's position in the recovery plans file, which is
+ * only ever appended to. The student and course are stored as well, and a change
+ * is ignored if they no longer match the plan at that position.
+ *
+ * When most of the lines have been superseded by later changes, the log is
+ * compacted to one line per milestone while it is being replayed.
+ */
+public class MilestoneStatusLog
+{
+    // Compact once the log holds this many more lines than it has milestones
+    private static final int COMPACT_SLACK = 1000;
+
+    private static final Object LOCK = new Object();
+
+    private final String path;
+
+    public MilestoneStatusLog()
+    {
+        this(DataTable.MILESTONE_STATUS.getPath());
+    }
+
+    public MilestoneStatusLog(String path)
+    {
+        this.path = path;
+    }
+
+    /**
+     * Appends one status change to the log.
+     *
+     * @return true if the change was written
+     */
+    public boolean append(RecoveryPlan plan, int milestoneIndex, String status)
+    {
+        if (status.indexOf('|') >= 0 || status.indexOf('\n') >= 0 || status.indexOf('\r') >= 0)
+        {
+            Log.warn("MilestoneStatusLog", "Invalid milestone status: " + status);
+            return false;
+        }
+
+        String line = plan.getRecordNumber() + "|" + plan.getStudentId() + "|" + plan.getCourseId() + "|"
+                + milestoneIndex + "|" + status + "|" + System.currentTimeMillis() + "\n";
+
+        synchronized (LOCK)
+        {
+            // A single short write in append mode, however large the log or the plans file is
+            try (FileWriter writer = new FileWriter(path, true))
+            {
+                writer.write(line);
+                return true;
+            }
+            catch (IOException e)
+            {
+                Log.error("MilestoneStatusLog", "Error writing milestone status: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Applies the latest logged status of every milestone to the given plans,
+     * which must be in file order with their record numbers set.
+     */
+    public void replay(List<RecoveryPlan> plans)
+    {
+        synchronized (LOCK)
+        {
+            Map<String, String[]> latest = new LinkedHashMap<>();
+            int lines = read(latest);
+
+            for (String[] change : latest.values())
+            {
+                int record = Integer.parseInt(change[0]);
+                int index = Integer.parseInt(change[3]);
+                if (record < 0 || record >= plans.size())
+                {
+                    continue;
+                }
+
+                RecoveryPlan plan = plans.get(record);
+                List<Milestone> milestones = plan.getMilestones();
+                if (plan.getStudentId().equals(change[1]) && plan.getCourseId().equals(change[2])
+                        && index >= 0 && index < milestones.size())
+                {
+                    milestones.get(index).setStatus(change[4]);
+                }
+            }
+
+            if (lines > latest.size() + COMPACT_SLACK)
+            {
+                compact(latest);
+            }
+        }
+    }
+
+    // Reads the log into the latest change per milestone and returns the number of lines
+    private int read(Map<String, String[]> latest)
+    {
+        if (!Files.exists(Paths.get(path)))
+        {
+            return 0;
+        }
+
+        int lines = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                String[] parts = parse(line);
+                if (parts == null)
+                {
+                    continue;
+                }
+                lines++;
+                String key = parts[0] + "|" + parts[3];
+                latest.remove(key);
+                latest.put(key, parts);
+            }
+        }
+        catch (IOException e)
+        {
+            Log.error("MilestoneStatusLog", "Error reading milestone status log: " + e.getMessage());
+        }
+        return lines;
+    }
+
+    /**
+     * Splits one line of the log into its six fields.
+     *
+     * @return The fields, or null if the line is malformed, e.g. cut short by a
+     *         crash or joined to the next one
+     */
+    static String[] parse(String line)
+    {
+        String[] parts = line.split("\\|");
+        if (parts.length != 6 || !isNumber(parts[0]) || !isNumber(parts[3]))
+        {
+            return null;
+        }
+        return parts;
+    }
+
+    private static boolean isNumber(String s)
+    {
+        if (s.isEmpty() || s.length() > 9)
+        {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++)
+        {
+            if (!Character.isDigit(s.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Rewrites the log with only the latest change per milestone
+    private void compact(Map<String, String[]> latest)
+    {
+        Path log = Paths.get(path);
+        Path temp = Paths.get(path + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp))
+        {
+            for (String[] change : latest.values())
+            {
+                writer.write(String.join("|", change));
+                writer.newLine();
+            }
+        }
+        catch (IOException e)
+        {
+            Log.error("MilestoneStatusLog", "Error compacting milestone status log: " + e.getMessage());
+            return;
+        }
+
+        try
+        {
+            Files.move(temp, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Log.info("MilestoneStatusLog", "Compacted milestone status log to " + latest.size() + " entries.");
+        }
+        catch (IOException e)
+        {
+            Log.error("MilestoneStatusLog", "Error compacting milestone status log: " + e.getMessage());
+        }
+    }
+}
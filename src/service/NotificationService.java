@@ -1,13 +1,13 @@
 package service;
 
+import logging.Log;
+
 public class NotificationService {
     private Object javaMailAPI = new Object();
     private final String senderEmail = "crs_noreply@university.edu";
 
     public boolean sendEmail(String recipient, String subject, String body){
-        System.err.println("Notification: Attempting to send email to " + recipient);
-        System.err.println("Subject: " + subject);
-        System.err.println("Body: " + body);
+        Log.info("NotificationService", "Attempting to send email to " + recipient + " | Subject: " + subject + " | Body: " + body);
 
         return true;
     }
@@ -0,0 +1,175 @@
+package service;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fonts, cell styles and templates shared by every generated PDF.
+ *
+ * Fonts and the spacer cell are created once per JVM and are only ever read,
+ * so any number of report generators can use them from different threads.
+ * PdfPTable.addCell copies the cell it is given, so a shared cell can be added
+ * to many tables without being modified. Callers must never change a shared
+ * Font or cell; copy it with {@code new PdfPCell(shared)} first.
+ *
+ * PdfTemplate objects belong to a single PdfWriter, so the blocks drawn into
+ * templates (table header rows and summary labels) are created per document by
+ * {@link Templates} and referenced from every table that shows them.
+ */
+public final class PdfResources
+{
+    public static final Font HEADING = FontFactory.getFont(FontFactory.TIMES_BOLD, 16, BaseColor.BLACK);
+    public static final Font SUBHEADING = FontFactory.getFont(FontFactory.TIMES_BOLD, 13, BaseColor.BLACK);
+    public static final Font BODY = FontFactory.getFont(FontFactory.TIMES, 12, BaseColor.BLACK);
+    public static final Font COLUMN = FontFactory.getFont(FontFactory.TIMES_BOLD, 12, BaseColor.BLACK);
+    public static final Font SMALL_BODY = FontFactory.getFont(FontFactory.TIMES, 11, BaseColor.BLACK);
+    public static final Font SMALL_COLUMN = FontFactory.getFont(FontFactory.TIMES_BOLD, 11, BaseColor.BLACK);
+
+    /** Empty, borderless cell spanning two columns, used to indent summary rows. */
+    public static final PdfPCell SUMMARY_SPACER = spacer(2);
+
+    private PdfResources()
+    {
+    }
+
+    /**
+     * Applies the settings every report uses: full compression (object and
+     * cross-reference streams) at the highest deflate level.
+     *
+     * @param writer The writer, before the document is opened
+     */
+    public static void configure(PdfWriter writer) throws DocumentException
+    {
+        writer.setFullCompression();
+        writer.setCompressionLevel(PdfStream.BEST_COMPRESSION);
+    }
+
+    private static PdfPCell spacer(int colspan)
+    {
+        PdfPCell cell = new PdfPCell(new Phrase(""));
+        cell.setColspan(colspan);
+        cell.setBorder(PdfPCell.NO_BORDER);
+        return cell;
+    }
+
+    /**
+     * Table header rows and summary labels of one document, each drawn once into
+     * a PdfTemplate (a form XObject). Every table that shows a block only
+     * references its template, so the text and boxes are stored in the file a
+     * single time however many tables and pages repeat them.
+     *
+     * The blocks are sized for tables at 100% of the text width. An instance is
+     * used by the thread writing its document only.
+     */
+    public static final class Templates
+    {
+        private final PdfWriter writer;
+        private final float tableWidth;
+        private final Map<String, PdfPCell> cells = new HashMap<>();
+
+        /**
+         * @param writer The writer of the document
+         * @param doc    The document, with its page size and margins set
+         */
+        public Templates(PdfWriter writer, Document doc)
+        {
+            this.writer = writer;
+            this.tableWidth = doc.getPageSize().getWidth() - doc.leftMargin() - doc.rightMargin();
+        }
+
+        /**
+         * Returns a cell spanning every column that shows the boxed, centred column titles.
+         */
+        public PdfPCell headerRow(String[] columnTitles, float[] columnWidths, Font font) throws DocumentException
+        {
+            String key = "header\u0000" + String.join("\u0000", columnTitles);
+            PdfPCell cell = cells.get(key);
+            if (cell == null)
+            {
+                float[] edges = edges(columnWidths);
+                float height = rowHeight(font);
+                PdfTemplate template = writer.getDirectContent().createTemplate(tableWidth, height);
+                for (int i = 0; i < columnTitles.length; i++)
+                {
+                    box(template, edges[i], edges[i + 1], height);
+                    ColumnText.showTextAligned(template, Element.ALIGN_CENTER, new Phrase(columnTitles[i], font),
+                            (edges[i] + edges[i + 1]) / 2, baseline(font, height), 0);
+                }
+                cell = templateCell(template, columnTitles.length);
+                cells.put(key, cell);
+            }
+            return cell;
+        }
+
+        /**
+         * Returns a cell that shows a boxed label over the given columns, such as
+         * the titles of a summary frame.
+         *
+         * @param firstColumn The first column the label covers
+         * @param colspan     The number of columns it covers
+         */
+        public PdfPCell label(String text, Font font, float[] columnWidths, int firstColumn, int colspan) throws DocumentException
+        {
+            String key = "label\u0000" + text + '\u0000' + firstColumn + '\u0000' + colspan;
+            PdfPCell cell = cells.get(key);
+            if (cell == null)
+            {
+                float[] edges = edges(columnWidths);
+                float width = edges[firstColumn + colspan] - edges[firstColumn];
+                float height = rowHeight(font);
+                PdfTemplate template = writer.getDirectContent().createTemplate(width, height);
+                box(template, 0, width, height);
+                ColumnText.showTextAligned(template, Element.ALIGN_LEFT, new Phrase(text, font), 2, baseline(font, height), 0);
+                cell = templateCell(template, colspan);
+                cells.put(key, cell);
+            }
+            return cell;
+        }
+
+        // Column boundaries in points, from the relative widths
+        private float[] edges(float[] columnWidths)
+        {
+            float total = 0;
+            for (float w : columnWidths)
+            {
+                total += w;
+            }
+            float[] edges = new float[columnWidths.length + 1];
+            for (int i = 0; i < columnWidths.length; i++)
+            {
+                edges[i + 1] = edges[i] + tableWidth * columnWidths[i] / total;
+            }
+            return edges;
+        }
+
+        // The height of a one-line cell: the phrase leading plus the default padding
+        private static float rowHeight(Font font)
+        {
+            return font.getSize() * 1.5f + 4;
+        }
+
+        private static float baseline(Font font, float height)
+        {
+            return (height - font.getSize() * 0.7f) / 2;
+        }
+
+        private static void box(PdfTemplate template, float left, float right, float height)
+        {
+            template.setLineWidth(0.5f);
+            template.rectangle(left, 0, right - left, height);
+            template.stroke();
+        }
+
+        private static PdfPCell templateCell(PdfTemplate template, int colspan) throws BadElementException
+        {
+            PdfPCell cell = new PdfPCell(Image.getInstance(template), true);
+            cell.setColspan(colspan);
+            cell.setPadding(0);
+            cell.setBorder(PdfPCell.NO_BORDER);
+            return cell;
+        }
+    }
+}
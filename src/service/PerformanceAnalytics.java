@@ -0,0 +1,186 @@
+package service;
+
+import academic.CourseResult;
+import data_access.DataAccess;
+import data_access.IdPool;
+import domain.GradingScheme;
+import logging.Log;
+import model.Course;
+import model.Enrollment;
+import model.ProgramCourse;
+import model.Student;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes pass rates and score distributions per course, instructor, program,
+ * semester and program/course pair in a single parallel scan over the enrollments.
+ *
+ * Program membership comes from the student's ProgramID. The PROGRAM_COURSE
+ * dimension only includes pairs listed in courses_in_program.csv, so courses taken
+ * outside a student's curriculum do not appear as program hot spots.
+ */
+public class PerformanceAnalytics {
+
+    public enum Dimension {
+        COURSE,
+        INSTRUCTOR,
+        PROGRAM,
+        SEMESTER,
+        PROGRAM_COURSE
+    }
+
+    private final Map<Dimension, Map<String, ScoreStats>> results;
+
+    private PerformanceAnalytics(Map<Dimension, Map<String, ScoreStats>> results) {
+        this.results = results;
+    }
+
+    /**
+     * Reads the data files and computes every aggregate in one pass.
+     */
+    public static PerformanceAnalytics compute(DataAccess data) {
+        Map<String, Course> courses = new HashMap<>();
+        for (Course course : data.courseList()) {
+            courses.put(course.getCourseId().trim(), course);
+        }
+        Map<String, String> programOf = new HashMap<>();
+        for (Student student : data.studentList()) {
+            programOf.put(student.getStudentId().trim(), student.getProgramId().trim());
+        }
+        Set<String> programCourses = new HashSet<>();
+        for (ProgramCourse pc : data.programCourseList()) {
+            programCourses.add(pc.getProgramId() + "/" + pc.getCourseId());
+        }
+
+        Accumulator total = data.enrollmentList().parallelStream().collect(
+                Accumulator::new,
+                (acc, en) -> acc.add(en, courses, programOf, programCourses),
+                Accumulator::merge);
+
+        Log.info("PerformanceAnalytics", "Analysed " + total.rows + " enrollments.");
+        return new PerformanceAnalytics(total.groups);
+    }
+
+    /**
+     * Returns the statistics of every group in a dimension, keyed by group name.
+     */
+    public Map<String, ScoreStats> getStats(Dimension dimension) {
+        return results.getOrDefault(dimension, new HashMap<>());
+    }
+
+    public ScoreStats getStats(Dimension dimension, String key) {
+        return getStats(dimension).get(key);
+    }
+
+    /**
+     * Lists the groups with the highest fail rate.
+     *
+     * @param dimension The dimension to rank
+     * @param minCount  Groups with fewer enrollments are ignored
+     * @param limit     The maximum number of groups to return
+     * @return Group names, highest fail rate first
+     */
+    public List<String> getFailureHotSpots(Dimension dimension, long minCount, int limit) {
+        Map<String, ScoreStats> stats = getStats(dimension);
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, ScoreStats> entry : stats.entrySet()) {
+            if (entry.getValue().getCount() >= minCount) {
+                keys.add(entry.getKey());
+            }
+        }
+        keys.sort(Comparator.comparingDouble((String k) -> stats.get(k).getFailRate()).reversed());
+        return keys.size() > limit ? new ArrayList<>(keys.subList(0, limit)) : keys;
+    }
+
+    /**
+     * Writes every group of every dimension to a CSV file.
+     */
+    public void exportCsv(String filePath) throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath))) {
+            bw.write("Dimension,Group,Enrollments,Failed,FailRate,MeanExam,MeanAssignment,MeanFinal,"
+                    + "P25,Median,P75,P90,Final0-9,Final10-19,Final20-29,Final30-39,Final40-49,"
+                    + "Final50-59,Final60-69,Final70-79,Final80-89,Final90-100");
+            bw.newLine();
+
+            for (Dimension dimension : Dimension.values()) {
+                for (Map.Entry<String, ScoreStats> entry : getStats(dimension).entrySet()) {
+                    ScoreStats s = entry.getValue();
+                    StringBuilder line = new StringBuilder();
+                    line.append(dimension).append(',').append(entry.getKey()).append(',')
+                        .append(s.getCount()).append(',').append(s.getFailed()).append(',')
+                        .append(String.format("%.4f,%.2f,%.2f,%.2f", s.getFailRate(), s.getMeanExam(), s.getMeanAssignment(), s.getMeanFinal()))
+                        .append(',').append(s.finalPercentile(25)).append(',').append(s.finalPercentile(50))
+                        .append(',').append(s.finalPercentile(75)).append(',').append(s.finalPercentile(90));
+                    for (int bucket : ScoreStats.toDeciles(s.getFinalHistogram())) {
+                        line.append(',').append(bucket);
+                    }
+                    bw.write(line.toString());
+                    bw.newLine();
+                }
+            }
+        }
+    }
+
+    // Per-thread partial result; merged pairwise by the parallel stream
+    private static final class Accumulator {
+        final Map<Dimension, Map<String, ScoreStats>> groups = new EnumMap<>(Dimension.class);
+        long rows;
+
+        Accumulator() {
+            for (Dimension dimension : Dimension.values()) {
+                groups.put(dimension, new HashMap<>());
+            }
+        }
+
+        void add(Enrollment en, Map<String, Course> courses, Map<String, String> programOf, Set<String> programCourses) {
+            String courseId = IdPool.COURSES.intern(en.getCourseId().trim());
+            Course course = courses.get(courseId);
+            if (course == null) {
+                return;
+            }
+            double exam = Double.parseDouble(en.getExamScore().trim());
+            double assignment = Double.parseDouble(en.getAssignmentScore().trim());
+            double finalScore = (exam * Double.parseDouble(course.getExamWeight().trim())
+                    + assignment * Double.parseDouble(course.getAssignmentWeight().trim())) / 100.0;
+            boolean failed = CourseResult.isFailing(GradingScheme.forScore(finalScore).getGpa());
+            String programId = programOf.get(en.getStudentId().trim());
+
+            stats(Dimension.COURSE, courseId).add(exam, assignment, finalScore, failed);
+            stats(Dimension.INSTRUCTOR, course.getInstructor().trim()).add(exam, assignment, finalScore, failed);
+            stats(Dimension.SEMESTER, "Y" + en.getYear().trim() + "S" + en.getSemester().trim()).add(exam, assignment, finalScore, failed);
+            if (programId != null) {
+                stats(Dimension.PROGRAM, programId).add(exam, assignment, finalScore, failed);
+                String pair = programId + "/" + courseId;
+                if (programCourses.contains(pair)) {
+                    stats(Dimension.PROGRAM_COURSE, pair).add(exam, assignment, finalScore, failed);
+                }
+            }
+            rows++;
+        }
+
+        private ScoreStats stats(Dimension dimension, String key) {
+            return groups.get(dimension).computeIfAbsent(key, k -> new ScoreStats());
+        }
+
+        void merge(Accumulator other) {
+            rows += other.rows;
+            for (Dimension dimension : Dimension.values()) {
+                Map<String, ScoreStats> mine = groups.get(dimension);
+                for (Map.Entry<String, ScoreStats> entry : other.groups.get(dimension).entrySet()) {
+                    mine.computeIfAbsent(entry.getKey(), k -> new ScoreStats()).merge(entry.getValue());
+                }
+            }
+        }
+    }
+}
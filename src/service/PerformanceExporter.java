@@ -0,0 +1,184 @@
+package service;
+
+import data_access.DataAccess;
+import data_access.IdPool;
+import domain.GradingScheme;
+import logging.Log;
+import model.Course;
+import model.Enrollment;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streams performance data as CSV or JSON Lines for systems that only need the numbers.
+ *
+ * Datasets:
+ * - TRANSCRIPTS: one record per enrollment with grade and grade point
+ * - SEMESTER_GPA: one record per student and semester
+ * - SUMMARY: one record per student with credits, CGPA, failed courses and eligibility
+ *
+ * Rows are written through a {@link RecordWriter} as they are computed. Per-student
+ * semester totals are keyed by the student's IdPool surrogate; summaries come from
+ * {@link CohortData} and are checked against {@link EligibilityRules} in bulk.
+ */
+public class PerformanceExporter {
+
+    public enum Dataset {
+        TRANSCRIPTS,
+        SEMESTER_GPA,
+        SUMMARY
+    }
+
+    private final DataAccess data;
+
+    public PerformanceExporter(DataAccess data) {
+        this.data = data;
+    }
+
+    /**
+     * Exports a dataset to a file.
+     *
+     * @return The number of records written
+     */
+    public long exportToFile(Dataset dataset, RecordWriter.Format format, String filePath) throws IOException {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(filePath), StandardCharsets.UTF_8)) {
+            return export(dataset, format, out);
+        }
+    }
+
+    /**
+     * Exports a dataset to a writer. The writer is flushed but not closed.
+     *
+     * @return The number of records written
+     */
+    public long export(Dataset dataset, RecordWriter.Format format, Writer out) throws IOException {
+        RecordWriter writer = new RecordWriter(out, format);
+        Map<String, CourseInfo> courses = loadCourses();
+
+        switch (dataset) {
+            case TRANSCRIPTS: writeTranscripts(writer, courses); break;
+            case SEMESTER_GPA: writeSemesterGpas(writer, courses); break;
+            default: writeSummaries(writer); break;
+        }
+        writer.flush();
+        Log.info("PerformanceExporter", "Exported " + writer.getRecordCount() + " " + dataset + " records.");
+        return writer.getRecordCount();
+    }
+
+    private void writeTranscripts(RecordWriter writer, Map<String, CourseInfo> courses) throws IOException {
+        writer.header("student_id", "enrollment_id", "year", "semester", "course_id", "course_title",
+                "credits", "exam_score", "assignment_score", "final_score", "grade", "grade_point");
+
+        for (Enrollment en : data.enrollmentList()) {
+            CourseInfo course = courses.get(en.getCourseId().trim());
+            if (course == null) continue;
+
+            double exam = Double.parseDouble(en.getExamScore().trim());
+            double assignment = Double.parseDouble(en.getAssignmentScore().trim());
+            double finalScore = course.finalScore(exam, assignment);
+            GradingScheme grade = GradingScheme.forScore(finalScore);
+
+            writer.begin()
+                    .field("student_id", en.getStudentId().trim())
+                    .field("enrollment_id", en.getEnrollmentId().trim())
+                    .field("year", Integer.parseInt(en.getYear().trim()))
+                    .field("semester", Integer.parseInt(en.getSemester().trim()))
+                    .field("course_id", course.id)
+                    .field("course_title", course.name)
+                    .field("credits", course.credits)
+                    .field("exam_score", exam, 2)
+                    .field("assignment_score", assignment, 2)
+                    .field("final_score", finalScore, 2)
+                    .field("grade", grade.getGrade())
+                    .field("grade_point", grade.getGpa(), 2)
+                    .end();
+        }
+    }
+
+    private void writeSemesterGpas(RecordWriter writer, Map<String, CourseInfo> courses) throws IOException {
+        writer.header("student_id", "year", "semester", "credits", "gpa");
+
+        // Key packs (student surrogate, year, semester) so semesters come out grouped per student
+        TreeMap<Long, double[]> semesters = new TreeMap<>();
+        for (Enrollment en : data.enrollmentList()) {
+            CourseInfo course = courses.get(en.getCourseId().trim());
+            if (course == null) continue;
+
+            int student = IdPool.STUDENTS.idOf(en.getStudentId().trim());
+            long key = ((long) student << 32) | (Long.parseLong(en.getYear().trim()) << 16) | Long.parseLong(en.getSemester().trim());
+            double[] totals = semesters.computeIfAbsent(key, k -> new double[2]);
+            double finalScore = course.finalScore(Double.parseDouble(en.getExamScore().trim()), Double.parseDouble(en.getAssignmentScore().trim()));
+            totals[0] += course.credits;
+            totals[1] += GradingScheme.forScore(finalScore).getGpa() * course.credits;
+        }
+
+        for (Map.Entry<Long, double[]> entry : semesters.entrySet()) {
+            long key = entry.getKey();
+            double[] totals = entry.getValue();
+            writer.begin()
+                    .field("student_id", IdPool.STUDENTS.valueOf((int) (key >>> 32)))
+                    .field("year", (key >>> 16) & 0xffff)
+                    .field("semester", key & 0xffff)
+                    .field("credits", (long) totals[0])
+                    .field("gpa", totals[0] == 0 ? 0.0 : totals[1] / totals[0], 2)
+                    .end();
+        }
+    }
+
+    private void writeSummaries(RecordWriter writer) throws IOException {
+        writer.header("student_id", "program_id", "credits", "cgpa", "failed_courses", "eligible_for_recovery");
+
+        // Aggregated and checked for the whole cohort at once
+        CohortData cohort = CohortData.load(data);
+        EligibilityRules.CohortResult eligibility = EligibilityRules.getInstance().evaluate(cohort);
+
+        for (int row = 0; row < cohort.size(); row++) {
+            writer.begin()
+                    .field("student_id", cohort.getStudentId(row))
+                    .field("program_id", cohort.getProgramId(row))
+                    .field("credits", cohort.getCredits(row))
+                    .field("cgpa", cohort.getCgpa(row), 2)
+                    .field("failed_courses", cohort.getFailedCourses(row))
+                    .field("eligible_for_recovery", eligibility.isEligible(row))
+                    .end();
+        }
+    }
+
+    private Map<String, CourseInfo> loadCourses() {
+        Map<String, CourseInfo> courses = new HashMap<>();
+        for (Course c : data.courseList()) {
+            CourseInfo info = new CourseInfo(c.getCourseId().trim(), c.getName().trim(), Integer.parseInt(c.getCredits().trim()),
+                    Double.parseDouble(c.getExamWeight().trim()), Double.parseDouble(c.getAssignmentWeight().trim()));
+            courses.put(info.id, info);
+        }
+        return courses;
+    }
+
+    // Course columns parsed once per export instead of once per row
+    private static final class CourseInfo {
+        final String id;
+        final String name;
+        final int credits;
+        final double examWeight;
+        final double assignmentWeight;
+
+        CourseInfo(String id, String name, int credits, double examWeight, double assignmentWeight) {
+            this.id = id;
+            this.name = name;
+            this.credits = credits;
+            this.examWeight = examWeight;
+            this.assignmentWeight = assignmentWeight;
+        }
+
+        double finalScore(double exam, double assignment) {
+            return (exam * examWeight + assignment * assignmentWeight) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package service;
+
+import academic.CourseResult;
+import data_access.DataAccess;
+import domain.GradingPolicy;
+import logging.Log;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Shows what would change under different grading cut-offs or eligibility rules
+ * before they are adopted.
+ *
+ * The cohort is read once into a {@link CohortData}. Each scenario then regrades
+ * the stored final scores with its {@link GradingPolicy}, checks the result
+ * against its {@link EligibilityRules}, and is compared with the current policy.
+ * Scenarios are independent and run in parallel over the same data.
+ *
+ * Per scenario the report has, for each program, how many students become or
+ * stop being eligible for recovery, and for each course, how many enrollments
+ * start or stop failing.
+ *
+ * Scenarios can be written in a properties file:
+ * <pre>
+ * scenario.stricter.grade.C-.min = 52
+ * scenario.stricter.grade.D.points = 1.5
+ * scenario.stricter.rules = data/eligibility_rules_draft.properties
+ * </pre>
+ * A scenario without grade settings uses the current bands, and one without
+ * rules uses the current eligibility rules.
+ */
+public class PolicySimulator {
+
+    private final CohortData cohort;
+
+    public PolicySimulator(CohortData cohort) {
+        this.cohort = cohort;
+    }
+
+    /**
+     * A named combination of grading policy and eligibility rules.
+     */
+    public static final class Scenario {
+        private final String name;
+        private final GradingPolicy grading;
+        private final EligibilityRules rules;
+
+        public Scenario(String name, GradingPolicy grading, EligibilityRules rules) {
+            this.name = name;
+            this.grading = grading;
+            this.rules = rules;
+        }
+
+        /**
+         * The policy in force today: GradingScheme and the configured eligibility rules.
+         */
+        public static Scenario current() {
+            return new Scenario("current", GradingPolicy.current(), EligibilityRules.getInstance());
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Reads scenarios in the format described above, ordered by name.
+     *
+     * @throws IllegalArgumentException if a setting is unknown or invalid
+     */
+    public static List<Scenario> loadScenarios(Path path) throws IOException {
+        Properties p = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            p.load(reader);
+        }
+
+        Map<String, GradingPolicy> grading = new LinkedHashMap<>();
+        // Cut-offs are applied together: moved one at a time, a band can overlap its neighbour's old value
+        Map<String, Map<String, Double>> minScores = new HashMap<>();
+        Map<String, EligibilityRules> rules = new LinkedHashMap<>();
+        for (String key : p.stringPropertyNames().stream().sorted().collect(Collectors.toList())) {
+            String[] parts = key.split("\\.");
+            String value = p.getProperty(key).trim();
+            if (parts.length < 3 || !parts[0].equals("scenario")) {
+                throw new IllegalArgumentException("Unknown key " + key);
+            }
+            String name = parts[1];
+            GradingPolicy policy = grading.getOrDefault(name, GradingPolicy.current());
+
+            if (parts.length == 3 && parts[2].equals("rules")) {
+                rules.put(name, EligibilityRules.load(Paths.get(value)));
+            } else if (parts.length == 5 && parts[2].equals("grade") && parts[4].equals("min")) {
+                minScores.computeIfAbsent(name, k -> new HashMap<>()).put(parts[3], Double.parseDouble(value));
+            } else if (parts.length == 5 && parts[2].equals("grade") && parts[4].equals("points")) {
+                policy = policy.withGradePoint(parts[3], Double.parseDouble(value));
+            } else {
+                throw new IllegalArgumentException("Unknown key " + key);
+            }
+            grading.put(name, policy);
+        }
+        for (Map.Entry<String, Map<String, Double>> entry : minScores.entrySet()) {
+            grading.put(entry.getKey(), grading.get(entry.getKey()).withMinScores(entry.getValue()));
+        }
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (Map.Entry<String, GradingPolicy> entry : grading.entrySet()) {
+            EligibilityRules scenarioRules = rules.get(entry.getKey());
+            scenarios.add(new Scenario(entry.getKey(), entry.getValue(),
+                    scenarioRules != null ? scenarioRules : EligibilityRules.getInstance()));
+        }
+        return scenarios;
+    }
+
+    /**
+     * Evaluates the current policy and every scenario, in parallel.
+     */
+    public Simulation run(List<Scenario> scenarios) {
+        long start = System.nanoTime();
+        List<Scenario> all = new ArrayList<>(scenarios.size() + 1);
+        all.add(Scenario.current());
+        all.addAll(scenarios);
+
+        List<Outcome> outcomes = all.parallelStream()
+                .map(this::evaluate)
+                .collect(Collectors.toList());
+
+        Outcome baseline = outcomes.get(0);
+        for (Outcome outcome : outcomes) {
+            outcome.compareWith(baseline);
+        }
+        Log.info("PolicySimulator", "Simulated " + scenarios.size() + " scenarios over " + cohort.size()
+                + " students in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        return new Simulation(baseline, outcomes.subList(1, outcomes.size()));
+    }
+
+    private Outcome evaluate(Scenario scenario) {
+        CohortData graded = cohort.regrade(scenario.grading);
+        BitSet eligible = scenario.rules.evaluate(graded).getEligibleRows();
+
+        BitSet failed = new BitSet(cohort.getEnrollmentCount());
+        for (int e = 0; e < cohort.finalScore.length; e++) {
+            if (CourseResult.isFailing(scenario.grading.gradePointFor(cohort.finalScore[e]))) failed.set(e);
+        }
+        return new Outcome(scenario.name, eligible, failed);
+    }
+
+    /**
+     * The outcome of the current policy and of each scenario.
+     */
+    public final class Simulation {
+        private final Outcome baseline;
+        private final List<Outcome> scenarios;
+
+        Simulation(Outcome baseline, List<Outcome> scenarios) {
+            this.baseline = baseline;
+            this.scenarios = Collections.unmodifiableList(new ArrayList<>(scenarios));
+        }
+
+        public Outcome getBaseline() {
+            return baseline;
+        }
+
+        public List<Outcome> getScenarios() {
+            return scenarios;
+        }
+
+        /**
+         * Writes one record per scenario and program or course:
+         * scenario, scope (program_eligible or course_failures), id, current count,
+         * simulated count, and how many students or enrollments were gained and lost.
+         */
+        public void export(RecordWriter writer) throws IOException {
+            writer.header("scenario", "scope", "id", "current", "simulated", "gained", "lost");
+            for (Outcome outcome : scenarios) {
+                for (Delta d : outcome.getProgramDeltas()) {
+                    write(writer, outcome, "program_eligible", d);
+                }
+                for (Delta d : outcome.getCourseDeltas()) {
+                    write(writer, outcome, "course_failures", d);
+                }
+            }
+            writer.flush();
+        }
+
+        private void write(RecordWriter writer, Outcome outcome, String scope, Delta d) throws IOException {
+            writer.begin()
+                    .field("scenario", outcome.getScenario())
+                    .field("scope", scope)
+                    .field("id", d.getId())
+                    .field("current", d.getCurrent())
+                    .field("simulated", d.getSimulated())
+                    .field("gained", d.getGained())
+                    .field("lost", d.getLost())
+                    .end();
+        }
+    }
+
+    /**
+     * The eligible students and failing enrollments under one policy, and how
+     * they differ from the current policy.
+     */
+    public final class Outcome {
+        private final String scenario;
+        private final BitSet eligible;
+        private final BitSet failed;
+        private List<Delta> programDeltas;
+        private List<Delta> courseDeltas;
+        private BitSet newlyEligible;
+        private BitSet noLongerEligible;
+
+        Outcome(String scenario, BitSet eligible, BitSet failed) {
+            this.scenario = scenario;
+            this.eligible = eligible;
+            this.failed = failed;
+        }
+
+        private void compareWith(Outcome baseline) {
+            newlyEligible = (BitSet) eligible.clone();
+            newlyEligible.andNot(baseline.eligible);
+            noLongerEligible = (BitSet) baseline.eligible.clone();
+            noLongerEligible.andNot(eligible);
+
+            BitSet newlyFailed = (BitSet) failed.clone();
+            newlyFailed.andNot(baseline.failed);
+            BitSet noLongerFailed = (BitSet) baseline.failed.clone();
+            noLongerFailed.andNot(failed);
+
+            programDeltas = deltas(cohort.getProgramIds(), cohort.program, baseline.eligible, eligible, newlyEligible, noLongerEligible);
+            courseDeltas = deltas(cohort.getCourseIds(), cohort.enrollmentCourse, baseline.failed, failed, newlyFailed, noLongerFailed);
+        }
+
+        public String getScenario() {
+            return scenario;
+        }
+
+        public int getEligibleCount() {
+            return eligible.cardinality();
+        }
+
+        public int getFailedEnrollmentCount() {
+            return failed.cardinality();
+        }
+
+        /**
+         * Returns the eligible students per program, compared with the current policy.
+         */
+        public List<Delta> getProgramDeltas() {
+            return programDeltas;
+        }
+
+        /**
+         * Returns the failing enrollments per course, compared with the current policy.
+         */
+        public List<Delta> getCourseDeltas() {
+            return courseDeltas;
+        }
+
+        public List<String> getNewlyEligible() {
+            return studentIds(newlyEligible);
+        }
+
+        public List<String> getNoLongerEligible() {
+            return studentIds(noLongerEligible);
+        }
+
+        private List<String> studentIds(BitSet rows) {
+            List<String> ids = new ArrayList<>(rows.cardinality());
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                ids.add(cohort.getStudentId(row));
+            }
+            return ids;
+        }
+    }
+
+    // Counts the set bits of each set per group (program or course) in one pass over the group column
+    private static List<Delta> deltas(String[] ids, int[] group, BitSet current, BitSet simulated, BitSet gained, BitSet lost) {
+        long[][] counts = new long[4][ids.length];
+        BitSet[] sets = {current, simulated, gained, lost};
+        for (int k = 0; k < sets.length; k++) {
+            for (int i = sets[k].nextSetBit(0); i >= 0; i = sets[k].nextSetBit(i + 1)) {
+                counts[k][group[i]]++;
+            }
+        }
+
+        List<Delta> deltas = new ArrayList<>(ids.length);
+        for (int g = 0; g < ids.length; g++) {
+            deltas.add(new Delta(ids[g], counts[0][g], counts[1][g], counts[2][g], counts[3][g]));
+        }
+        deltas.sort((a, b) -> a.id.compareTo(b.id));
+        return Collections.unmodifiableList(deltas);
+    }
+
+    /**
+     * A count for one program or course under the current and simulated policy.
+     */
+    public static final class Delta {
+        private final String id;
+        private final long current;
+        private final long simulated;
+        private final long gained;
+        private final long lost;
+
+        Delta(String id, long current, long simulated, long gained, long lost) {
+            this.id = id;
+            this.current = current;
+            this.simulated = simulated;
+            this.gained = gained;
+            this.lost = lost;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getCurrent() {
+            return current;
+        }
+
+        public long getSimulated() {
+            return simulated;
+        }
+
+        public long getGained() {
+            return gained;
+        }
+
+        public long getLost() {
+            return lost;
+        }
+
+        public long getChange() {
+            return simulated - current;
+        }
+    }
+
+    /**
+     * Runs the scenarios in a file and prints the report as CSV.
+     * Usage: PolicySimulator scenarios.properties
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: PolicySimulator <scenarios.properties>");
+            return;
+        }
+        PolicySimulator simulator = new PolicySimulator(CohortData.load(new DataAccess()));
+        Simulation simulation = simulator.run(loadScenarios(Paths.get(args[0])));
+
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        simulation.export(new RecordWriter(out, RecordWriter.Format.CSV));
+    }
+}
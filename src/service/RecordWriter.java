@@ -0,0 +1,222 @@
+package service;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Buffered writer for flat records in CSV or JSON Lines format.
+ *
+ * Fields are appended straight into one reusable char buffer, including
+ * numbers, so writing a record does not build String[] rows or format strings.
+ * The buffer is handed to the underlying Writer only when it fills up.
+ */
+public class RecordWriter implements Closeable, Flushable {
+
+    public enum Format {
+        CSV,
+        JSON_LINES
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private final Writer out;
+    private final Format format;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private boolean firstField;
+    private long records;
+
+    public RecordWriter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Writes the CSV header line. Does nothing for JSON Lines, where every
+     * record carries its own field names.
+     */
+    public void header(String... names) throws IOException {
+        if (format != Format.CSV) return;
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) append(',');
+            appendCsv(names[i]);
+        }
+        append('\n');
+    }
+
+    public RecordWriter begin() throws IOException {
+        firstField = true;
+        if (format == Format.JSON_LINES) append('{');
+        return this;
+    }
+
+    public RecordWriter field(String name, String value) throws IOException {
+        separator(name);
+        if (format == Format.CSV) {
+            appendCsv(value == null ? "" : value);
+        } else if (value == null) {
+            append("null");
+        } else {
+            appendJsonString(value);
+        }
+        return this;
+    }
+
+    public RecordWriter field(String name, long value) throws IOException {
+        separator(name);
+        appendLong(value);
+        return this;
+    }
+
+    /**
+     * Writes a decimal number rounded to a fixed number of places (at most 6).
+     */
+    public RecordWriter field(String name, double value, int decimals) throws IOException {
+        separator(name);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            append(format == Format.CSV ? "" : "null");
+            return this;
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) append('-');
+        appendLong(scaled / scale);
+        if (decimals > 0) {
+            append('.');
+            long fraction = scaled % scale;
+            for (long p = scale / 10; p > 0; p /= 10) {
+                append((char) ('0' + (fraction / p) % 10));
+            }
+        }
+        return this;
+    }
+
+    public RecordWriter field(String name, boolean value) throws IOException {
+        separator(name);
+        append(value ? "true" : "false");
+        return this;
+    }
+
+    public void end() throws IOException {
+        if (format == Format.JSON_LINES) append('}');
+        append('\n');
+        records++;
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    private void separator(String name) throws IOException {
+        if (!firstField) append(',');
+        firstField = false;
+        if (format == Format.JSON_LINES) {
+            appendJsonString(name);
+            append(':');
+        }
+    }
+
+    private void appendCsv(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            append(value);
+            return;
+        }
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') append('"');
+            append(c);
+        }
+        append('"');
+    }
+
+    private void appendJsonString(String value) throws IOException {
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': append("\\\""); break;
+                case '\\': append("\\\\"); break;
+                case '\n': append("\\n"); break;
+                case '\r': append("\\r"); break;
+                case '\t': append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        append("\\u00");
+                        append(Character.forDigit(c >> 4, 16));
+                        append(Character.forDigit(c & 0xf, 16));
+                    } else {
+                        append(c);
+                    }
+            }
+        }
+        append('"');
+    }
+
+    // Writes the digits of a long without allocating a String
+    private void appendLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        if (position + 20 > buffer.length) drain();
+        int start = position;
+        do {
+            buffer[position++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            char tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    private void append(char c) throws IOException {
+        if (position == buffer.length) drain();
+        buffer[position++] = c;
+    }
+
+    private void append(String s) throws IOException {
+        int length = s.length();
+        if (length > buffer.length - position) {
+            drain();
+            if (length > buffer.length) {
+                out.write(s);
+                return;
+            }
+        }
+        s.getChars(0, length, buffer, position);
+        position += length;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
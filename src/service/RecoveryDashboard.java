@@ -0,0 +1,278 @@
+package service;
+
+import domain.Milestone;
+import domain.RecoveryPlan;
+import logging.Log;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals over every recovery plan: plans by status, milestones by status,
+ * plans with every milestone completed, and progress per course.
+ *
+ * The plans file is scanned once when the dashboard is first used. After that
+ * RecoveryFileManager reports each saved plan and each milestone status change,
+ * and only the affected counters are adjusted. Reading the totals never touches
+ * the files, so a view can poll them as often as it likes.
+ *
+ * The counters are LongAdders, so concurrent updates from different sessions
+ * don't contend on a single value. Each plan keeps the last status of its
+ * milestones, which turns a repeated update into a no-op instead of a double count.
+ */
+public class RecoveryDashboard {
+
+    // Milestone statuses as stored per plan
+    private static final int PENDING = 0;
+    private static final int IN_PROGRESS = 1;
+    private static final int COMPLETED = 2;
+
+    private static volatile RecoveryDashboard instance;
+
+    private final Map<Integer, PlanState> plans = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> plansByStatus = new ConcurrentHashMap<>();
+    private final Map<String, CourseProgress> courses = new ConcurrentHashMap<>();
+
+    private final LongAdder planCount = new LongAdder();
+    private final LongAdder milestoneCount = new LongAdder();
+    private final LongAdder inProgressMilestones = new LongAdder();
+    private final LongAdder completedMilestones = new LongAdder();
+    private final LongAdder readyForEvaluation = new LongAdder();
+
+    private RecoveryDashboard() {
+    }
+
+    /**
+     * Returns the dashboard, scanning the recovery plans on first use.
+     */
+    public static RecoveryDashboard getInstance() {
+        RecoveryDashboard current = instance;
+        if (current == null) {
+            synchronized (RecoveryDashboard.class) {
+                current = instance;
+                if (current == null) {
+                    current = new RecoveryDashboard();
+                    current.load(new RecoveryFileManager().loadPlans());
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Rebuilds every counter from the plans file, e.g. after it was edited by hand.
+     */
+    public static void refresh() {
+        synchronized (RecoveryDashboard.class) {
+            RecoveryDashboard rebuilt = new RecoveryDashboard();
+            rebuilt.load(new RecoveryFileManager().loadPlans());
+            instance = rebuilt;
+        }
+    }
+
+    /*
+     * Called by RecoveryFileManager. Nothing is counted until the dashboard has
+     * been loaded; its first scan picks up everything written before that.
+     */
+
+    static void planSaved(RecoveryPlan plan) {
+        RecoveryDashboard current = instance;
+        if (current != null) {
+            // Plans are appended, so a new plan takes the next record number
+            synchronized (current) {
+                current.addPlan(plan, current.plans.size());
+            }
+        }
+    }
+
+    static void milestoneChanged(RecoveryPlan plan, int milestoneIndex, String status) {
+        RecoveryDashboard current = instance;
+        if (current != null) {
+            current.applyMilestone(plan, milestoneIndex, status);
+        }
+    }
+
+    public long getPlanCount() {
+        return planCount.sum();
+    }
+
+    /**
+     * Returns the number of plans per plan status (e.g., "Active", "Completed").
+     */
+    public Map<String, Long> getPlansByStatus() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : plansByStatus.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    public long getMilestoneCount() {
+        return milestoneCount.sum();
+    }
+
+    public long getInProgressMilestones() {
+        return inProgressMilestones.sum();
+    }
+
+    public long getCompletedMilestones() {
+        return completedMilestones.sum();
+    }
+
+    /**
+     * Returns the number of plans whose milestones are all completed.
+     */
+    public long getReadyForEvaluation() {
+        return readyForEvaluation.sum();
+    }
+
+    public double getPercentComplete() {
+        return percent(completedMilestones.sum(), milestoneCount.sum());
+    }
+
+    /**
+     * Returns the progress of every course with a recovery plan, ordered by course ID.
+     */
+    public List<CourseProgress> getCourseProgress() {
+        List<CourseProgress> result = new ArrayList<>(courses.values());
+        result.sort(Comparator.comparing(CourseProgress::getCourseId));
+        return result;
+    }
+
+    private void load(List<RecoveryPlan> all) {
+        for (RecoveryPlan plan : all) {
+            addPlan(plan, plan.getRecordNumber());
+        }
+        Log.info("RecoveryDashboard", "Loaded " + all.size() + " recovery plans.");
+    }
+
+    private void addPlan(RecoveryPlan plan, int recordNumber) {
+        List<Milestone> milestones = plan.getMilestones();
+        PlanState state = new PlanState(plan.getStudentId(), plan.getCourseId(), milestones.size());
+        if (plans.putIfAbsent(recordNumber, state) != null) {
+            return;
+        }
+
+        CourseProgress course = courses.computeIfAbsent(plan.getCourseId(), CourseProgress::new);
+        planCount.increment();
+        course.plans.increment();
+        plansByStatus.computeIfAbsent(plan.getStatus(), k -> new LongAdder()).increment();
+        milestoneCount.add(milestones.size());
+        course.milestones.add(milestones.size());
+
+        for (int i = 0; i < milestones.size(); i++) {
+            applyMilestone(state, course, i, milestones.get(i).getStatus());
+        }
+    }
+
+    private void applyMilestone(RecoveryPlan plan, int index, String status) {
+        PlanState state = plans.get(plan.getRecordNumber());
+        if (state == null || !state.studentId.equals(plan.getStudentId()) || !state.courseId.equals(plan.getCourseId())) {
+            return;
+        }
+        applyMilestone(state, courses.get(state.courseId), index, status);
+    }
+
+    private void applyMilestone(PlanState state, CourseProgress course, int index, String status) {
+        if (index < 0 || index >= state.total) {
+            return;
+        }
+        int code = code(status);
+        int previous = state.milestones.getAndSet(index, code);
+        if (previous == code) {
+            return;
+        }
+
+        if (previous == IN_PROGRESS) {
+            inProgressMilestones.decrement();
+        } else if (previous == COMPLETED) {
+            completedMilestones.decrement();
+            course.completed.decrement();
+            if (state.completed.getAndDecrement() == state.total) {
+                readyForEvaluation.decrement();
+            }
+        }
+
+        if (code == IN_PROGRESS) {
+            inProgressMilestones.increment();
+        } else if (code == COMPLETED) {
+            completedMilestones.increment();
+            course.completed.increment();
+            if (state.completed.incrementAndGet() == state.total) {
+                readyForEvaluation.increment();
+            }
+        }
+    }
+
+    private static int code(String status) {
+        if (Milestone.COMPLETED.equalsIgnoreCase(status)) {
+            return COMPLETED;
+        }
+        if (Milestone.IN_PROGRESS.equalsIgnoreCase(status)) {
+            return IN_PROGRESS;
+        }
+        return PENDING;
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0.0 : part * 100.0 / whole;
+    }
+
+    // The last known status of each milestone of one plan
+    private static final class PlanState {
+        final String studentId;
+        final String courseId;
+        final int total;
+        final AtomicIntegerArray milestones;
+        final AtomicInteger completed = new AtomicInteger();
+
+        PlanState(String studentId, String courseId, int total) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.total = total;
+            this.milestones = new AtomicIntegerArray(total);
+        }
+    }
+
+    /**
+     * Running totals of the recovery plans for one course.
+     */
+    public static final class CourseProgress {
+        private final String courseId;
+        private final LongAdder plans = new LongAdder();
+        private final LongAdder milestones = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+
+        CourseProgress(String courseId) {
+            this.courseId = courseId;
+        }
+
+        public String getCourseId() {
+            return courseId;
+        }
+
+        public long getPlans() {
+            return plans.sum();
+        }
+
+        public long getMilestones() {
+            return milestones.sum();
+        }
+
+        public long getCompletedMilestones() {
+            return completed.sum();
+        }
+
+        public double getPercentComplete() {
+            return percent(completed.sum(), milestones.sum());
+        }
+    }
+}
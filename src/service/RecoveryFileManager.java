@@ -1,13 +1,21 @@
 package service;
 
+import data_access.DataCache;
+import data_access.DataTable;
+import data_access.IdPool;
 import domain.Milestone;
 import domain.RecoveryPlan;
+import diagnostics.RecoveryFileEvent;
+import logging.Log;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 
 /**
@@ -16,36 +24,56 @@ import java.util.ArrayList;
  * established in this project.
  * 
  * File Format:
- * StudentID|CourseID|Recommendation|Status|Milestone1Week:Milestone1Task,Milestone2Week:Milestone2Task
+ * StudentID|CourseID|Recommendation|Status|Milestone1Week:Milestone1Task,Milestone2Week:Milestone2Task|StartDate
  * 
  * Example:
- * S001|C201|Focus on fundamentals|Active|Week 1:Complete exercises,Week 2:Practice problems
+ * S001|C201|Focus on fundamentals|Active|Week 1:Complete exercises,Week 2:Practice problems|2025-02-03
+ * 
+ * The StartDate (yyyy-MM-dd) is optional. When present, each milestone is due at
+ * the end of its week counted from that date (see RecoveryPlan.setStartDate).
+ * 
+ * Milestone statuses are not part of this file. They are kept in a separate
+ * append-only log (see MilestoneStatusLog) and applied when the plans are loaded,
+ * so updating a status is a single small write.
  */
 public class RecoveryFileManager
 {
     // The path to the file where recovery plans are stored
     // Using the data folder as specified in the requirements
-    private final String RECOVERY_FILE_PATH = "data/recovery_plans.txt";
+    private final String RECOVERY_FILE_PATH = DataTable.RECOVERY_PLANS.getPath();
+
+    // Where milestone status changes are recorded
+    private final MilestoneStatusLog statusLog = new MilestoneStatusLog();
 
     /**
      * Saves a recovery plan to the file by appending it to the end.
      * If the file doesn't exist, it will be created automatically.
      * 
      * The format used is pipe-delimited:
-     * StudentID|CourseID|Recommendation|Status|Week1:Task1,Week2:Task2
+     * StudentID|CourseID|Recommendation|Status|Week1:Task1,Week2:Task2|StartDate
      * 
      * @param plan The RecoveryPlan object to save to the file
      * @return true if the save was successful, false otherwise
      */
     public boolean savePlan(RecoveryPlan plan)
     {
+        // Flight Recorder event for profiling file writes (no cost when recording is off)
+        RecoveryFileEvent event = new RecoveryFileEvent(RecoveryFileEvent.WRITE, plan.getStudentId());
+        event.begin();
+
         // Use try-with-resources to ensure the FileWriter is closed properly
         // The second parameter (true) enables append mode so we don't overwrite existing data
         try (FileWriter writer = new FileWriter(RECOVERY_FILE_PATH, true))
         {
             // Build the line to write to the file
-            // Start with the main plan fields separated by pipes
+            // If the last plan in the file has no newline, start a new line first
             StringBuilder line = new StringBuilder();
+            if (!endsWithNewline())
+            {
+                line.append("\n");
+            }
+
+            // Start with the main plan fields separated by pipes
             line.append(plan.getStudentId());
             line.append("|");
             line.append(plan.getCourseId());
@@ -73,22 +101,60 @@ public class RecoveryFileManager
                 }
             }
 
+            // Add the start date the milestones are anchored to, if the plan has one
+            if (plan.getStartDate() != null)
+            {
+                line.append("|");
+                line.append(plan.getStartDate());
+            }
+
             // Add a newline at the end so the next plan goes on a new line
             line.append("\n");
 
             // Write the line to the file
             writer.write(line.toString());
+            event.finish(1, line.length());
+
+            // Log a message for debugging purposes (following the pattern in StudentDAO)
+            Log.info("RecoveryFileManager", "Successfully saved recovery plan for student: " + plan.getStudentId());
+        }
+        catch (IOException e)
+        {
+            // Log error message if something goes wrong
+            Log.error("RecoveryFileManager", "Error saving recovery plan: " + e.getMessage());
+            return false;
+        }
 
-            // Print a message for debugging purposes (following the pattern in StudentDAO)
-            System.err.println("Successfully saved recovery plan for student: " + plan.getStudentId());
+        // Let anything built from the plans file know it changed, now that the writer is closed
+        DataCache.getInstance().reload(DataTable.RECOVERY_PLANS);
+        RecoveryDashboard.planSaved(plan);
+
+        return true;
+    }
 
+    /**
+     * Checks whether the plans file is empty or ends with a newline, by reading
+     * only its last byte.
+     * 
+     * @return true if a new plan can be appended directly
+     */
+    private boolean endsWithNewline()
+    {
+        File file = new File(RECOVERY_FILE_PATH);
+        if (!file.exists() || file.length() == 0)
+        {
             return true;
         }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
         catch (IOException e)
         {
-            // Print error message if something goes wrong
-            System.err.println("Error saving recovery plan: " + e.getMessage());
-            return false;
+            Log.warn("RecoveryFileManager", "Could not check the end of the recovery plans file: " + e.getMessage());
+            return true;
         }
     }
 
@@ -112,10 +178,14 @@ public class RecoveryFileManager
         File file = new File(RECOVERY_FILE_PATH);
         if (!file.exists())
         {
-            System.err.println("Recovery plans file does not exist yet. Returning empty list.");
+            Log.info("RecoveryFileManager", "Recovery plans file does not exist yet. Returning empty list.");
             return plans;
         }
 
+        // Flight Recorder event for profiling file reads (no cost when recording is off)
+        RecoveryFileEvent event = new RecoveryFileEvent(RecoveryFileEvent.READ, "");
+        event.begin();
+
         // Use try-with-resources to read the file
         // BufferedReader is efficient for reading text files line by line
         try (BufferedReader reader = new BufferedReader(new FileReader(RECOVERY_FILE_PATH)))
@@ -131,65 +201,140 @@ public class RecoveryFileManager
                     continue;
                 }
 
-                // Split the line by the pipe character to get each field
-                String[] parts = line.split("\\|");
-
-                // We need at least 4 parts: studentId, courseId, recommendation, status
-                // The 5th part (milestones) is optional
-                if (parts.length >= 4)
+                // Turn the line into a plan; lines with missing fields are skipped
+                RecoveryPlan plan = parsePlan(line);
+                if (plan != null)
                 {
-                    // Extract the main fields
-                    String studentId = parts[0].trim();
-                    String courseId = parts[1].trim();
-                    String recommendation = parts[2].trim();
-                    String status = parts[3].trim();
-
-                    // Create a new RecoveryPlan object
-                    RecoveryPlan plan = new RecoveryPlan(studentId, courseId, recommendation, status);
-
-                    // Now parse the milestones if they exist (5th field)
-                    if (parts.length >= 5 && !parts[4].trim().isEmpty())
-                    {
-                        String milestonesStr = parts[4].trim();
-
-                        // Split the milestones by comma
-                        String[] milestoneArray = milestonesStr.split(",");
-
-                        // Parse each milestone
-                        for (int i = 0; i < milestoneArray.length; i++)
-                        {
-                            String milestoneStr = milestoneArray[i].trim();
-
-                            // Each milestone is in Week:Task format
-                            // Split by colon to get week and task
-                            int colonIndex = milestoneStr.indexOf(":");
-                            if (colonIndex > 0)
-                            {
-                                String week = milestoneStr.substring(0, colonIndex);
-                                String task = milestoneStr.substring(colonIndex + 1);
-
-                                // Create a new Milestone with default status "Pending"
-                                Milestone milestone = new Milestone(week, task, "Pending");
-
-                                // Add it to the plan
-                                plan.addMilestone(milestone);
-                            }
-                        }
-                    }
+                    // Its record number is how the status log refers to it
+                    plan.setRecordNumber(plans.size());
 
                     // Add the completed plan to our list
                     plans.add(plan);
                 }
             }
 
-            System.err.println("Successfully loaded " + plans.size() + " recovery plans.");
+            // Apply the milestone statuses recorded since the plans were saved
+            statusLog.replay(plans);
+
+            Log.info("RecoveryFileManager", "Successfully loaded " + plans.size() + " recovery plans.");
+            event.finish(plans.size(), file::length);
         }
         catch (IOException e)
         {
-            // Print error message if something goes wrong
-            System.err.println("Error loading recovery plans: " + e.getMessage());
+            // Log error message if something goes wrong
+            Log.error("RecoveryFileManager", "Error loading recovery plans: " + e.getMessage());
         }
 
         return plans;
     }
+
+    /**
+     * Parses one line of the recovery plans file.
+     * 
+     * @param line A line in the format described at the top of this class
+     * @return The plan with its milestones, or null if the line has too few fields
+     */
+    RecoveryPlan parsePlan(String line)
+    {
+        // Split the line by the pipe character to get each field
+        String[] parts = line.split("\\|");
+
+        // We need at least 4 parts: studentId, courseId, recommendation, status
+        // The 5th part (milestones) and 6th part (start date) are optional
+        if (parts.length < 4)
+        {
+            return null;
+        }
+
+        // Extract the main fields
+        // IDs are canonicalized so plans share the instances used by the CSV loaders
+        String studentId = IdPool.STUDENTS.intern(parts[0].trim());
+        String courseId = IdPool.COURSES.intern(parts[1].trim());
+        String recommendation = parts[2].trim();
+        String status = parts[3].trim();
+
+        // Create a new RecoveryPlan object
+        RecoveryPlan plan = new RecoveryPlan(studentId, courseId, recommendation, status);
+
+        // Now parse the milestones if they exist (5th field)
+        if (parts.length >= 5 && !parts[4].trim().isEmpty())
+        {
+            String milestonesStr = parts[4].trim();
+
+            // Split the milestones by comma
+            String[] milestoneArray = milestonesStr.split(",");
+
+            // Parse each milestone
+            for (int i = 0; i < milestoneArray.length; i++)
+            {
+                String milestoneStr = milestoneArray[i].trim();
+
+                // Each milestone is in Week:Task format
+                // Split by colon to get week and task
+                int colonIndex = milestoneStr.indexOf(":");
+                if (colonIndex > 0)
+                {
+                    String week = milestoneStr.substring(0, colonIndex);
+                    String task = milestoneStr.substring(colonIndex + 1);
+
+                    // Create a new Milestone with default status "Pending"
+                    // The logged status, if any, is applied by loadPlans once all plans are read
+                    Milestone milestone = new Milestone(week, task, Milestone.PENDING);
+
+                    // Add it to the plan
+                    plan.addMilestone(milestone);
+                }
+            }
+        }
+
+        // Anchor the milestones to dates if the plan has a start date (6th field)
+        if (parts.length >= 6 && !parts[5].trim().isEmpty())
+        {
+            try
+            {
+                plan.setStartDate(LocalDate.parse(parts[5].trim()));
+            }
+            catch (DateTimeParseException e)
+            {
+                Log.warn("RecoveryFileManager", "Ignoring invalid start date in the plan for student: " + studentId);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Changes the status of one milestone of a loaded plan and records the change.
+     * 
+     * Only one line is appended to the milestone status log; the recovery plans
+     * file itself is not rewritten.
+     * 
+     * @param plan The plan, as returned by loadPlans()
+     * @param milestoneIndex The position of the milestone in the plan
+     * @param status The new status (e.g., "Completed")
+     * @return true if the change was recorded, false otherwise
+     */
+    public boolean updateMilestoneStatus(RecoveryPlan plan, int milestoneIndex, String status)
+    {
+        if (plan.getRecordNumber() < 0)
+        {
+            Log.warn("RecoveryFileManager", "Cannot update a milestone of a plan that was not loaded from file.");
+            return false;
+        }
+        if (milestoneIndex < 0 || milestoneIndex >= plan.getMilestones().size())
+        {
+            Log.warn("RecoveryFileManager", "No milestone " + milestoneIndex + " in the plan for student: " + plan.getStudentId());
+            return false;
+        }
+
+        if (!statusLog.append(plan, milestoneIndex, status))
+        {
+            return false;
+        }
+        plan.getMilestones().get(milestoneIndex).setStatus(status);
+        RecoveryDashboard.milestoneChanged(plan, milestoneIndex, status);
+
+        // Let open views know a status changed
+        DataCache.getInstance().reload(DataTable.MILESTONE_STATUS);
+        return true;
+    }
 }
@@ -1,10 +1,15 @@
 package service;
 
+import data_access.DataAccess;
+import data_access.IdPool;
+import model.Enrollment;
+
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -12,13 +17,12 @@ import java.util.Map;
  * based on their exam and assignment scores and their recovery eligibility status.
  * 
  * This service reads data from:
- * - student_enrollment_information.csv: Contains ExamScore and AssignmentScore
+ * - DataAccess.enrollmentList(): archived and live enrollments, with ExamScore and AssignmentScore
  * - student_information.csv: Contains RecoveryEligibility status
  */
 public class RecoveryService {
     
-    // File paths for the data sources
-    private final String ENROLLMENT_FILE_PATH = "data/student_enrollment_information.csv";
+    // File path for the student data source
     private final String STUDENT_FILE_PATH = "data/student_information.csv";
     
     // The pass mark threshold - scores below this are considered failing
@@ -29,7 +33,7 @@ public class RecoveryService {
      * and recovery eligibility.
      * 
      * Logic:
-     * 1. Read student_enrollment_information.csv
+     * 1. Read every enrollment, archived semesters included
      * 2. Flag students with ExamScore < 40 OR AssignmentScore < 40 as "At Risk"
      * 3. Cross-reference with student_information.csv to check RecoveryEligibility
      * 4. Only include students whose RecoveryEligibility is "True" or "Eligible"
@@ -45,22 +49,16 @@ public class RecoveryService {
         Map<String, String> eligibilityMap = loadRecoveryEligibility();
         
         // Step 3: Read the enrollment data and identify students at risk
-        // Parse each enrollment record and check if scores are below the pass mark
-        ArrayList<String[]> enrollments = readCSV(ENROLLMENT_FILE_PATH);
+        // The archived semesters are included, so sealing a term does not hide its failures
+        List<Enrollment> enrollments = new DataAccess().enrollmentList();
         
         // Step 4: Process each enrollment record
-        // CSV columns: EnrollmentID(0), StudentID(1), CourseID(2), Year(3), Semester(4), ExamScore(5), AssignmentScore(6)
-        for (String[] enrollment : enrollments) {
-            // Ensure we have all required columns
-            if (enrollment.length < 7) {
-                continue;
-            }
-            
+        for (Enrollment enrollment : enrollments) {
             // Extract relevant fields from the enrollment record
-            String studentId = enrollment[1].trim();
-            String courseId = enrollment[2].trim();
-            String examScoreStr = enrollment[5].trim();
-            String assignmentScoreStr = enrollment[6].trim();
+            String studentId = IdPool.STUDENTS.intern(enrollment.getStudentId().trim());
+            String courseId = IdPool.COURSES.intern(enrollment.getCourseId().trim());
+            String examScoreStr = enrollment.getExamScore().trim();
+            String assignmentScoreStr = enrollment.getAssignmentScore().trim();
             
             // Step 5: Parse the scores and check if they are below the pass mark
             // Handle potential parsing errors for non-numeric values
@@ -118,7 +116,7 @@ public class RecoveryService {
         for (String[] student : students) {
             // Ensure we have the RecoveryEligibility column (index 5)
             if (student.length >= 6) {
-                String studentId = student[0].trim();
+                String studentId = IdPool.STUDENTS.intern(student[0].trim());
                 String eligibility = student[5].trim();
                 eligibilityMap.put(studentId, eligibility);
             }
@@ -0,0 +1,132 @@
+package service;
+
+/**
+ * Running score statistics for one analytics group (a course, instructor,
+ * program or semester).
+ *
+ * Scores are whole numbers between 0 and 100, so distributions are kept as
+ * primitive histograms with one counter per score. Means and percentiles are
+ * read straight from the histograms; no individual scores are stored.
+ */
+public class ScoreStats {
+
+    public static final int BINS = 101;
+
+    private long count;
+    private long failed;
+    private double examSum;
+    private double assignmentSum;
+    private double finalSum;
+    private final int[] examHistogram = new int[BINS];
+    private final int[] assignmentHistogram = new int[BINS];
+    private final int[] finalHistogram = new int[BINS];
+
+    void add(double examScore, double assignmentScore, double finalScore, boolean isFailed) {
+        count++;
+        if (isFailed) failed++;
+        examSum += examScore;
+        assignmentSum += assignmentScore;
+        finalSum += finalScore;
+        examHistogram[bin(examScore)]++;
+        assignmentHistogram[bin(assignmentScore)]++;
+        finalHistogram[bin(finalScore)]++;
+    }
+
+    void merge(ScoreStats other) {
+        count += other.count;
+        failed += other.failed;
+        examSum += other.examSum;
+        assignmentSum += other.assignmentSum;
+        finalSum += other.finalSum;
+        for (int i = 0; i < BINS; i++) {
+            examHistogram[i] += other.examHistogram[i];
+            assignmentHistogram[i] += other.assignmentHistogram[i];
+            finalHistogram[i] += other.finalHistogram[i];
+        }
+    }
+
+    private static int bin(double score) {
+        int rounded = (int) Math.round(score);
+        return rounded < 0 ? 0 : Math.min(rounded, BINS - 1);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public double getFailRate() {
+        return count == 0 ? 0.0 : (double) failed / count;
+    }
+
+    public double getMeanExam() {
+        return count == 0 ? 0.0 : examSum / count;
+    }
+
+    public double getMeanAssignment() {
+        return count == 0 ? 0.0 : assignmentSum / count;
+    }
+
+    public double getMeanFinal() {
+        return count == 0 ? 0.0 : finalSum / count;
+    }
+
+    public int finalPercentile(double percentile) {
+        return percentile(finalHistogram, percentile);
+    }
+
+    public int examPercentile(double percentile) {
+        return percentile(examHistogram, percentile);
+    }
+
+    public int assignmentPercentile(double percentile) {
+        return percentile(assignmentHistogram, percentile);
+    }
+
+    /**
+     * Returns a copy of the exam score histogram (index = score).
+     */
+    public int[] getExamHistogram() {
+        return examHistogram.clone();
+    }
+
+    /**
+     * Returns a copy of the assignment score histogram (index = score).
+     */
+    public int[] getAssignmentHistogram() {
+        return assignmentHistogram.clone();
+    }
+
+    /**
+     * Returns a copy of the final score histogram (index = score).
+     */
+    public int[] getFinalHistogram() {
+        return finalHistogram.clone();
+    }
+
+    /**
+     * Collapses a histogram into buckets of ten points (0-9, 10-19, ..., 90-100).
+     */
+    public static int[] toDeciles(int[] histogram) {
+        int[] deciles = new int[10];
+        for (int i = 0; i < histogram.length; i++) {
+            deciles[Math.min(i / 10, 9)] += histogram[i];
+        }
+        return deciles;
+    }
+
+    // Nearest-rank percentile read from a histogram
+    private int percentile(int[] histogram, double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) return i;
+        }
+        return BINS - 1;
+    }
+}
@@ -1,7 +1,9 @@
 package service;
 
+import data_access.IdPool;
 import domain.Student;
 import domain.SystemRole;
+import logging.Log;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -17,7 +19,7 @@ public class StudentDAO {
 
     public List<Student> loadAllStudents() {
         List<Student> students = new ArrayList<>();
-        System.err.println("Attempting to load students from file: " + STUDENT_FILE_PATH);
+        Log.info("StudentDAO", "Attempting to load students from file: " + STUDENT_FILE_PATH);
 
         try (BufferedReader br = new BufferedReader(new FileReader(STUDENT_FILE_PATH))) {
             String line;
@@ -27,10 +29,10 @@ public class StudentDAO {
                 String[] values = line.split(",");
 
                 if (values.length >= 6) {
-                    String studentID = values[0].trim();
+                    String studentID = IdPool.STUDENTS.intern(values[0].trim());
                     String firstName = values[1].trim();
                     String lastName = values[2].trim();
-                    String major = values[3].trim();
+                    String major = IdPool.PROGRAMS.intern(values[3].trim());
                     String academicYear = values[4].trim();
                     String email = values[5].trim();
 
@@ -47,14 +49,14 @@ public class StudentDAO {
                     students.add(student);
                 }
             }
-            System.err.println("Successfully loaded " + students.size() + " students.");
+            Log.info("StudentDAO", "Successfully loaded " + students.size() + " students.");
         } catch (IOException e) {
-            System.err.println("ERROR: Failed to load student data. Check file path: " + e.getMessage());
+            Log.error("StudentDAO", "Failed to load student data. Check file path: " + e.getMessage());
         }
         return students;
     }
     public boolean saveStudent(Student student) {
-        System.err.println("Saving student " + student.getUserID() + " to file.");
+        Log.info("StudentDAO", "Saving student " + student.getUserID() + " to file.");
         return true;
     }
 }
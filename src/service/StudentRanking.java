@@ -0,0 +1,472 @@
+package service;
+
+import academic.RetakePolicy;
+import data_access.DataAccess;
+import data_access.DataCache;
+import data_access.DataTable;
+import logging.Log;
+import model.Enrollment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ranks students by CGPA, failed courses or risk score, across the cohort or
+ * within a program.
+ *
+ * For each metric the values of the cohort, and of each program, are kept in a
+ * sorted double[]. A percentile is two binary searches in that array; the value
+ * at a percentile is one array read. Top-N and bottom-N lists go through the
+ * rows once with a heap that never holds more than N rows, so asking for the 200
+ * most at-risk students does not sort the program.
+ *
+ * When a student's scores change, {@link #update} moves the old value out of
+ * the sorted arrays and the new one in, instead of sorting again. The shared
+ * instance does this itself when the data changes, on its own thread: appended
+ * enrollment rows update only their students, from the totals of the
+ * {@link AttemptHistoryStore}, and other changes reload the cohort.
+ *
+ * Percentiles are by value, whatever the metric: the student with the most
+ * failed courses or the highest risk is at the top, as is the best CGPA.
+ */
+public class StudentRanking {
+
+    /**
+     * What students are ranked by.
+     */
+    public enum Metric {
+        CGPA,
+        FAILED_COURSES,
+        RISK
+    }
+
+    private static StudentRanking instance;
+
+    private static final ExecutorService updater = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "student-ranking");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String[] studentIds;
+    private final String[] programIds;
+    private final int[] program;
+    private final int[][] rowsByProgram;
+    private final CohortData cohort;
+
+    // [metric][row]: the current value of each student
+    private final double[][] values;
+    // [metric]: all values, sorted; [metric][program]: the values of one program, sorted
+    private final double[][] sorted;
+    private final double[][][] sortedByProgram;
+
+    /**
+     * Builds the ranking of a cohort.
+     */
+    public StudentRanking(CohortData cohort) {
+        int n = cohort.size();
+        this.cohort = cohort;
+        this.studentIds = new String[n];
+        this.programIds = cohort.getProgramIds();
+        this.program = cohort.program.clone();
+
+        int metrics = Metric.values().length;
+        this.values = new double[metrics][n];
+        for (int i = 0; i < n; i++) {
+            studentIds[i] = cohort.getStudentId(i);
+            values[Metric.CGPA.ordinal()][i] = cohort.cgpa[i];
+            values[Metric.FAILED_COURSES.ordinal()][i] = cohort.failedCourses[i];
+            values[Metric.RISK.ordinal()][i] = riskScore(cohort.cgpa[i], cohort.failedCourses[i], cohort.credits[i]);
+        }
+
+        int[] programSizes = new int[programIds.length];
+        for (int p : program) programSizes[p]++;
+        this.rowsByProgram = new int[programIds.length][];
+        for (int p = 0; p < programIds.length; p++) {
+            rowsByProgram[p] = new int[programSizes[p]];
+        }
+        int[] filled = new int[programIds.length];
+        for (int i = 0; i < n; i++) {
+            rowsByProgram[program[i]][filled[program[i]]++] = i;
+        }
+
+        this.sorted = new double[metrics][];
+        this.sortedByProgram = new double[metrics][programIds.length][];
+        for (int m = 0; m < metrics; m++) {
+            sorted[m] = values[m].clone();
+            Arrays.sort(sorted[m]);
+            for (int p = 0; p < programIds.length; p++) {
+                double[] programValues = new double[rowsByProgram[p].length];
+                for (int k = 0; k < programValues.length; k++) {
+                    programValues[k] = values[m][rowsByProgram[p][k]];
+                }
+                Arrays.sort(programValues);
+                sortedByProgram[m][p] = programValues;
+            }
+        }
+    }
+
+    /**
+     * Returns the ranking of the current data, building it on first use. It is
+     * kept up to date when enrollments, students or courses change.
+     */
+    public static synchronized StudentRanking getInstance() {
+        if (instance == null) {
+            instance = new StudentRanking(CohortData.load(new DataAccess()));
+            // The attempt store listens first, so its totals include appended rows by the time they are applied here
+            AttemptHistoryStore.getInstance();
+            DataCache.getInstance().addListener(new RankingListener());
+        }
+        return instance;
+    }
+
+    /**
+     * Hands changes to the updater thread, so the data cache is not held up while
+     * the ranking catches up. Appended enrollment rows only update the students
+     * they belong to; any other change reloads the cohort.
+     */
+    private static class RankingListener implements DataCache.Listener {
+        @Override
+        public void tableChanged(DataTable table) {
+            if (table == DataTable.ENROLLMENTS || table == DataTable.STUDENTS || table == DataTable.COURSES) {
+                updater.execute(StudentRanking::refresh);
+            }
+        }
+
+        @Override
+        public void rowsAppended(DataTable table, List<?> rows) {
+            if (table != DataTable.ENROLLMENTS) {
+                tableChanged(table);
+                return;
+            }
+            Set<String> studentIds = new HashSet<>();
+            for (Object row : rows) {
+                studentIds.add(((Enrollment) row).getStudentId().trim());
+            }
+            updater.execute(() -> refresh(studentIds));
+        }
+    }
+
+    // Applies the current totals of some students to the shared ranking; students not in the cohort are skipped
+    private static void refresh(Set<String> studentIds) {
+        AttemptHistoryStore attempts = AttemptHistoryStore.getInstance();
+        RetakePolicy policy = RetakePolicy.configured();
+        int updated = 0;
+        synchronized (StudentRanking.class) {
+            for (String studentId : studentIds) {
+                if (instance.update(studentId, attempts.calculateCGPA(studentId, policy),
+                        attempts.getFailedCourses(studentId, policy), attempts.getCountedCredits(studentId, policy))) {
+                    updated++;
+                }
+            }
+        }
+        Log.info("StudentRanking", "Updated the ranking of " + updated + " students from appended enrollments.");
+    }
+
+    // Applies changed scores to the shared ranking; rebuilds it if students were added or removed
+    private static void refresh() {
+        CohortData latest = CohortData.load(new DataAccess());
+        synchronized (StudentRanking.class) {
+            if (!instance.update(latest)) {
+                instance = new StudentRanking(latest);
+                Log.info("StudentRanking", "Rebuilt ranking of " + latest.size() + " students.");
+            }
+        }
+    }
+
+    /**
+     * A simple risk score from 0 (no risk) to 100: 60 points for a CGPA falling
+     * from 4.0 to 0.0 and 40 points for up to 5 failed courses. Students without
+     * any results score 0.
+     */
+    public static double riskScore(double cgpa, int failedCourses, int credits) {
+        if (credits == 0) return 0.0;
+        double gpaGap = (4.0 - Math.max(0.0, Math.min(4.0, cgpa))) / 4.0;
+        return 60.0 * gpaGap + 40.0 * Math.min(failedCourses, 5) / 5.0;
+    }
+
+    public synchronized int size() {
+        return studentIds.length;
+    }
+
+    /**
+     * Returns a student's value of a metric, or NaN if the student is unknown.
+     */
+    public synchronized double getValue(String studentId, Metric metric) {
+        int row = cohort.rowOf(studentId);
+        return row < 0 ? Double.NaN : values[metric.ordinal()][row];
+    }
+
+    /**
+     * Returns the percentage of the cohort with a lower value than the student,
+     * counting equal values as half; NaN if the student is unknown.
+     */
+    public synchronized double percentile(String studentId, Metric metric) {
+        int row = cohort.rowOf(studentId);
+        return row < 0 ? Double.NaN : percentileIn(sorted[metric.ordinal()], values[metric.ordinal()][row]);
+    }
+
+    /**
+     * Returns the percentile of a student within their own program; NaN if the
+     * student is unknown.
+     */
+    public synchronized double programPercentile(String studentId, Metric metric) {
+        int row = cohort.rowOf(studentId);
+        return row < 0 ? Double.NaN
+                : percentileIn(sortedByProgram[metric.ordinal()][program[row]], values[metric.ordinal()][row]);
+    }
+
+    /**
+     * Returns the value at a percentile (0 - 100), e.g. 50 for the median, in the
+     * cohort or in one program (programId not null); NaN if there are no students.
+     */
+    public synchronized double valueAt(Metric metric, double percentile, String programId) {
+        double[] scope = scope(metric, programId);
+        if (scope.length == 0) return Double.NaN;
+        int index = (int) Math.round(percentile / 100.0 * (scope.length - 1));
+        return scope[Math.max(0, Math.min(scope.length - 1, index))];
+    }
+
+    /**
+     * Returns the n students with the highest value, highest first, in the cohort
+     * or in one program (programId not null).
+     */
+    public synchronized List<Entry> top(Metric metric, int n, String programId) {
+        return select(metric, n, programId, 1);
+    }
+
+    /**
+     * Returns the n students with the lowest value, lowest first, in the cohort
+     * or in one program (programId not null).
+     */
+    public synchronized List<Entry> bottom(Metric metric, int n, String programId) {
+        return select(metric, n, programId, -1);
+    }
+
+    /**
+     * Records new scores for a student and moves them in the sorted arrays.
+     *
+     * @return false if the student is unknown
+     */
+    public synchronized boolean update(String studentId, double cgpa, int failedCourses, int credits) {
+        int row = cohort.rowOf(studentId);
+        if (row < 0) return false;
+        set(row, Metric.CGPA, cgpa);
+        set(row, Metric.FAILED_COURSES, failedCourses);
+        set(row, Metric.RISK, riskScore(cgpa, failedCourses, credits));
+        return true;
+    }
+
+    /*
+     * Applies every student whose aggregates differ in a newer snapshot of the
+     * same students. Returns false if the students differ, so the caller rebuilds.
+     */
+    private synchronized boolean update(CohortData latest) {
+        if (latest.size() != studentIds.length) return false;
+        for (int i = 0; i < studentIds.length; i++) {
+            if (!latest.getStudentId(i).equals(studentIds[i]) || !latest.getProgramId(i).equals(programIds[program[i]])) {
+                return false;
+            }
+        }
+
+        int changed = 0;
+        for (int i = 0; i < studentIds.length; i++) {
+            double risk = riskScore(latest.cgpa[i], latest.failedCourses[i], latest.credits[i]);
+            if (latest.cgpa[i] != values[Metric.CGPA.ordinal()][i]
+                    || latest.failedCourses[i] != values[Metric.FAILED_COURSES.ordinal()][i]
+                    || risk != values[Metric.RISK.ordinal()][i]) {
+                set(i, Metric.CGPA, latest.cgpa[i]);
+                set(i, Metric.FAILED_COURSES, latest.failedCourses[i]);
+                set(i, Metric.RISK, risk);
+                changed++;
+            }
+        }
+        Log.info("StudentRanking", "Updated the ranking of " + changed + " students.");
+        return true;
+    }
+
+    // Replaces a value in the cohort and program arrays without sorting them again
+    private void set(int row, Metric metric, double value) {
+        int m = metric.ordinal();
+        double old = values[m][row];
+        if (old == value) return;
+        values[m][row] = value;
+        replace(sorted[m], old, value);
+        replace(sortedByProgram[m][program[row]], old, value);
+    }
+
+    // Removes one occurrence of old from a sorted array and inserts value, shifting only the elements in between
+    private static void replace(double[] a, double old, double value) {
+        int from = Arrays.binarySearch(a, old);
+        if (value > old) {
+            int to = lowerBound(a, value) - 1;
+            System.arraycopy(a, from + 1, a, from, to - from);
+            a[to] = value;
+        } else {
+            int to = lowerBound(a, value);
+            System.arraycopy(a, to, a, to + 1, from - to);
+            a[to] = value;
+        }
+    }
+
+    private double[] scope(Metric metric, String programId) {
+        if (programId == null) return sorted[metric.ordinal()];
+        int p = programIndex(programId);
+        return p < 0 ? new double[0] : sortedByProgram[metric.ordinal()][p];
+    }
+
+    private int programIndex(String programId) {
+        for (int p = 0; p < programIds.length; p++) {
+            if (programIds[p].equals(programId.trim())) return p;
+        }
+        return -1;
+    }
+
+    /*
+     * Keeps the best n rows in a heap whose root is the worst row kept, so a row
+     * that isn't better than the root is skipped with one comparison.
+     * direction is 1 to keep the highest values and -1 to keep the lowest.
+     */
+    private List<Entry> select(Metric metric, int n, String programId, int direction) {
+        int[] rows;
+        if (programId == null) {
+            rows = null;
+        } else {
+            int p = programIndex(programId);
+            if (p < 0) return Collections.emptyList();
+            rows = rowsByProgram[p];
+        }
+        int count = rows == null ? studentIds.length : rows.length;
+        int limit = Math.min(n, count);
+        if (limit <= 0) return Collections.emptyList();
+
+        double[] v = values[metric.ordinal()];
+        int[] heap = new int[limit];
+        int size = 0;
+        for (int k = 0; k < count; k++) {
+            int row = rows == null ? k : rows[k];
+            if (size < limit) {
+                heap[size] = row;
+                siftUp(heap, size++, v, direction);
+            } else if (better(row, heap[0], v, direction)) {
+                heap[0] = row;
+                siftDown(heap, size, v, direction);
+            }
+        }
+
+        // Taking the root repeatedly gives the kept rows from worst to best
+        Entry[] result = new Entry[size];
+        while (size > 0) {
+            int row = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, v, direction);
+            result[size] = new Entry(studentIds[row], programIds[program[row]], v[row], size + 1);
+        }
+        return Arrays.asList(result);
+    }
+
+    // Higher (or lower) value first; on equal values the earlier row ranks higher
+    private static boolean better(int a, int b, double[] v, int direction) {
+        int c = Double.compare(v[a], v[b]) * direction;
+        return c > 0 || (c == 0 && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, double[] v, int direction) {
+        int row = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], row, v, direction)) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = row;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] v, int direction) {
+        int row = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && better(heap[child], heap[child + 1], v, direction)) child++;
+            if (!better(row, heap[child], v, direction)) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = row;
+    }
+
+    private static double percentileIn(double[] a, double value) {
+        if (a.length == 0) return Double.NaN;
+        int below = lowerBound(a, value);
+        int equal = upperBound(a, value) - below;
+        return (below + equal / 2.0) * 100.0 / a.length;
+    }
+
+    // Index of the first element >= value
+    private static int lowerBound(double[] a, double value) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < value) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // Index of the first element > value
+    private static int upperBound(double[] a, double value) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= value) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * One student in a top-N or bottom-N list.
+     */
+    public static final class Entry {
+        private final String studentId;
+        private final String programId;
+        private final double value;
+        private final int rank;
+
+        Entry(String studentId, String programId, double value, int rank) {
+            this.studentId = studentId;
+            this.programId = programId;
+            this.value = value;
+            this.rank = rank;
+        }
+
+        public String getStudentId() {
+            return studentId;
+        }
+
+        public String getProgramId() {
+            return programId;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * Returns the position in the list, starting at 1.
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            return rank + ". " + studentId + " (" + programId + "): " + String.format("%.2f", value);
+        }
+    }
+}
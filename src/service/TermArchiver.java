@@ -0,0 +1,157 @@
+package service;
+
+import academic.Course;
+import academic.CourseResult;
+import academic.RetakePolicy;
+import data_access.DataAccess;
+import data_access.IdPool;
+import data_access.SemesterArchive;
+import data_access.SemesterSegment;
+import model.Enrollment;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seals closed semesters into the {@link SemesterArchive} and computes CGPA from
+ * the archived per-student totals plus the live term.
+ *
+ * Rows are graded with {@link Course#gradeFor}, like everywhere else. When every
+ * attempt counts ({@link RetakePolicy#ALL_ATTEMPTS}) sealed semesters contribute
+ * their stored totals, so only the rows still in the live enrollment file are
+ * graded on each call. Under the other policies which attempt counts depends on
+ * attempts in other semesters, so CGPA comes from the {@link AttemptHistoryStore}.
+ *
+ * Semesters are sealed from the command line once they have closed; see {@link #main}.
+ */
+public class TermArchiver {
+
+    private final DataAccess data;
+    private final CourseCatalog catalog;
+    private final SemesterArchive archive;
+    private final RetakePolicy policy;
+
+    public TermArchiver() {
+        this(new DataAccess(), CourseCatalog.getInstance(), SemesterArchive.getInstance(), RetakePolicy.configured());
+    }
+
+    public TermArchiver(DataAccess data, CourseCatalog catalog, SemesterArchive archive, RetakePolicy policy) {
+        this.data = data;
+        this.catalog = catalog;
+        this.archive = archive;
+        this.policy = policy;
+    }
+
+    /**
+     * Moves a closed semester out of the live enrollment file into the archive.
+     *
+     * @return The number of rows archived, or -1 if the semester could not be sealed
+     */
+    public int seal(int year, int semester) {
+        return archive.seal(year, semester, this::summarize);
+    }
+
+    /**
+     * Returns a student's CGPA over every archived and live semester.
+     */
+    public double calculateCGPA(String studentId) {
+        studentId = IdPool.STUDENTS.intern(studentId.trim());
+        if (policy != RetakePolicy.ALL_ATTEMPTS) {
+            return AttemptHistoryStore.getInstance().calculateCGPA(studentId, policy);
+        }
+
+        double[] totals = new double[3];
+
+        for (SemesterSegment segment : archive.getSegments()) {
+            SemesterSegment.StudentTotals t = segment.getTotals().get(studentId);
+            if (t != null) {
+                totals[0] += t.getCredits();
+                totals[1] += t.getGradePoints();
+            }
+        }
+        for (Enrollment en : data.liveEnrollmentList()) {
+            if (en.getStudentId().trim().equals(studentId)) {
+                add(totals, en);
+            }
+        }
+        return totals[0] > 0 ? totals[1] / totals[0] : 0.0;
+    }
+
+    /**
+     * Returns the CGPA of every student with at least one graded course.
+     */
+    public Map<String, Double> calculateAllCGPA() {
+        if (policy != RetakePolicy.ALL_ATTEMPTS) {
+            AttemptHistoryStore attempts = AttemptHistoryStore.getInstance();
+            Map<String, Double> cgpa = attempts.calculateAllCGPA(policy);
+            cgpa.keySet().removeIf(studentId -> attempts.getCountedCredits(studentId, policy) == 0);
+            return cgpa;
+        }
+
+        Map<String, double[]> totals = new HashMap<>();
+        for (SemesterSegment segment : archive.getSegments()) {
+            for (Map.Entry<String, SemesterSegment.StudentTotals> entry : segment.getTotals().entrySet()) {
+                double[] sum = totals.computeIfAbsent(entry.getKey(), k -> new double[3]);
+                sum[0] += entry.getValue().getCredits();
+                sum[1] += entry.getValue().getGradePoints();
+            }
+        }
+        for (Enrollment en : data.liveEnrollmentList()) {
+            add(totals.computeIfAbsent(IdPool.STUDENTS.intern(en.getStudentId().trim()), k -> new double[3]), en);
+        }
+
+        Map<String, Double> cgpa = new HashMap<>();
+        for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+            double[] sum = entry.getValue();
+            if (sum[0] > 0) {
+                cgpa.put(entry.getKey(), sum[1] / sum[0]);
+            }
+        }
+        return cgpa;
+    }
+
+    // Per-student credits, credit-weighted grade points and failed courses of one semester
+    private Map<String, SemesterSegment.StudentTotals> summarize(List<Enrollment> rows) {
+        Map<String, double[]> totals = new HashMap<>();
+        for (Enrollment en : rows) {
+            add(totals.computeIfAbsent(IdPool.STUDENTS.intern(en.getStudentId().trim()), k -> new double[3]), en);
+        }
+
+        Map<String, SemesterSegment.StudentTotals> summary = new HashMap<>();
+        for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+            double[] sum = entry.getValue();
+            summary.put(entry.getKey(), new SemesterSegment.StudentTotals((int) sum[0], sum[1], (int) sum[2]));
+        }
+        return summary;
+    }
+
+    // Adds one row to a {credits, grade points, failed} accumulator; unknown courses are skipped
+    private void add(double[] totals, Enrollment en) {
+        Course course = catalog.getCourse(en.getCourseId().trim());
+        if (course == null) {
+            return;
+        }
+        double gradePoint = course.gradeFor(Double.parseDouble(en.getExamScore().trim()),
+                Double.parseDouble(en.getAssignmentScore().trim())).getGpa();
+
+        totals[0] += course.getCreditHours();
+        totals[1] += gradePoint * course.getCreditHours();
+        if (CourseResult.isFailing(gradePoint)) {
+            totals[2]++;
+        }
+    }
+
+    /**
+     * Seals a closed semester into the archive.
+     * Usage: TermArchiver year semester
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: TermArchiver <year> <semester>");
+            return;
+        }
+        int rows = new TermArchiver().seal(Integer.parseInt(args[0].trim()), Integer.parseInt(args[1].trim()));
+        System.out.println(rows < 0 ? "The semester was not sealed, see the log." : "Archived " + rows + " rows.");
+    }
+}